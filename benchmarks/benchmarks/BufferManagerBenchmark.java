@@ -0,0 +1,46 @@
+package benchmarks;
+
+import edu.usu.graphics.BufferManager;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Taking a vertex buffer from the pool and handing it back, as each draw batch does every frame. The pool is filled
+ * beforehand with buffers of every size tier up to the requested one, so finding a buffer has to search past the
+ * ones that don't fit. Creating the buffers needs a GL context, so these run with a window open.
+ * */
+@State(Scope.Thread)
+public class BufferManagerBenchmark {
+    @Param({"1", "16", "64"})
+    public int pooledBuffers;
+
+    @Param({"100", "10000"})
+    public int vertices;
+
+    private BufferManager bufferManager;
+
+    @Setup(Level.Trial)
+    public void setup(WindowState window) {
+        bufferManager = new BufferManager();
+        int[] ids = new int[pooledBuffers];
+        for (int i = 0; i < pooledBuffers; i++) {
+            // a spread of sizes, smallest first, all of them in use at once so each gets its own buffer
+            int size = Math.max(1, vertices >> (pooledBuffers - 1 - i) % 8);
+            ids[i] = bufferManager.getSolidColorBuffer(size, size * 3 / 2);
+        }
+        for (int id : ids) {
+            bufferManager.releaseBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bufferManager.close();
+    }
+
+    @Benchmark
+    public int getAndReleaseBuffer() {
+        int id = bufferManager.getSolidColorBuffer(vertices, vertices * 3 / 2);
+        bufferManager.releaseBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, id);
+        return id;
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import edu.usu.graphics.BufferManager;
+import edu.usu.graphics.Color;
+import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.objects.Rectangle;
+import edu.usu.graphics.objects.Triangle;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+
+import static org.lwjgl.glfw.GLFW.glfwSwapInterval;
+
+/**
+ * Drawing whole frames of solid color rectangles, triangles and lines with each way of uploading the vertices that
+ * are rebuilt every frame, so the strategies can be compared on the driver at hand. Unlike the other GL benchmarks the
+ * frames are really drawn and swapped, with vsync off, because what the strategies differ in is whether writing a
+ * buffer waits on the GPU still drawing from it.
+ * */
+@State(Scope.Thread)
+public class BufferStreamingBenchmark {
+    @Param({"POOLED", "ORPHAN", "RING"})
+    public BufferManager.StreamingStrategy strategy;
+
+    @Param({"100", "10000"})
+    public int shapes;
+
+    private Graphics2D graphics;
+    private Rectangle[] rectangles;
+    private Triangle[] triangles;
+    private Vector3f[] lineEnds;
+
+    @Setup(Level.Trial)
+    public void setup(WindowState window) {
+        graphics = window.graphics;
+        graphics.setStreamingStrategy(strategy);
+        glfwSwapInterval(0);
+
+        rectangles = new Rectangle[shapes];
+        triangles = new Triangle[shapes];
+        lineEnds = new Vector3f[shapes * 2];
+        for (int i = 0; i < shapes; i++) {
+            float x = (i % 100) / 50.0f - 1.0f;
+            float y = (i / 100 % 100) / 100.0f - 0.5f;
+            rectangles[i] = new Rectangle(x, y, 0.01f, 0.01f, 0.1f);
+            triangles[i] = new Triangle(new Vector3f(x, y, 0.2f), new Vector3f(x + 0.01f, y, 0.2f), new Vector3f(x, y + 0.01f, 0.2f));
+            lineEnds[i * 2] = new Vector3f(x, y, 0.3f);
+            lineEnds[i * 2 + 1] = new Vector3f(x + 0.01f, y + 0.01f, 0.3f);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.setStreamingStrategy(BufferManager.StreamingStrategy.POOLED);
+    }
+
+    @Benchmark
+    public void drawFrame() {
+        graphics.begin();
+        for (int i = 0; i < shapes; i++) {
+            graphics.draw(rectangles[i], Color.WHITE);
+            graphics.draw(triangles[i], Color.RED);
+            graphics.draw(lineEnds[i * 2], lineEnds[i * 2 + 1], Color.GREEN);
+        }
+        graphics.end();
+    }
+}
@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import physics.PhysicsWorld;
+import simulation.SceneGenerator;
+import simulation.Simulation;
+
+/**
+ * One fixed physics step of a generated scene, at body counts spanning the included simulations up to a large
+ * classroom demo. The scene is run for a second before measuring so the bodies are moving (gas) or in contact (pile)
+ * rather than still in their starting layout.
+ * */
+@State(Scope.Thread)
+public class PhysicsStepBenchmark {
+    private static final float FRAME_TIME = 1.0f / 60.0f;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int bodyCount;
+
+    @Param({"pile", "gas"})
+    public String layout;
+
+    private PhysicsWorld world;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Simulation simulation = SceneGenerator.generate(layout, bodyCount, 1);
+        simulation.createHeadless();
+        this.world = simulation.world;
+        for (int i = 0; i < 60; i++) {
+            world.stepForward(FRAME_TIME, 10);
+        }
+    }
+
+    @Benchmark
+    public int stepForward() {
+        return world.stepForward(FRAME_TIME, 10);
+    }
+}
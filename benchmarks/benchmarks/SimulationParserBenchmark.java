@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulation.SceneGenerator;
+import simulation.Simulation;
+import simulation.SimulationParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reading a simulation file, for each included simulation and for a generated scene with a thousand bodies.
+ * */
+@State(Scope.Thread)
+public class SimulationParserBenchmark {
+    @Param({"cannon_ball", "box_wedge", "billiards", "stress_pile_1000"})
+    public String simulation;
+
+    private Path generated;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (simulation.startsWith("stress_")) {
+            generated = Files.createTempFile(simulation, ".json");
+            Files.writeString(generated, SimulationParser.toJson(SceneGenerator.generate("pile", 1000, 1)));
+            path = generated.toString();
+        } else {
+            path = "./resources/simulations/" + simulation + ".json";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (generated != null) {
+            Files.delete(generated);
+        }
+    }
+
+    @Benchmark
+    public Simulation createSimulation() {
+        return SimulationParser.createSimulation(path);
+    }
+}
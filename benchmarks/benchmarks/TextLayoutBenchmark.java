@@ -0,0 +1,48 @@
+package benchmarks;
+
+import edu.usu.graphics.Color;
+import edu.usu.graphics.Font;
+import edu.usu.graphics.Graphics2D;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measuring and laying out text, from a one word label to a full simulation description. Drawing lays the text out
+ * into one glyph per character on a headless renderer, then ends the frame so the glyphs are sorted and packed as
+ * they would be on screen. The font's texture needs a GL context, so these run with a window open.
+ * */
+@State(Scope.Thread)
+public class TextLayoutBenchmark {
+    private static final String[] TEXTS = {
+            "Reset",
+            "Press SPACE to start the simulation",
+            "A box of mass 10 kg sits on a ramp at an incline of 30 degrees. If g=9.81 m/s2 and u=0.2, what is the "
+                    + "acceleration of the box? Round your answer to the nearest tenth."
+    };
+
+    @Param({"0", "1", "2"})
+    public int textIndex;
+
+    private Font font;
+    private String text;
+    private final Graphics2D headless = Graphics2D.createHeadless(1600, 900);
+    private final Color color = Color.WHITE;
+
+    @Setup(Level.Trial)
+    public void setup(WindowState window) {
+        font = new Font("resources/fonts/Roboto-Regular.ttf", 48, false);
+        text = TEXTS[textIndex];
+    }
+
+    @Benchmark
+    public float measureTextWidth() {
+        return font.measureTextWidth(text, 0.05f);
+    }
+
+    @Benchmark
+    public Graphics2D drawTextByHeight() {
+        headless.begin();
+        headless.drawTextByHeight(font, text, -0.9f, 0.0f, 0.05f, 0.5f, color);
+        headless.end();
+        return headless;
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import assets.ImageAssets;
+import edu.usu.graphics.Color;
+import edu.usu.graphics.Graphics2DUtils;
+import edu.usu.graphics.RenderQueue;
+import edu.usu.graphics.Texture;
+import edu.usu.graphics.TriangleTexCoords;
+import edu.usu.graphics.objects.Rectangle;
+import edu.usu.graphics.objects.Triangle;
+import org.joml.Matrix4f;
+import org.joml.Vector2f;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Packing a frame's worth of queued textured shapes and text glyphs into vertex buffers. Only the texture's size is
+ * read while packing, but a texture can't be made without a GL context, so these run with a window open. Every
+ * glyph is drawn from the same texture, which packs exactly like a font's.
+ * */
+@State(Scope.Thread)
+public class TexturedAssemblyBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int operations;
+
+    private final RenderQueue queue = new RenderQueue();
+    private final Graphics2DUtils.BuffersTexture buffers = new Graphics2DUtils.BuffersTexture();
+
+    @Setup(Level.Trial)
+    public void setup(WindowState window) {
+        Texture texture = window.graphics.getTextureCache().acquire(ImageAssets.cannonImg);
+        Matrix4f transform = new Matrix4f();
+        Color color = new Color(1, 1, 1);
+        Rectangle destination = new Rectangle(-0.1f, -0.1f, 0.2f, 0.2f);
+        Rectangle subImage = new Rectangle(0, 0, texture.getWidth() / 2.0f, texture.getHeight() / 2.0f);
+        Triangle triangle = new Triangle(new Vector3f(0, 0, 0), new Vector3f(0.1f, 0, 0), new Vector3f(0, 0.1f, 0));
+        TriangleTexCoords texCoords = new TriangleTexCoords(new Vector2f(0, 0), new Vector2f(1, 0), new Vector2f(0, 1));
+        Vector2f p1 = new Vector2f(0.1f, 0);
+        Vector2f p2 = new Vector2f(0.2f, 0);
+        Vector2f p3 = new Vector2f(0.2f, 1);
+        Vector2f p4 = new Vector2f(0.1f, 1);
+
+        for (int i = 0; i < operations; i++) {
+            // every other rectangle draws part of the image, to cover both texture coordinate paths
+            queue.add(texture, destination, i % 2 == 0 ? subImage : null, transform, color);
+            queue.add(texture, triangle, texCoords, transform, color);
+            queue.add(texture, destination, p1, p2, p3, p4, transform, color);
+        }
+    }
+
+    @Benchmark
+    public Graphics2DUtils.BuffersTexture prepareRectsTextureBuffers() {
+        return Graphics2DUtils.prepareRectsTextureBuffers(queue.getTexturedRectangleOperations(), buffers);
+    }
+
+    @Benchmark
+    public Graphics2DUtils.BuffersTexture prepareTrianglesTextureBuffers() {
+        return Graphics2DUtils.prepareTrianglesTextureBuffers(queue.getTexturedTriangleOperations(), buffers);
+    }
+
+    @Benchmark
+    public Graphics2DUtils.BuffersTexture prepareTextGlyphBuffers() {
+        return Graphics2DUtils.prepareTextGlyphBuffers(queue.getTextGlyphOperations(), buffers);
+    }
+}
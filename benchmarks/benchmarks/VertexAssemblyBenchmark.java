@@ -0,0 +1,97 @@
+package benchmarks;
+
+import edu.usu.graphics.Color;
+import edu.usu.graphics.Graphics2DUtils;
+import edu.usu.graphics.Mesh;
+import edu.usu.graphics.MeshCache;
+import edu.usu.graphics.RenderQueue;
+import edu.usu.graphics.objects.Rectangle;
+import edu.usu.graphics.objects.Triangle;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+
+/**
+ * Packing a frame's worth of queued solid color shapes into vertex buffers, one benchmark per prepare method, and
+ * sorting the queue by depth. None of these need a GL context. The textured and text versions need a texture to
+ * draw from, so they are in TexturedAssemblyBenchmark.
+ * */
+@State(Scope.Thread)
+public class VertexAssemblyBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int operations;
+
+    private final RenderQueue queue = new RenderQueue();
+    private final Graphics2DUtils.BuffersColor buffers = new Graphics2DUtils.BuffersColor();
+    private final Matrix4f transform = new Matrix4f();
+    private final Color color = new Color(0.2f, 0.4f, 0.8f);
+    private final Rectangle rectangle = new Rectangle(-0.1f, -0.1f, 0.2f, 0.2f);
+    private final Triangle triangle = new Triangle(
+            new Vector3f(0, 0, 0), new Vector3f(0.1f, 0, 0), new Vector3f(0, 0.1f, 0));
+    private final Vector3f lineStart = new Vector3f(-0.5f, 0, 0);
+    private final Vector3f lineEnd = new Vector3f(0.5f, 0, 0);
+    private Mesh circle;
+    // depths in random order, so sorting has real work to do
+    private float[] depths;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        circle = new MeshCache().circle(0.25f, 32);
+        depths = new float[operations];
+        Random random = new Random(1);
+        for (int i = 0; i < operations; i++) {
+            depths[i] = random.nextFloat();
+        }
+        fillQueue();
+        // size the scratch buffers for the largest list, as they are after the first frame
+        Graphics2DUtils.prepareMeshesSolidColorBuffers(queue.getSolidMeshOperations(), buffers);
+    }
+
+    private void fillQueue() {
+        queue.clear();
+        for (int i = 0; i < operations; i++) {
+            rectangle.z = depths[i];
+            queue.add(rectangle, color, transform);
+            queue.add(triangle, color, transform);
+            queue.add(lineStart, lineEnd, color);
+            queue.add(circle, depths[i], color, transform);
+        }
+    }
+
+    @Benchmark
+    public Graphics2DUtils.BuffersColor prepareRectsSolidColorBuffers() {
+        return Graphics2DUtils.prepareRectsSolidColorBuffers(queue.getSolidRectangleOperations(), buffers);
+    }
+
+    @Benchmark
+    public Graphics2DUtils.BuffersColor prepareTrisSolidColorBuffers() {
+        return Graphics2DUtils.prepareTrisSolidColorBuffers(queue.getSolidTriangleOperations(), buffers);
+    }
+
+    @Benchmark
+    public Graphics2DUtils.BuffersColor prepareLinesColorBuffers() {
+        return Graphics2DUtils.prepareLinesColorBuffers(queue.getLineOperations(), buffers);
+    }
+
+    @Benchmark
+    public Graphics2DUtils.BuffersColor prepareMeshesSolidColorBuffers() {
+        return Graphics2DUtils.prepareMeshesSolidColorBuffers(queue.getSolidMeshOperations(), buffers);
+    }
+
+    /** refills the queue in random depth order, to subtract from sort */
+    @Benchmark
+    public RenderQueue fill() {
+        fillQueue();
+        return queue;
+    }
+
+    /** refills the queue in random depth order and sorts it, since sorting an already sorted queue is nearly free */
+    @Benchmark
+    public RenderQueue fillAndSort() {
+        fillQueue();
+        queue.sort();
+        return queue;
+    }
+}
@@ -0,0 +1,26 @@
+package benchmarks;
+
+import edu.usu.graphics.Color;
+import edu.usu.graphics.Graphics2D;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A window with a GL context, for the benchmarks that need one to create fonts, textures or GPU buffers. The context
+ * is current on the thread that runs the benchmark, so these benchmarks must run single threaded. Without a display
+ * the window can't be created and the benchmarks that use it fail in setup, leaving the others to run.
+ * */
+@State(Scope.Thread)
+public class WindowState {
+    public Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void open() {
+        graphics = new Graphics2D(640, 360, "Benchmark");
+        graphics.initialize(Color.BLACK);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        graphics.close();
+    }
+}
@@ -0,0 +1,21 @@
+#version 330
+
+layout (location=0) in vec2 position;
+// per instance: x, y, z and rotation, then the scale and the color
+layout (location=1) in vec4 placement;
+layout (location=2) in vec2 scale;
+layout (location=3) in vec4 color;
+
+uniform mat4 mProjection;
+
+out vec4 outColor;
+
+void main()
+{
+    // rotated about the origin, scaled, then moved, the same as drawing the mesh on its own
+    float c = cos(placement.w);
+    float s = sin(placement.w);
+    vec2 rotated = vec2(position.x * c - position.y * s, position.x * s + position.y * c);
+    gl_Position = mProjection * vec4(rotated * scale + placement.xy, placement.z, 1.0);
+    outColor = color;
+}
\ No newline at end of file
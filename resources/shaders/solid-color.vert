@@ -1,12 +1,13 @@
 #version 330
 
 layout (location=0) in vec3 position;
-layout (location=1) in vec3 color;
+// the color is packed as four normalized bytes, so alpha comes with it
+layout (location=1) in vec4 color;
 
 uniform mat4 mProjection;
 uniform mat4 mModel;
 
-out vec3 outColor;
+out vec4 outColor;
 
 void main()
 {
@@ -1,14 +1,16 @@
 #version 330
 
 layout (location=0) in vec3 position;
+// the texture coordinates are packed as normalized unsigned shorts
 layout (location=1) in vec2 texCoord;
+// the tint is packed as four normalized bytes, so alpha comes with it
+layout (location=2) in vec4 color;
 
 uniform mat4 mProjection;
 uniform mat4 mModel;
-uniform vec3 color;
 
 out vec2 outTexCoord;
-out vec3 outColor;
+out vec4 outColor;
 
 void main()
 {
@@ -1,11 +1,14 @@
+import assets.ImageAssets;
 import assets.SoundAssets;
 import edu.usu.graphics.*;
+import simulation.AnswerKey;
 import simulation.Simulation;
 import simulation.SimulationParser;
 import views.*;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import static org.lwjgl.glfw.GLFW.*;
 
@@ -35,9 +38,17 @@ public class ContextManager {
     public void initialize(String LLM_API_KEY) {
         ArrayList<Simulation> simulations = SimulationParser.createFromIndex("./resources/simulations/index.json");
         assert simulations != null && !simulations.isEmpty();
+        AnswerKey answerKey = AnswerKey.load(AnswerKey.DEFAULT_PATH);
+
+        // pack every image the views and simulations draw into atlas pages, so drawing them rarely switches textures
+        ArrayList<String> imagePaths = new ArrayList<>(List.of(ImageAssets.panelBackgroundImg, ImageAssets.cannonImg));
+        for (Simulation simulation : simulations) {
+            imagePaths.addAll(simulation.getTexturePaths());
+        }
+        graphics.getTextureCache().addAtlas(TextureAtlas.build(imagePaths));
 
         states = new HashMap<>();
-        this.states.put(StateEnum.Simulation, new SimulationView(graphics, sounds, simulations.getFirst(), LLM_API_KEY));
+        this.states.put(StateEnum.Simulation, new SimulationView(graphics, sounds, simulations.getFirst(), answerKey, LLM_API_KEY));
         this.states.put(StateEnum.SimulationSelect, new SimulationSelectView(
                 graphics, sounds, simulations, (SimulationView) this.states.get(StateEnum.Simulation)));
         this.states.put(StateEnum.MainMenu, new MainMenuView(graphics, sounds));
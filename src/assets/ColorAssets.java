@@ -18,6 +18,12 @@ public class ColorAssets {
     public static final Color simSelectedTextColor1 = new Color(128/255f, 128/255f, 128/255f);
     public static final Color simSelectedTextColor2 = Color.BLACK;
 
+    public static final Color timelineColor = new Color(0.25f, 0.25f, 0.25f);
+    public static final Color timelineRecordedColor = new Color(200/255f, 200/255f, 200/255f);
+    public static final Color timelineHandleColor = Color.WHITE;
+
+    public static final Color trailColor = new Color(0.5f, 0.5f, 0.5f);
+
     public static final Color menuBGColor = new Color(45/255f, 45/255f, 45/255f);
     public static final Color skyBlue = new Color(135/255f, 206/255f, 235/255f);
 }
@@ -1,11 +1,11 @@
 package assets;
 
-import edu.usu.graphics.Texture;
 import org.joml.Vector2f;
 
 public class ImageAssets {
-    // images
-    public static final Texture panelBackgroundImg = new Texture("./resources/images/simplebg.png");
+    // image paths, the textures themselves are shared through the graphics' texture cache
+    public static final String panelBackgroundImg = "./resources/images/simplebg.png";
+    public static final String cannonImg = "./resources/images/cannon.png";
 
     // converts pixel coordinates to world coordinates. The pixel coordinates are assumed to be measured from
     // the right and bottom of an image with a resolution that matches the size of the window.
@@ -23,7 +23,6 @@ package edu.usu.graphics;
 
 import org.lwjgl.system.MemoryUtil;
 
-import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.*;
 
@@ -33,34 +32,59 @@ import static org.lwjgl.opengl.GL32.*;
  * Manages OpenGL buffer objects (VAOs and VBOs) to allow for reuse
  * rather than creating and destroying them each frame.
  * Implements advanced buffer pooling to reduce memory allocations.
+ * How the vertices rewritten every frame reach the GPU is chosen by the streaming strategy, which can be changed
+ * between frames so the strategies can be compared on the same driver.
  */
 public class BufferManager implements AutoCloseable {
-    
+
+    /**
+     * How the solid color, texture and font buffers are written every frame. Static buffers are written once and
+     * aren't affected.
+     */
+    public enum StreamingStrategy {
+        /** each draw batch takes a buffer from the pool and overwrites it, which may wait on the GPU still drawing from it */
+        POOLED,
+        /** the same as POOLED, but each pooled buffer is given fresh storage before it is overwritten */
+        ORPHAN,
+        /**
+         * one large buffer per vertex format that each batch is written to just past the last one, without waiting on
+         * the GPU. Fences keep a part of it from being overwritten before the GPU is done drawing from it, and when a
+         * fence hasn't been passed yet the buffer is orphaned instead of waiting on it.
+         */
+        RING
+    }
+
+    // The strategy used when none is set, read from -Dgraphics.streaming=pooled|orphan|ring
+    public static final String STREAMING_PROPERTY = "graphics.streaming";
+
     // Buffer types
     public static final int BUFFER_TYPE_SOLID_COLOR = 0;
     public static final int BUFFER_TYPE_TEXTURE = 1;
     public static final int BUFFER_TYPE_FONT = 2;
+    // Solid color geometry uploaded once and drawn every frame, never pooled or compacted
+    public static final int BUFFER_TYPE_STATIC_SOLID_COLOR = 3;
     
     // Buffer configurations
     private static class BufferConfig {
         int vaoId;
-        int vboPositions;
-        int vboColors; // For solid color buffers
-        int vboTexCoords; // For texture buffers
+        int vboVertices; // Interleaved vertices, in the layout described by Graphics2DUtils
         int vboIndices;
+        // the ints a vertex takes, which depends on whether the buffer holds solid color or textured vertices
+        final int vertexInts;
         int maxVertices;
         int maxIndices;
         boolean inUse;
         long lastUsedTime;
         int useCount;
+        // where the last upload starts, which is always the beginning except in a stream ring
+        int baseVertex;
+        int firstIndex;
         
-        public BufferConfig(int vaoId, int vboPositions, int vboColors, int vboTexCoords, int vboIndices, 
-                           int maxVertices, int maxIndices) {
+        public BufferConfig(int vaoId, int vboVertices, int vboIndices, int vertexInts, int maxVertices, int maxIndices) {
             this.vaoId = vaoId;
-            this.vboPositions = vboPositions;
-            this.vboColors = vboColors;
-            this.vboTexCoords = vboTexCoords;
+            this.vboVertices = vboVertices;
             this.vboIndices = vboIndices;
+            this.vertexInts = vertexInts;
             this.maxVertices = maxVertices;
             this.maxIndices = maxIndices;
             this.inUse = false;
@@ -69,14 +93,22 @@ public class BufferManager implements AutoCloseable {
         }
     }
     
-    // Maps to store buffer configurations by type
-    private final Map<Integer, Map<Integer, BufferConfig>> buffersByType = new HashMap<>();
+    // Buffer configurations by type, indexed by buffer ID. Removed buffers leave a null slot that is reused by the
+    // next buffer created, so IDs stay valid and lookups are a plain array index.
+    private final List<List<BufferConfig>> buffersByType = new ArrayList<>();
     
     // Buffer size categories for better pooling
     private static final int[] BUFFER_SIZE_TIERS = {
         64, 128, 256, 512, 1024, 2048, 4096, 8192, 16384
     };
     
+    // The id handed out for the stream ring of a buffer type while the RING strategy is used
+    private static final int STREAM_BUFFER_ID = -2;
+    // Each stream ring is fenced in this many sections, so the GPU only has to be done with the oldest one
+    private static final int STREAM_SECTIONS = 4;
+    private static final int STREAM_INITIAL_VERTICES = 1 << 15;
+    private static final int STREAM_INITIAL_INDICES = 1 << 16;
+
     // Buffer management settings
     private static final long BUFFER_EXPIRATION_TIME = 10000; // 10 seconds
     private static final int MAX_UNUSED_BUFFERS_PER_SIZE = 3;
@@ -86,21 +118,45 @@ public class BufferManager implements AutoCloseable {
     private int totalBuffersReused = 0;
     private int totalBuffersResized = 0;
     private int totalBuffersCompacted = 0;
+
+    private StreamingStrategy streamingStrategy;
+    // One stream ring per vertex format, solid color and textured (shared by textures and fonts), made when first used
+    private StreamRing streamSolidColor;
+    private StreamRing streamTextured;
     
     // Reusable NIO buffers to reduce allocations
-    private FloatBuffer reuseFloatBuffer;
     private IntBuffer reuseIntBuffer;
-    private final int MAX_REUSE_BUFFER_SIZE = 16384;
+    private final int MAX_REUSE_BUFFER_SIZE = 65536;
     
     public BufferManager() {
-        // Initialize buffer maps for each type
-        buffersByType.put(BUFFER_TYPE_SOLID_COLOR, new HashMap<>());
-        buffersByType.put(BUFFER_TYPE_TEXTURE, new HashMap<>());
-        buffersByType.put(BUFFER_TYPE_FONT, new HashMap<>());
+        // Initialize buffer lists for each type
+        buffersByType.add(new ArrayList<>());
+        buffersByType.add(new ArrayList<>());
+        buffersByType.add(new ArrayList<>());
+        buffersByType.add(new ArrayList<>());
         
         // Initialize reusable buffers
-        reuseFloatBuffer = MemoryUtil.memAllocFloat(MAX_REUSE_BUFFER_SIZE);
         reuseIntBuffer = MemoryUtil.memAllocInt(MAX_REUSE_BUFFER_SIZE);
+
+        String strategy = System.getProperty(STREAMING_PROPERTY, StreamingStrategy.POOLED.name());
+        try {
+            streamingStrategy = StreamingStrategy.valueOf(strategy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + STREAMING_PROPERTY + ": " + strategy
+                    + ", expected one of " + Arrays.toString(StreamingStrategy.values()));
+        }
+    }
+
+    /**
+     * Changes how the per frame buffers are written from the next one taken on. Change it between frames, not between
+     * getting a buffer and drawing from it.
+     */
+    public void setStreamingStrategy(StreamingStrategy streamingStrategy) {
+        this.streamingStrategy = streamingStrategy;
+    }
+
+    public StreamingStrategy getStreamingStrategy() {
+        return streamingStrategy;
     }
     
     /**
@@ -134,127 +190,185 @@ public class BufferManager implements AutoCloseable {
     }
     
     /**
-     * Updates a solid color buffer with new data
-     * @param bufferId The buffer ID
-     * @param positions Vertex positions
-     * @param colors Vertex colors
-     * @param indices Vertex indices
+     * Creates a solid color buffer sized exactly for the given data and uploads it once. The buffer stays in use
+     * until deleteBuffer is called, so it is never handed out by the pool or removed by compaction.
+     * @param buffers The vertex data
+     * @return The buffer configuration ID
      */
-    public void updateSolidColorBuffer(int bufferId, float[] positions, float[] colors, int[] indices) {
-        BufferConfig config = buffersByType.get(BUFFER_TYPE_SOLID_COLOR).get(bufferId);
-        if (config == null) {
-            throw new IllegalArgumentException("Invalid solid color buffer ID: " + bufferId);
+    public int createStaticSolidColorBuffer(Graphics2DUtils.BuffersColor buffers) {
+        List<BufferConfig> staticBuffers = buffersByType.get(BUFFER_TYPE_STATIC_SOLID_COLOR);
+        BufferConfig config = createBuffer(BUFFER_TYPE_STATIC_SOLID_COLOR, buffers.vertexCount, buffers.indexCount);
+        config.inUse = true;
+        config.useCount++;
+        totalBuffersCreated++;
+
+        int bufferId = staticBuffers.indexOf(null);
+        if (bufferId == -1) {
+            bufferId = staticBuffers.size();
+            staticBuffers.add(config);
+        } else {
+            staticBuffers.set(bufferId, config);
         }
-        
+
         glBindVertexArray(config.vaoId);
-        
-        // Update positions
-        updateFloatBuffer(config.vboPositions, positions);
-        
-        // Update colors
-        updateFloatBuffer(config.vboColors, colors);
-        
-        // Update indices
-        updateIntBuffer(config.vboIndices, indices);
-        
+        updateIntBuffer(GL_ARRAY_BUFFER, config.vboVertices, buffers.vertices, buffers.vertexCount * config.vertexInts);
+        updateIntBuffer(GL_ELEMENT_ARRAY_BUFFER, config.vboIndices, buffers.indices, buffers.indexCount);
+
         glBindBuffer(GL_ARRAY_BUFFER, 0);
         glBindVertexArray(0);
+        return bufferId;
+    }
+
+    /**
+     * Deletes a buffer and its OpenGL objects right away, for buffers that aren't pooled
+     * @param bufferType The buffer type
+     * @param bufferId The buffer ID
+     */
+    public void deleteBuffer(int bufferType, int bufferId) {
+        BufferConfig config = getConfig(bufferType, bufferId);
+        if (config == null) {
+            throw new IllegalArgumentException("Invalid buffer ID: " + bufferId + " for buffer type: " + bufferType);
+        }
+        glDeleteBuffers(config.vboVertices);
+        glDeleteBuffers(config.vboIndices);
+        glDeleteVertexArrays(config.vaoId);
+
+        buffersByType.get(bufferType).set(bufferId, null);
+    }
+
+    /**
+     * Updates a solid color buffer with the valid part of reusable buffers
+     * @param bufferId The buffer ID
+     * @param buffers The prepared vertex data
+     */
+    public void updateSolidColorBuffer(int bufferId, Graphics2DUtils.BuffersColor buffers) {
+        BufferConfig config = getConfig(BUFFER_TYPE_SOLID_COLOR, bufferId);
+        if (config == null) {
+            throw new IllegalArgumentException("Invalid solid color buffer ID: " + bufferId);
+        }
+        upload(config, buffers.vertices, buffers.vertexCount, buffers.indices, buffers.indexCount);
     }
     
     /**
-     * Updates a texture buffer with new data
+     * Updates a texture buffer with the valid part of reusable buffers
      * @param bufferId The buffer ID
-     * @param positions Vertex positions
-     * @param texCoords Texture coordinates
-     * @param indices Vertex indices
+     * @param buffers The prepared vertex data
      */
-    public void updateTextureBuffer(int bufferId, float[] positions, float[] texCoords, int[] indices) {
-        BufferConfig config = buffersByType.get(BUFFER_TYPE_TEXTURE).get(bufferId);
+    public void updateTextureBuffer(int bufferId, Graphics2DUtils.BuffersTexture buffers) {
+        BufferConfig config = getConfig(BUFFER_TYPE_TEXTURE, bufferId);
         if (config == null) {
             throw new IllegalArgumentException("Invalid texture buffer ID: " + bufferId);
         }
-        
-        glBindVertexArray(config.vaoId);
-        
-        // Update positions
-        updateFloatBuffer(config.vboPositions, positions);
-        
-        // Update texture coordinates
-        updateFloatBuffer(config.vboTexCoords, texCoords);
-        
-        // Update indices
-        updateIntBuffer(config.vboIndices, indices);
-        
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
+        upload(config, buffers.vertices, buffers.vertexCount, buffers.indices, buffers.indexCount);
     }
     
     /**
-     * Updates a font buffer with new data
+     * Updates a font buffer with the valid part of reusable buffers
      * @param bufferId The buffer ID
-     * @param positions Vertex positions
-     * @param texCoords Texture coordinates
-     * @param indices Vertex indices
+     * @param buffers The prepared vertex data
      */
-    public void updateFontBuffer(int bufferId, float[] positions, float[] texCoords, int[] indices) {
-        BufferConfig config = buffersByType.get(BUFFER_TYPE_FONT).get(bufferId);
+    public void updateFontBuffer(int bufferId, Graphics2DUtils.BuffersTexture buffers) {
+        BufferConfig config = getConfig(BUFFER_TYPE_FONT, bufferId);
         if (config == null) {
             throw new IllegalArgumentException("Invalid font buffer ID: " + bufferId);
         }
-        
+        upload(config, buffers.vertices, buffers.vertexCount, buffers.indices, buffers.indexCount);
+    }
+    
+    /**
+     * Writes a batch's vertices and indices to a buffer, at the start of a pooled buffer or just past the last batch
+     * in a stream ring
+     */
+    private void upload(BufferConfig config, int[] vertices, int vertexCount, int[] indices, int indexCount) {
         glBindVertexArray(config.vaoId);
-        
-        // Update positions
-        updateFloatBuffer(config.vboPositions, positions);
-        
-        // Update texture coordinates
-        updateFloatBuffer(config.vboTexCoords, texCoords);
-        
-        // Update indices
-        updateIntBuffer(config.vboIndices, indices);
-        
+        if (config instanceof StreamRing ring) {
+            ring.baseVertex = ring.vertices.reserve(vertexCount);
+            ring.firstIndex = ring.indices.reserve(indexCount);
+            writeIntBuffer(GL_ARRAY_BUFFER, config.vboVertices, (long) ring.baseVertex * config.vertexInts * Integer.BYTES,
+                    vertices, vertexCount * config.vertexInts);
+            writeIntBuffer(GL_ELEMENT_ARRAY_BUFFER, config.vboIndices, (long) ring.firstIndex * Integer.BYTES, indices, indexCount);
+        } else {
+            if (streamingStrategy == StreamingStrategy.ORPHAN) {
+                // new storage for the buffer, so writing it never waits on the GPU drawing from the old one
+                glBindBuffer(GL_ARRAY_BUFFER, config.vboVertices);
+                glBufferData(GL_ARRAY_BUFFER, (long) config.maxVertices * config.vertexInts * Integer.BYTES, GL_DYNAMIC_DRAW);
+                glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, config.vboIndices);
+                glBufferData(GL_ELEMENT_ARRAY_BUFFER, (long) config.maxIndices * Integer.BYTES, GL_DYNAMIC_DRAW);
+            }
+            updateIntBuffer(GL_ARRAY_BUFFER, config.vboVertices, vertices, vertexCount * config.vertexInts);
+            updateIntBuffer(GL_ELEMENT_ARRAY_BUFFER, config.vboIndices, indices, indexCount);
+        }
+
         glBindBuffer(GL_ARRAY_BUFFER, 0);
         glBindVertexArray(0);
     }
-    
+
     /**
-     * Helper method to update a float buffer with minimal allocations
+     * Writes the first count values of data into a stream ring's buffer bound to target at offset bytes, through an
+     * unsynchronized mapping so the driver doesn't wait on draws still reading other parts of the buffer
      */
-    private void updateFloatBuffer(int vboId, float[] data) {
-        glBindBuffer(GL_ARRAY_BUFFER, vboId);
-        
-        if (data.length <= MAX_REUSE_BUFFER_SIZE) {
-            // Use the reusable buffer if possible
-            reuseFloatBuffer.clear();
-            reuseFloatBuffer.put(data);
-            reuseFloatBuffer.flip();
-            glBufferSubData(GL_ARRAY_BUFFER, 0, reuseFloatBuffer);
-        } else {
-            // Fall back to temporary allocation for large buffers
-            FloatBuffer buffer = MemoryUtil.memAllocFloat(data.length);
-            buffer.put(data).flip();
-            glBufferSubData(GL_ARRAY_BUFFER, 0, buffer);
+    private void writeIntBuffer(int target, int vboId, long offset, int[] data, int count) {
+        glBindBuffer(target, vboId);
+        IntBuffer buffer = count <= MAX_REUSE_BUFFER_SIZE ? reuseIntBuffer.clear() : MemoryUtil.memAllocInt(count);
+        buffer.put(data, 0, count).flip();
+        writeMapped(target, offset, MemoryUtil.memAddress(buffer), (long) count * Integer.BYTES);
+        if (buffer != reuseIntBuffer) {
             MemoryUtil.memFree(buffer);
         }
     }
-    
+
     /**
-     * Helper method to update an int buffer with minimal allocations
+     * Copies bytes from native memory into the buffer bound to target. The mapping is used as a raw address, so no
+     * ByteBuffer is made for it.
      */
-    private void updateIntBuffer(int vboId, int[] data) {
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboId);
+    private void writeMapped(int target, long offset, long source, long bytes) {
+        if (bytes == 0) {
+            return;
+        }
+        long mapped = nglMapBufferRange(target, offset, bytes,
+                GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_RANGE_BIT | GL_MAP_UNSYNCHRONIZED_BIT);
+        if (mapped == MemoryUtil.NULL) {
+            // a driver that won't map the range can still copy into it
+            nglBufferSubData(target, offset, bytes, source);
+            return;
+        }
+        MemoryUtil.memCopy(source, mapped, bytes);
+        glUnmapBuffer(target);
+    }
+
+    /**
+     * Draws count indices of the bound buffer starting at firstIndex, relative to where its last upload starts
+     * @param bufferType The buffer type
+     * @param bufferId The buffer ID
+     * @param mode The primitive type, such as GL_TRIANGLES
+     * @param count The number of indices to draw
+     * @param firstIndex The first index to draw
+     */
+    public void drawElements(int bufferType, int bufferId, int mode, int count, int firstIndex) {
+        BufferConfig config = getConfig(bufferType, bufferId);
+        if (config == null) {
+            throw new IllegalArgumentException("Invalid buffer ID: " + bufferId + " for buffer type: " + bufferType);
+        }
+        glDrawElementsBaseVertex(mode, count, GL_UNSIGNED_INT, (long) (config.firstIndex + firstIndex) * Integer.BYTES, config.baseVertex);
+    }
+
+    /**
+     * Helper method to update the buffer bound to target with the first count values of data, with minimal allocations
+     */
+    private void updateIntBuffer(int target, int vboId, int[] data, int count) {
+        glBindBuffer(target, vboId);
         
-        if (data.length <= MAX_REUSE_BUFFER_SIZE) {
+        if (count <= MAX_REUSE_BUFFER_SIZE) {
             // Use the reusable buffer if possible
             reuseIntBuffer.clear();
-            reuseIntBuffer.put(data);
+            reuseIntBuffer.put(data, 0, count);
             reuseIntBuffer.flip();
-            glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0, reuseIntBuffer);
+            glBufferSubData(target, 0, reuseIntBuffer);
         } else {
             // Fall back to temporary allocation for large buffers
-            IntBuffer buffer = MemoryUtil.memAllocInt(data.length);
-            buffer.put(data).flip();
-            glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0, buffer);
+            IntBuffer buffer = MemoryUtil.memAllocInt(count);
+            buffer.put(data, 0, count).flip();
+            glBufferSubData(target, 0, buffer);
             MemoryUtil.memFree(buffer);
         }
     }
@@ -265,7 +379,7 @@ public class BufferManager implements AutoCloseable {
      * @param bufferId The buffer ID
      */
     public void bindBuffer(int bufferType, int bufferId) {
-        BufferConfig config = buffersByType.get(bufferType).get(bufferId);
+        BufferConfig config = getConfig(bufferType, bufferId);
         if (config == null) {
             throw new IllegalArgumentException("Invalid buffer ID: " + bufferId + " for buffer type: " + bufferType);
         }
@@ -285,7 +399,7 @@ public class BufferManager implements AutoCloseable {
      * @param bufferId The buffer ID
      */
     public void releaseBuffer(int bufferType, int bufferId) {
-        BufferConfig config = buffersByType.get(bufferType).get(bufferId);
+        BufferConfig config = getConfig(bufferType, bufferId);
         if (config == null) {
             throw new IllegalArgumentException("Invalid buffer ID: " + bufferId + " for buffer type: " + bufferType);
         }
@@ -294,27 +408,50 @@ public class BufferManager implements AutoCloseable {
         config.useCount++;
     }
     
+    /**
+     * Looks up a buffer configuration, returning null for unknown or removed IDs
+     */
+    private BufferConfig getConfig(int bufferType, int bufferId) {
+        if (bufferId == STREAM_BUFFER_ID) {
+            return bufferType == BUFFER_TYPE_SOLID_COLOR ? streamSolidColor : streamTextured;
+        }
+        List<BufferConfig> buffers = buffersByType.get(bufferType);
+        if (bufferId < 0 || bufferId >= buffers.size()) {
+            return null;
+        }
+        return buffers.get(bufferId);
+    }
+
     /**
      * Gets or creates a buffer of the specified type and size
      */
     private int getOrCreateBuffer(int bufferType, int requiredVertices, int requiredIndices) {
-        Map<Integer, BufferConfig> buffers = buffersByType.get(bufferType);
+        if (streamingStrategy == StreamingStrategy.RING) {
+            // every batch of a vertex format shares one ring, which grows when a batch needs it to
+            if (bufferType == BUFFER_TYPE_SOLID_COLOR && streamSolidColor == null) {
+                streamSolidColor = createStreamRing(bufferType);
+            } else if (bufferType != BUFFER_TYPE_SOLID_COLOR && streamTextured == null) {
+                streamTextured = createStreamRing(bufferType);
+            }
+            return STREAM_BUFFER_ID;
+        }
+        List<BufferConfig> buffers = buffersByType.get(bufferType);
         
         // Find the appropriate size tier for this request
         int sizeVertices = getNextSizeTier(requiredVertices);
         int sizeIndices = getNextSizeTier(requiredIndices);
         
         // First try to find an exact match (optimal case)
-        for (Map.Entry<Integer, BufferConfig> entry : buffers.entrySet()) {
-            BufferConfig config = entry.getValue();
-            if (!config.inUse && 
+        for (int bufferId = 0; bufferId < buffers.size(); bufferId++) {
+            BufferConfig config = buffers.get(bufferId);
+            if (config != null && !config.inUse &&
                 config.maxVertices == sizeVertices && 
                 config.maxIndices == sizeIndices) {
                 config.inUse = true;
                 config.lastUsedTime = System.currentTimeMillis();
                 config.useCount++;
                 totalBuffersReused++;
-                return entry.getKey();
+                return bufferId;
             }
         }
         
@@ -323,9 +460,9 @@ public class BufferManager implements AutoCloseable {
         int bestFitId = -1;
         int bestWastedSpace = Integer.MAX_VALUE;
         
-        for (Map.Entry<Integer, BufferConfig> entry : buffers.entrySet()) {
-            BufferConfig config = entry.getValue();
-            if (!config.inUse && 
+        for (int bufferId = 0; bufferId < buffers.size(); bufferId++) {
+            BufferConfig config = buffers.get(bufferId);
+            if (config != null && !config.inUse &&
                 config.maxVertices >= sizeVertices && 
                 config.maxIndices >= sizeIndices) {
                 
@@ -337,7 +474,7 @@ public class BufferManager implements AutoCloseable {
                 if (wastedSpace < bestWastedSpace) {
                     bestWastedSpace = wastedSpace;
                     bestFit = config;
-                    bestFitId = entry.getKey();
+                    bestFitId = bufferId;
                 }
             }
         }
@@ -350,10 +487,15 @@ public class BufferManager implements AutoCloseable {
             return bestFitId;
         }
         
-        // If no suitable buffer found, create a new one
-        int newBufferId = buffers.size();
+        // If no suitable buffer found, create a new one in the first free slot
+        int newBufferId = buffers.indexOf(null);
         BufferConfig newConfig = createBuffer(bufferType, sizeVertices, sizeIndices);
-        buffers.put(newBufferId, newConfig);
+        if (newBufferId == -1) {
+            newBufferId = buffers.size();
+            buffers.add(newConfig);
+        } else {
+            buffers.set(newBufferId, newConfig);
+        }
         newConfig.inUse = true;
         newConfig.lastUsedTime = System.currentTimeMillis();
         newConfig.useCount++;
@@ -388,53 +530,182 @@ public class BufferManager implements AutoCloseable {
      * Creates a new buffer configuration
      */
     private BufferConfig createBuffer(int bufferType, int maxVertices, int maxIndices) {
+        // static buffers are written once, everything else is rewritten every frame
+        int usage = bufferType == BUFFER_TYPE_STATIC_SOLID_COLOR ? GL_STATIC_DRAW : GL_DYNAMIC_DRAW;
+        boolean solidColor = bufferType == BUFFER_TYPE_SOLID_COLOR || bufferType == BUFFER_TYPE_STATIC_SOLID_COLOR;
+        int vertexInts = solidColor ? Graphics2DUtils.VERTEX_INTS : Graphics2DUtils.TEXTURED_VERTEX_INTS;
+        int vertexBytes = vertexInts * Integer.BYTES;
         int vaoId = glGenVertexArrays();
         glBindVertexArray(vaoId);
         
-        // Create position VBO
-        int vboPositions = glGenBuffers();
-        glBindBuffer(GL_ARRAY_BUFFER, vboPositions);
-        glBufferData(GL_ARRAY_BUFFER, (long) maxVertices * 3 * Float.BYTES, GL_DYNAMIC_DRAW);
+        // Create the interleaved vertex VBO: the position, then the packed color, or the packed texture coordinates
+        // and tint
+        int vboVertices = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, vboVertices);
+        glBufferData(GL_ARRAY_BUFFER, (long) maxVertices * vertexBytes, usage);
         glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-        
-        // Create color or texture coordinate VBO based on buffer type
-        int vboColors = 0;
-        int vboTexCoords = 0;
-        
-        if (bufferType == BUFFER_TYPE_SOLID_COLOR) {
-            vboColors = glGenBuffers();
-            glBindBuffer(GL_ARRAY_BUFFER, vboColors);
-            glBufferData(GL_ARRAY_BUFFER, (long) maxVertices * 3 * Float.BYTES, GL_DYNAMIC_DRAW);
-            glEnableVertexAttribArray(1);
-            glVertexAttribPointer(1, 3, GL_FLOAT, false, 0, 0);
+        glVertexAttribPointer(0, 3, GL_FLOAT, false, vertexBytes, 0);
+        glEnableVertexAttribArray(1);
+        if (solidColor) {
+            glVertexAttribPointer(1, 4, GL_UNSIGNED_BYTE, true, vertexBytes, 3 * Float.BYTES);
         } else {
-            vboTexCoords = glGenBuffers();
-            glBindBuffer(GL_ARRAY_BUFFER, vboTexCoords);
-            glBufferData(GL_ARRAY_BUFFER, (long) maxVertices * 2 * Float.BYTES, GL_DYNAMIC_DRAW);
-            glEnableVertexAttribArray(1);
-            glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
+            glVertexAttribPointer(1, 2, GL_UNSIGNED_SHORT, true, vertexBytes, 3 * Float.BYTES);
+            glEnableVertexAttribArray(2);
+            glVertexAttribPointer(2, 4, GL_UNSIGNED_BYTE, true, vertexBytes, 4 * Float.BYTES);
         }
         
         // Create index VBO
         int vboIndices = glGenBuffers();
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndices);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, (long) maxIndices * Integer.BYTES, GL_DYNAMIC_DRAW);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, (long) maxIndices * Integer.BYTES, usage);
         
         glBindBuffer(GL_ARRAY_BUFFER, 0);
         glBindVertexArray(0);
         
-        return new BufferConfig(vaoId, vboPositions, vboColors, vboTexCoords, vboIndices, maxVertices, maxIndices);
+        return new BufferConfig(vaoId, vboVertices, vboIndices, vertexInts, maxVertices, maxIndices);
     }
-    
+
+    /**
+     * Creates the stream ring for a buffer type's vertex format, its buffers given stream storage right away
+     */
+    private StreamRing createStreamRing(int bufferType) {
+        BufferConfig config = createBuffer(bufferType, 1, 1);
+
+        glBindVertexArray(config.vaoId);
+        StreamRing ring = new StreamRing(config,
+                new StreamRegion(GL_ARRAY_BUFFER, config.vboVertices, config.vertexInts * Integer.BYTES, STREAM_INITIAL_VERTICES),
+                new StreamRegion(GL_ELEMENT_ARRAY_BUFFER, config.vboIndices, Integer.BYTES, STREAM_INITIAL_INDICES));
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+        totalBuffersCreated++;
+        return ring;
+    }
+
+    /**
+     * The buffers of a vertex format that every batch is written to, one after another, under the RING strategy
+     */
+    private static class StreamRing extends BufferConfig {
+        final StreamRegion vertices;
+        final StreamRegion indices;
+
+        StreamRing(BufferConfig config, StreamRegion vertices, StreamRegion indices) {
+            super(config.vaoId, config.vboVertices, config.vboIndices, config.vertexInts, vertices.capacity, indices.capacity);
+            this.vertices = vertices;
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * Space in a buffer that is handed out front to back, going back to the start when the end is reached. The space
+     * is split into sections, and a section is fenced once the cursor has moved past it, so coming back to it only has
+     * to check that the GPU has passed the fence.
+     */
+    private static class StreamRegion {
+        final int target;
+        final int vboId;
+        final int elementBytes;
+        int capacity;
+        int cursor = 0;
+        // the sections before this one have been fenced since the cursor last went back to the start
+        int fenced = 0;
+        // a fence per section, 0 where the GPU is known to be done with it
+        final long[] fences = new long[STREAM_SECTIONS];
+        int wraps = 0;
+        int orphans = 0;
+        int grows = 0;
+
+        StreamRegion(int target, int vboId, int elementBytes, int capacity) {
+            this.target = target;
+            this.vboId = vboId;
+            this.elementBytes = elementBytes;
+            orphan(capacity);
+        }
+
+        /**
+         * Reserves count elements, returning the first of them. Waits on nothing: if the GPU might still be drawing
+         * from the space, the buffer is orphaned and the space is taken from the start of the new storage.
+         */
+        int reserve(int count) {
+            if (count > capacity / STREAM_SECTIONS) {
+                // too big for a section, so grow until a lap holds several batches this size
+                int size = capacity;
+                while (count > size / STREAM_SECTIONS) {
+                    size *= 2;
+                }
+                orphan(size);
+                grows++;
+            }
+            int sectionSize = capacity / STREAM_SECTIONS;
+            int start = cursor;
+            if (start + count > capacity) {
+                // the batches drawn from the sections written this lap have all been issued, so fence them
+                while (fenced * sectionSize < start) {
+                    fence(fenced++);
+                }
+                start = 0;
+                fenced = 0;
+                wraps++;
+            }
+            while (fenced < start / sectionSize) {
+                fence(fenced++);
+            }
+
+            for (int section = start / sectionSize; count > 0 && section <= (start + count - 1) / sectionSize; section++) {
+                if (fences[section] == 0) {
+                    continue;
+                }
+                int status = glClientWaitSync(fences[section], GL_SYNC_FLUSH_COMMANDS_BIT, 0);
+                glDeleteSync(fences[section]);
+                fences[section] = 0;
+                if (status == GL_TIMEOUT_EXPIRED || status == GL_WAIT_FAILED) {
+                    orphan(capacity);
+                    orphans++;
+                    start = 0;
+                    break;
+                }
+            }
+            cursor = start + count;
+            return start;
+        }
+
+        /**
+         * Gives the buffer fresh storage for capacity elements. Draws already issued keep reading the old storage, so
+         * every fence can be dropped and the whole region reused.
+         */
+        void orphan(int capacity) {
+            this.capacity = capacity;
+            glBindBuffer(target, vboId);
+            glBufferData(target, (long) capacity * elementBytes, GL_STREAM_DRAW);
+            deleteFences();
+            cursor = 0;
+            fenced = 0;
+        }
+
+        /** marks everything issued so far, replacing the section's fence from the last lap if it wasn't waited on */
+        private void fence(int section) {
+            if (fences[section] != 0) {
+                glDeleteSync(fences[section]);
+            }
+            fences[section] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        }
+
+        void deleteFences() {
+            for (int section = 0; section < STREAM_SECTIONS; section++) {
+                if (fences[section] != 0) {
+                    glDeleteSync(fences[section]);
+                    fences[section] = 0;
+                }
+            }
+        }
+    }
+
     /**
      * Compacts the buffer pool by removing expired buffers
      */
     public void compactBuffers() {
         long currentTime = System.currentTimeMillis();
         
-        for (int bufferType : buffersByType.keySet()) {
-            Map<Integer, BufferConfig> buffers = buffersByType.get(bufferType);
+        for (List<BufferConfig> buffers : buffersByType) {
             
             // Count buffers by size tier
             Map<Integer, List<Integer>> buffersBySize = new HashMap<>();
@@ -442,12 +713,11 @@ public class BufferManager implements AutoCloseable {
             // Identify candidates for removal
             List<Integer> buffersToRemove = new ArrayList<>();
             
-            for (Map.Entry<Integer, BufferConfig> entry : buffers.entrySet()) {
-                int bufferId = entry.getKey();
-                BufferConfig config = entry.getValue();
+            for (int bufferId = 0; bufferId < buffers.size(); bufferId++) {
+                BufferConfig config = buffers.get(bufferId);
                 
-                // Skip buffers that are in use
-                if (config.inUse) {
+                // Skip removed buffers and buffers that are in use
+                if (config == null || config.inUse) {
                     continue;
                 }
                 
@@ -487,17 +757,11 @@ public class BufferManager implements AutoCloseable {
             for (int bufferId : buffersToRemove) {
                 BufferConfig config = buffers.get(bufferId);
                 
-                glDeleteBuffers(config.vboPositions);
-                if (config.vboColors != 0) {
-                    glDeleteBuffers(config.vboColors);
-                }
-                if (config.vboTexCoords != 0) {
-                    glDeleteBuffers(config.vboTexCoords);
-                }
+                glDeleteBuffers(config.vboVertices);
                 glDeleteBuffers(config.vboIndices);
                 glDeleteVertexArrays(config.vaoId);
                 
-                buffers.remove(bufferId);
+                buffers.set(bufferId, null);
                 totalBuffersCompacted++;
             }
         }
@@ -514,10 +778,28 @@ public class BufferManager implements AutoCloseable {
         stats.put("totalBuffersCompacted", totalBuffersCompacted);
         
         int currentBufferCount = 0;
-        for (Map<Integer, BufferConfig> buffers : buffersByType.values()) {
-            currentBufferCount += buffers.size();
+        for (List<BufferConfig> buffers : buffersByType) {
+            for (BufferConfig config : buffers) {
+                if (config != null) {
+                    currentBufferCount++;
+                }
+            }
+        }
+        int streamWraps = 0;
+        int streamOrphans = 0;
+        int streamGrows = 0;
+        for (StreamRing ring : new StreamRing[] { streamSolidColor, streamTextured }) {
+            if (ring != null) {
+                currentBufferCount++;
+                streamWraps += ring.vertices.wraps + ring.indices.wraps;
+                streamOrphans += ring.vertices.orphans + ring.indices.orphans;
+                streamGrows += ring.vertices.grows + ring.indices.grows;
+            }
         }
         stats.put("currentBufferCount", currentBufferCount);
+        stats.put("streamWraps", streamWraps);
+        stats.put("streamOrphans", streamOrphans);
+        stats.put("streamGrows", streamGrows);
         
         return stats;
     }
@@ -528,29 +810,31 @@ public class BufferManager implements AutoCloseable {
     @Override
     public void close() {
         // Free the reusable buffers
-        if (reuseFloatBuffer != null) {
-            MemoryUtil.memFree(reuseFloatBuffer);
-            reuseFloatBuffer = null;
-        }
-        
         if (reuseIntBuffer != null) {
             MemoryUtil.memFree(reuseIntBuffer);
             reuseIntBuffer = null;
         }
         
+        // Delete the stream rings and their fences
+        for (StreamRing ring : new StreamRing[] { streamSolidColor, streamTextured }) {
+            if (ring != null) {
+                ring.vertices.deleteFences();
+                ring.indices.deleteFences();
+                glDeleteBuffers(ring.vboVertices);
+                glDeleteBuffers(ring.vboIndices);
+                glDeleteVertexArrays(ring.vaoId);
+            }
+        }
+        streamSolidColor = null;
+        streamTextured = null;
+
         // Delete all OpenGL buffers
-        for (Map<Integer, BufferConfig> buffers : buffersByType.values()) {
-            for (BufferConfig config : buffers.values()) {
-                glDeleteBuffers(config.vboPositions);
-                
-                if (config.vboColors != 0) {
-                    glDeleteBuffers(config.vboColors);
-                }
-                
-                if (config.vboTexCoords != 0) {
-                    glDeleteBuffers(config.vboTexCoords);
+        for (List<BufferConfig> buffers : buffersByType) {
+            for (BufferConfig config : buffers) {
+                if (config == null) {
+                    continue;
                 }
-                
+                glDeleteBuffers(config.vboVertices);
                 glDeleteBuffers(config.vboIndices);
                 glDeleteVertexArrays(config.vaoId);
             }
@@ -27,6 +27,11 @@ public class Color {
     public final float b;
     public final float a;
 
+    // Used when a color is read from JSON, so a color that doesn't give its alpha is opaque
+    private Color() {
+        this(0, 0, 0);
+    }
+
     public Color(float r, float g, float b) {
         this.r = r;
         this.g = g;
@@ -21,15 +21,11 @@ THE SOFTWARE.
 */
 package edu.usu.graphics;
 
-import edu.usu.graphics.objects.Rectangle;
-import edu.usu.utils.Tuple7;
 import org.joml.Matrix4f;
-import org.joml.Vector2f;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
-import java.util.ArrayList;
 
 public class Font {
     private FontTexture texture;
@@ -51,88 +47,76 @@ public class Font {
         }
     }
 
-    public float measureTextHeight(String text, float width) {
-        char[] characters = text.toCharArray();
-        int totalWidth = 0;
+    private Font(FontTexture texture) {
+        this.texture = texture;
+    }
 
-        for (char character : characters) {
-            totalWidth += texture.getCharInfo(character).getWidth();
+    /**
+     * A font that measures and lays out text exactly like the one loaded from the same file, but is never uploaded,
+     * so text can be drawn with a headless Graphics2D.
+     */
+    public static Font createHeadless(String fontFile, int size, boolean outline) {
+        try (InputStream is = new FileInputStream(fontFile)) {
+            java.awt.Font font = java.awt.Font.createFont(java.awt.Font.TRUETYPE_FONT, is).deriveFont((float) size);
+            return new Font(new FontTexture(font, "ISO-8859-1", outline, true));
+        } catch (Exception e) {
+            throw new RuntimeException("Font file [" + fontFile + "] not loaded", e);
         }
+    }
+
+    public float measureTextHeight(String text, float width) {
+        int totalWidth = measureCharWidths(text);
 
         return (texture.getHeight() / (float) totalWidth) * width;
     }
 
     public float measureTextWidth(String text, float height) {
-        char[] characters = text.toCharArray();
-        int totalWidth = 0;
-
-        for (char character : characters) {
-            if (texture.getCharInfo(character) == null)
-                continue;
-
-            totalWidth += texture.getCharInfo(character).getWidth();
-        }
+        int totalWidth = measureCharWidths(text);
 
         return (height / texture.getHeight()) * totalWidth;
     }
 
-    public ArrayList<Tuple7<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f>> drawText(String text, float left, float top, float width, float z) {
-        Matrix4f mIdentity = new Matrix4f();
-        mIdentity.identity();
-
-        return drawText(text, left, top, width, z, mIdentity);
-    }
-
-    public ArrayList<Tuple7<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f>> drawText(String text, float left, float top, float width, float z, float rotation, Vector2f center) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
+    /**
+     * The total width, in font texture pixels, of the characters in the text the font can draw
+     */
+    private int measureCharWidths(String text) {
+        int totalWidth = 0;
+        for (int i = 0; i < text.length(); i++) {
+            FontTexture.CharInfo info = texture.getCharInfo(text.charAt(i));
+            if (info == null)
+                continue;
 
-        return drawText(text, left, top, width, z, mRotation);
+            totalWidth += info.getWidth();
+        }
+        return totalWidth;
     }
 
-    private ArrayList<Tuple7<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f>> drawText(String text, float left, float top, float width, float z, Matrix4f mRotation) {
-        ArrayList<Tuple7<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f>> tuples = new ArrayList<>();
-
-        char[] characters = text.toCharArray();
-
+    /**
+     * Adds a glyph operation to the queue for each character of the text. The transform and color are copied by the
+     * queue, so callers can pass scratch objects.
+     */
+    void emitText(RenderQueue queue, String text, float left, float top, float width, float z, Matrix4f transform, Color color) {
         // Step 1: Compute the total width of the characters.  This allows us to compute
         //         a relative width for each character to be rendered
-        int totalWidth = 0;
-        for (char c : characters) {
-            if (texture.getCharInfo(c) == null)
-                continue;
-
-            totalWidth += texture.getCharInfo(c).getWidth();
-        }
+        int totalWidth = measureCharWidths(text);
+        float textureWidth = texture.getWidth();
+        float charHeight = (texture.getHeight() / (float) totalWidth) * width;
 
         // Step 2: Compute rectangles for each character, along with the texture coordinates
         //         for where to find those characters in the FontTexture
         float currentLeft = left;
-        for (char character : characters) {
-            if (texture.getCharInfo(character) == null)
+        for (int i = 0; i < text.length(); i++) {
+            FontTexture.CharInfo info = texture.getCharInfo(text.charAt(i));
+            if (info == null)
                 continue;
 
-            FontTexture.CharInfo info = texture.getCharInfo(character);
-
-            // Compute the texture coords for this texture
-            Vector2f v1 = new Vector2f(info.getStartX() / (float) texture.getWidth(), 0.0f);
-            Vector2f v2 = new Vector2f((info.getStartX() + info.getWidth() + FontTexture.CHAR_OFFSET) / (float) texture.getWidth(), 0.0f);
-            Vector2f v3 = new Vector2f((info.getStartX() + info.getWidth() + FontTexture.CHAR_OFFSET) / (float) texture.getWidth(), 1.0f);
-            Vector2f v4 = new Vector2f(info.getStartX() / (float) texture.getWidth(), 1.0f);
-
-            // Create a rectangle to render for this character
+            float u1 = info.getStartX() / textureWidth;
+            float u2 = (info.getStartX() + info.getWidth() + FontTexture.CHAR_OFFSET) / textureWidth;
             float charWidth = (info.getWidth() / (float) totalWidth) * width;
-            float charHeight = (texture.getHeight() / (float) totalWidth) * width;
-            Rectangle r = new Rectangle(currentLeft, top, charWidth, charHeight, z);
-
-            tuples.add(new Tuple7<>(texture.getTexture(), r, v1, v2, v3, v4, mRotation));
+            queue.addGlyph(texture.getTexture(), currentLeft, top, charWidth, charHeight, z, u1, u2, transform, color);
 
             currentLeft += charWidth;
         }
-
-        return tuples;
     }
 
 }
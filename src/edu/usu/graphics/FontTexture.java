@@ -31,8 +31,6 @@ import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
-import java.util.HashMap;
-import java.util.Map;
 import javax.imageio.ImageIO;
 
 public class FontTexture {
@@ -49,15 +47,21 @@ public class FontTexture {
 
     private final Font font;
     private final String charSetName;
-    private final Map<Character, CharInfo> charMap;
+    // indexed by character, so looking up a glyph while drawing text doesn't box the char
+    private CharInfo[] charMap;
     private Texture texture;
 
     public FontTexture(Font font, String charSetName, boolean outline) throws Exception {
+        this(font, charSetName, outline, false);
+    }
+
+    /** a headless font texture has the glyph layout of the real one, but no image, see Texture.createHeadless */
+    FontTexture(Font font, String charSetName, boolean outline, boolean headless) throws Exception {
         this.font = font;
         this.charSetName = charSetName;
-        charMap = new HashMap<>();
+        charMap = new CharInfo[0];
 
-        buildTexture(outline);
+        buildTexture(outline, headless);
     }
 
     public int getWidth() {
@@ -73,7 +77,7 @@ public class FontTexture {
     }
 
     public CharInfo getCharInfo(char c) {
-        return charMap.get(c);
+        return c < charMap.length ? charMap[c] : null;
     }
 
     private String getAllAvailableChars(String charsetName) {
@@ -87,7 +91,7 @@ public class FontTexture {
         return result.toString();
     }
 
-    private void buildTexture(boolean outline) throws Exception {
+    private void buildTexture(boolean outline, boolean headless) throws Exception {
         // Get the font metrics for each character for the selected font by using image
         BufferedImage img = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g2D = img.createGraphics();
@@ -96,15 +100,20 @@ public class FontTexture {
         FontMetrics fontMetrics = g2D.getFontMetrics();
 
         String allChars = getAllAvailableChars(charSetName);
+        charMap = new CharInfo[allChars.isEmpty() ? 0 : allChars.charAt(allChars.length() - 1) + 1];
         int width = 0;
         int height = fontMetrics.getHeight();
         for (char c : allChars.toCharArray()) {
             // Get the size for each character and update global image size
             CharInfo charInfo = new CharInfo(width, fontMetrics.charWidth(c) + 0);
-            charMap.put(c, charInfo);
+            charMap[c] = charInfo;
             width += charInfo.getWidth() + CHAR_PADDING + CHAR_SPACING;
         }
         g2D.dispose();
+        if (headless) {
+            texture = Texture.createHeadless(width, height);
+            return;
+        }
 
         // Create the image associated to the charset
         img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
@@ -138,7 +147,7 @@ public class FontTexture {
             // location of characters.
             //g2D.setColor(Color.BLUE);
             //g2D.drawRect(startX, 0, charMap.get(c).getWidth() + CHAR_PADDING + CHAR_SPACING, fontMetrics.getHeight());
-            startX += charMap.get(c).getWidth() + CHAR_PADDING + CHAR_SPACING;
+            startX += charMap[c].getWidth() + CHAR_PADDING + CHAR_SPACING;
         }
         g2D.dispose();
 
@@ -30,6 +30,7 @@ import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.glfw.GLFWVidMode;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
 
 import java.nio.IntBuffer;
 import java.util.ArrayList;
@@ -37,7 +38,7 @@ import java.util.List;
 
 import static org.lwjgl.glfw.Callbacks.*;
 import static org.lwjgl.glfw.GLFW.*;
-import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL33.*;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
 public class Graphics2D  implements AutoCloseable {
@@ -57,16 +58,16 @@ public class Graphics2D  implements AutoCloseable {
     private ShaderProgram shaderSolidColor;
     private ShaderProgram shaderTexture;
     private ShaderProgram shaderFont;
+    private ShaderProgram shaderSolidColorInstanced;
     
     // Cached uniform locations
     private int uniformSolidColorProjectionLocation;
     private int uniformSolidColorModelLocation;
     private int uniformTextureProjectionLocation;
     private int uniformTextureModelLocation;
-    private int uniformTextureColorLocation;
     private int uniformFontProjectionLocation;
     private int uniformFontModelLocation;
-    private int uniformFontColorLocation;
+    private int uniformInstancedProjectionLocation;
     
     // Buffer manager for reusing VAOs and VBOs
     private BufferManager bufferManager;
@@ -75,12 +76,77 @@ public class Graphics2D  implements AutoCloseable {
     private int frameCount = 0;
     private static final int COMPACT_INTERVAL = 300; // Compact buffers every 300 frames (5 seconds at 60 FPS)
 
+    // Scratch values handed to the render queue, which copies them, so draw calls don't allocate
+    private final Matrix4f mScratchTransform = new Matrix4f();
+    private static final TriangleTexCoords DEFAULT_TEX_COORDS = new TriangleTexCoords(
+            new Vector2f(0.0f, 0.0f),
+            new Vector2f(1.0f, 0.0f),
+            new Vector2f(0.0f, 1.0f)
+    );
+
+    // Meshes shared by every shape with the same geometry
+    private final MeshCache meshCache = new MeshCache();
+    // Textures loaded from image files, shared by everything that draws the same file
+    private final TextureCache textureCache = new TextureCache();
+
+    // The meshes that have been uploaded for instanced drawing, and the native buffer their copies are uploaded from,
+    // which only grows
+    private final ArrayList<MeshInstances> uploadedInstances = new ArrayList<>();
+    private IntBuffer instanceUpload;
+
+    // Reused CPU side vertex buffers, filled from the render queue every frame
+    private final Graphics2DUtils.BuffersColor buffersColor = new Graphics2DUtils.BuffersColor();
+    private final Graphics2DUtils.BuffersTexture buffersTexture = new Graphics2DUtils.BuffersTexture();
+
+    // A headless instance has no window or GL context. Draw calls are queued, sorted and packed into vertex
+    // buffers as usual, but nothing is sent to the GPU. Used to exercise the render path without a display.
+    private boolean headless = false;
+
     public Graphics2D(int width, int height, String title) {
         this.width = width;
         this.height = height;
         this.title = title;
     }
 
+    /** creates a Graphics2D that does all the CPU side work of rendering a frame without a window or GL context */
+    public static Graphics2D createHeadless(int width, int height) {
+        Graphics2D graphics = new Graphics2D(width, height, "");
+        graphics.headless = true;
+        graphics.frameBufferWidth = width;
+        graphics.frameBufferHeight = height;
+        graphics.mProjection = new Matrix4f();
+        graphics.updateProjectionMatrix();
+        graphics.mModelIdentity = new Matrix4f();
+        graphics.mModelIdentity.identity();
+        return graphics;
+    }
+
+    /**
+     * Changes how the vertices rebuilt every frame are uploaded, from the next frame on. A headless instance uploads
+     * nothing, so it has no strategy.
+     */
+    public void setStreamingStrategy(BufferManager.StreamingStrategy strategy) {
+        if (headless) return;
+        bufferManager.setStreamingStrategy(strategy);
+    }
+
+    /** how the vertices rebuilt every frame are uploaded, null for a headless instance */
+    public BufferManager.StreamingStrategy getStreamingStrategy() {
+        return headless ? null : bufferManager.getStreamingStrategy();
+    }
+
+    public MeshCache getMeshCache() {
+        return this.meshCache;
+    }
+
+    public TextureCache getTextureCache() {
+        return this.textureCache;
+    }
+
+    public boolean isHeadless() {
+        return this.headless;
+    }
+
     public int getWidth() {
         return this.width;
     }
@@ -136,6 +202,7 @@ public class Graphics2D  implements AutoCloseable {
         shaderSolidColor = createShader("resources/shaders/solid-color.vert", "resources/shaders/solid-color.frag");
         shaderTexture = createShader("resources/shaders/texture.vert", "resources/shaders/texture.frag");
         shaderFont = createShader("resources/shaders/font.vert", "resources/shaders/font.frag");
+        shaderSolidColorInstanced = createShader("resources/shaders/solid-color-instanced.vert", "resources/shaders/solid-color-instanced.frag");
         
         // Cache uniform locations
         uniformSolidColorProjectionLocation = shaderSolidColor.getUniformLocation("mProjection");
@@ -143,11 +210,11 @@ public class Graphics2D  implements AutoCloseable {
         
         uniformTextureProjectionLocation = shaderTexture.getUniformLocation("mProjection");
         uniformTextureModelLocation = shaderTexture.getUniformLocation("mModel");
-        uniformTextureColorLocation = shaderTexture.getUniformLocation("color");
         
         uniformFontProjectionLocation = shaderFont.getUniformLocation("mProjection");
         uniformFontModelLocation = shaderFont.getUniformLocation("mModel");
-        uniformFontColorLocation = shaderFont.getUniformLocation("color");
+
+        uniformInstancedProjectionLocation = shaderSolidColorInstanced.getUniformLocation("mProjection");
         
         // Initialize the buffer manager
         bufferManager = new BufferManager();
@@ -158,6 +225,7 @@ public class Graphics2D  implements AutoCloseable {
     }
 
     public void setClearColor(Color clearColor) {
+        if (headless) return;
         glClearColor(clearColor.r, clearColor.g, clearColor.b, clearColor.a);
     }
 
@@ -170,6 +238,7 @@ public class Graphics2D  implements AutoCloseable {
     }
 
     public void begin() {
+        if (headless) return;
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
         glViewport(0, 0, frameBufferWidth, frameBufferHeight);
     }
@@ -183,6 +252,7 @@ public class Graphics2D  implements AutoCloseable {
         
         // Clear the render queue
         renderQueue.clear();
+        if (headless) return;
 
         // Increment frame counter and periodically compact buffers
         frameCount++;
@@ -195,9 +265,21 @@ public class Graphics2D  implements AutoCloseable {
     }
 
     public void close() {
+        if (headless) return;
         shaderSolidColor.cleanup();
         shaderTexture.cleanup();
         shaderFont.cleanup();
+        shaderSolidColorInstanced.cleanup();
+        textureCache.clear();
+        for (MeshInstances instances : uploadedInstances) {
+            glDeleteVertexArrays(instances.vaoId);
+            glDeleteBuffers(instances.vboPositions);
+            glDeleteBuffers(instances.vboIndices);
+            glDeleteBuffers(instances.vboInstances);
+        }
+        if (instanceUpload != null) {
+            MemoryUtil.memFree(instanceUpload);
+        }
         
         // Clean up the buffer manager
         bufferManager.close();
@@ -223,199 +305,141 @@ public class Graphics2D  implements AutoCloseable {
     }
 
     public void draw(Triangle triangle, float rotation, Vector2f center, Color color) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
+        Matrix4f mRotation = rotationAbout(rotation, center);
         renderQueue.add(triangle, color, mRotation);
     }
 
     public void draw(Texture texture, Triangle triangle, Color color) {
-        // Default texture coordinates: (0,0), (1,0), (0,1)
-        TriangleTexCoords texCoords = new TriangleTexCoords(
-            new Vector2f(0.0f, 0.0f),
-            new Vector2f(1.0f, 0.0f),
-            new Vector2f(0.0f, 1.0f)
-        );
-        renderQueue.add(texture, triangle, texCoords, mModelIdentity, new Vector3f(color.r, color.g, color.b));
+        TriangleTexCoords texCoords = DEFAULT_TEX_COORDS;
+        renderQueue.add(texture, triangle, texCoords, mModelIdentity, color);
     }
 
     public void draw(Texture texture, Triangle triangle, float rotation, Vector2f center, Color color) {
-        // Default texture coordinates: (0,0), (1,0), (0,1)
-        TriangleTexCoords texCoords = new TriangleTexCoords(
-            new Vector2f(0.0f, 0.0f),
-            new Vector2f(1.0f, 0.0f),
-            new Vector2f(0.0f, 1.0f)
-        );
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
-        renderQueue.add(texture, triangle, texCoords, mRotation, new Vector3f(color.r, color.g, color.b));
+        TriangleTexCoords texCoords = DEFAULT_TEX_COORDS;
+        Matrix4f mRotation = rotationAbout(rotation, center);
+        renderQueue.add(texture, triangle, texCoords, mRotation, color);
     }
 
     public void draw(Texture texture, Triangle triangle, TriangleTexCoords texCoords, Color color) {
-        renderQueue.add(texture, triangle, texCoords, mModelIdentity, new Vector3f(color.r, color.g, color.b));
+        renderQueue.add(texture, triangle, texCoords, mModelIdentity, color);
     }
 
     public void draw(Texture texture, Triangle triangle, TriangleTexCoords texCoords, float rotation, Vector2f center, Color color) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
-        renderQueue.add(texture, triangle, texCoords, mRotation, new Vector3f(color.r, color.g, color.b));
+        Matrix4f mRotation = rotationAbout(rotation, center);
+        renderQueue.add(texture, triangle, texCoords, mRotation, color);
+    }
+
+    /**
+     * Draws a mesh by rotating its local vertices about the origin, scaling them, then moving the origin to (x, y).
+     * Negative scales mirror the mesh, which is how shapes in y-up world units are placed on the y-down canvas.
+     */
+    public void draw(Mesh mesh, float x, float y, float z, float rotation, float scaleX, float scaleY, Color color) {
+        Matrix4f transform = mScratchTransform.translation(x, y, z)
+                .scale(scaleX, scaleY, 1.0f)
+                .rotateZ(rotation);
+        renderQueue.add(mesh, z, color, transform);
+    }
+
+    /**
+     * Draws a copy of a mesh placed just like the mesh draw above, but instanced: every copy of the same mesh drawn in
+     * a frame is a single draw call, and each copy only uploads its position, rotation, scale and color. Meant for
+     * meshes shared by many shapes, such as a unit circle scaled to each ball's radius. Copies of a mesh are drawn in
+     * the order they were added rather than sorted by depth, which only matters if they overlap. The scale is applied
+     * after the rotation, so unequal scales shear a rotated mesh.
+     */
+    public void drawInstance(Mesh mesh, float x, float y, float z, float rotation, float scaleX, float scaleY, Color color) {
+        renderQueue.addInstance(mesh, x, y, z, rotation, scaleX, scaleY, color);
+    }
+
+    /**
+     * Draws static geometry scaled about the origin. It is uploaded to the GPU the first time it is drawn, and again
+     * only after it changes. Negative scales mirror it, just like the mesh draw.
+     */
+    public void draw(StaticGeometry geometry, float scaleX, float scaleY) {
+        if (geometry.isEmpty()) return;
+        renderQueue.add(geometry, mScratchTransform.scaling(scaleX, scaleY, 1.0f));
+    }
+
+    /**
+     * Draws line strips scaled about the origin, all of them in a single draw call. They are uploaded again every
+     * frame they are drawn. Negative scales mirror them, just like the mesh draw.
+     */
+    public void draw(LineStrips strips, float scaleX, float scaleY) {
+        if (strips.isEmpty()) return;
+        renderQueue.add(strips, mScratchTransform.scaling(scaleX, scaleY, 1.0f));
+    }
+
+    /**
+     * Frees the GPU copy of static geometry that won't be drawn anymore. Drawing it again uploads it again.
+     */
+    public void release(StaticGeometry geometry) {
+        if (geometry.bufferId >= 0 && !headless) {
+            bufferManager.deleteBuffer(BufferManager.BUFFER_TYPE_STATIC_SOLID_COLOR, geometry.bufferId);
+        }
+        geometry.bufferId = -1;
+        geometry.dirty = true;
     }
 
     public void draw(Rectangle destination, float rotation, Vector2f center, Color color) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
+        Matrix4f mRotation = rotationAbout(rotation, center);
         renderQueue.add(destination, color, mRotation);
     }
 
     public void draw(Texture texture, Rectangle destination, Color color) {
-        renderQueue.add(texture, destination, null, mModelIdentity, new Vector3f(color.r, color.g, color.b));
+        renderQueue.add(texture, destination, null, mModelIdentity, color);
     }
 
     public void draw(Texture texture, Rectangle destination, float rotation, Vector2f center, Color color) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
-        renderQueue.add(texture, destination, null, mRotation, new Vector3f(color.r, color.g, color.b));
+        Matrix4f mRotation = rotationAbout(rotation, center);
+        renderQueue.add(texture, destination, null, mRotation, color);
     }
 
     public void draw(Texture texture, Rectangle destination, Rectangle subImage, float rotation, Vector2f center, Color color) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
-        renderQueue.add(texture, destination, subImage, mRotation, new Vector3f(color.r, color.g, color.b));
+        Matrix4f mRotation = rotationAbout(rotation, center);
+        renderQueue.add(texture, destination, subImage, mRotation, color);
     }
 
     public void drawTextByWidth(Font font, String text, float left, float top, float width, float z, Color color) {
-        var tuples = font.drawText(text, left, top, width, z);
-        for (var tuple : tuples) {
-            renderQueue.add(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b));
-        }
+        font.emitText(renderQueue, text, left, top, width, z, mModelIdentity, color);
     }
 
     public void drawTextByWidth(Font font, String text, float left, float top, float width, Color color) {
-        var tuples = font.drawText(text, left, top,  width, 0.0f);
-        for (var tuple : tuples) {
-            renderQueue.add(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b));
-        }
+        font.emitText(renderQueue, text, left, top, width, 0.0f, mModelIdentity, color);
     }
 
     public void drawTextByWidth(Font font, String text, float left, float top, float width, float z, float rotation, Vector2f center, Color color) {
-        var tuples = font.drawText(text, left, top, width, z, rotation, center);
-        for (var tuple : tuples) {
-            renderQueue.add(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b));
-        }
+        font.emitText(renderQueue, text, left, top, width, z, rotationAbout(rotation, center), color);
     }
 
     public void drawTextByWidth(Font font, String text, float left, float top, float width, float rotation, Vector2f center, Color color) {
-        var tuples = font.drawText(text, left, top, width, 0.0f, rotation, center);
-        for (var tuple : tuples) {
-            renderQueue.add(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b));
-        }
+        font.emitText(renderQueue, text, left, top, width, 0.0f, rotationAbout(rotation, center), color);
     }
 
     public void drawTextByHeight(Font font, String text, float left, float top, float height, float z, Color color) {
         float width = font.measureTextWidth(text, height);
-        var tuples = font.drawText(text, left, top, width, z);
-        for (var tuple : tuples) {
-            renderQueue.add(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b));
-        }
+        font.emitText(renderQueue, text, left, top, width, z, mModelIdentity, color);
     }
 
     public void drawTextByHeight(Font font, String text, float left, float top, float height, Color color) {
         float width = font.measureTextWidth(text, height);
-        var tuples = font.drawText(text, left, top, width, 0.0f);
-        for (var tuple : tuples) {
-            renderQueue.add(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b));
-        }
+        font.emitText(renderQueue, text, left, top, width, 0.0f, mModelIdentity, color);
     }
 
     public void drawTextByHeight(Font font, String text, float left, float top, float height, float z, float rotation, Vector2f center, Color color) {
         float width = font.measureTextWidth(text, height);
-        var tuples = font.drawText(text, left, top, width, z, rotation, center);
-        for (var tuple : tuples) {
-            renderQueue.add(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b));
-        }
+        font.emitText(renderQueue, text, left, top, width, z, rotationAbout(rotation, center), color);
     }
 
     public void drawTextByHeight(Font font, String text, float left, float top, float height, float rotation, Vector2f center, Color color) {
         float width = font.measureTextWidth(text, height);
-        var tuples = font.drawText(text, left, top, width, 0.0f, rotation, center);
-        for (var tuple : tuples) {
-            renderQueue.add(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b));
-        }
+        font.emitText(renderQueue, text, left, top, width, 0.0f, rotationAbout(rotation, center), color);
+    }
+
+    /** a rotation about the given center, in a scratch matrix that is only valid until the next draw call */
+    private Matrix4f rotationAbout(float rotation, Vector2f center) {
+        return mScratchTransform.translation(center.x, center.y, 0)
+                .rotateZ(rotation)
+                .translate(-center.x, -center.y, 0);
     }
 
     private static long prepareWindow(int width, int height, String title) {
@@ -439,7 +463,7 @@ public class Graphics2D  implements AutoCloseable {
         }
 
         glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
-        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 2);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
         glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
         glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
 
@@ -529,7 +553,14 @@ public class Graphics2D  implements AutoCloseable {
         List<RenderQueue.RenderTexturedRectangleOperation> rectanglesTextured = renderQueue.getTexturedRectangleOperations();
         List<RenderQueue.RenderTexturedTriangleOperation> trianglesTextured = renderQueue.getTexturedTriangleOperations();
         List<RenderQueue.RenderTextGlyphOperation> textGlyphs = renderQueue.getTextGlyphOperations();
-
+        List<RenderQueue.RenderSolidMeshOperation> meshesSolidColor = renderQueue.getSolidMeshOperations();
+        List<RenderQueue.RenderStaticGeometryOperation> staticGeometry = renderQueue.getStaticGeometryOperations();
+        List<RenderQueue.RenderLineStripsOperation> lineStrips = renderQueue.getLineStripsOperations();
+
+        renderStaticGeometry(staticGeometry);
+        renderLineStrips(lineStrips);
+        renderMeshesSolidColor(meshesSolidColor);
+        renderMeshInstances(renderQueue.getMeshInstances());
         renderTrianglesSolidColor(trianglesSolidColor);
         renderRectanglesSolidColor(rectanglesSolidColor);
         renderRectanglesTextured(rectanglesTextured);
@@ -540,9 +571,10 @@ public class Graphics2D  implements AutoCloseable {
 
     private void renderTextGlyphs(List<RenderQueue.RenderTextGlyphOperation> textGlyphs) {
         if (!textGlyphs.isEmpty()) {
-            Graphics2DUtils.BuffersTexture buffersTextGlyphs = Graphics2DUtils.prepareTextGlyphBuffers(textGlyphs);
-            int bufferId = bufferManager.getFontBuffer(buffersTextGlyphs.positions.length / 3, buffersTextGlyphs.indices.length);
-            bufferManager.updateFontBuffer(bufferId, buffersTextGlyphs.positions, buffersTextGlyphs.coords, buffersTextGlyphs.indices);
+            Graphics2DUtils.BuffersTexture buffers = Graphics2DUtils.prepareTextGlyphBuffers(textGlyphs, buffersTexture);
+            if (headless) return;
+            int bufferId = bufferManager.getFontBuffer(buffers.vertexCount, buffers.indexCount);
+            bufferManager.updateFontBuffer(bufferId, buffers);
 
             bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_FONT, bufferId);
             shaderFont.bind();
@@ -551,28 +583,28 @@ public class Graphics2D  implements AutoCloseable {
                 var matrixBuffer = stack.mallocFloat(16);
                 mProjection.get(matrixBuffer);
                 glUniformMatrix4fv(uniformFontProjectionLocation, false, matrixBuffer);
+                mModelIdentity.get(matrixBuffer);
+                glUniformMatrix4fv(uniformFontModelLocation, false, matrixBuffer);
 
+                // the transforms and colors are already in the vertices, so each run of glyphs with the same font is
+                // drawn in one call, whatever colors its text is in
                 Texture currentTexture = null;
-                for (int i = 0; i < textGlyphs.size(); i++) {
-                    var op = textGlyphs.get(i);
-                    Texture texture = op.getTexture();
-                    Matrix4f modelMatrix = op.getTransform();
-                    Vector3f color = op.getColor();
+                int runStart = 0;
+                for (int i = 1; i <= textGlyphs.size(); i++) {
+                    var first = textGlyphs.get(runStart);
+                    if (i < textGlyphs.size()) {
+                        var next = textGlyphs.get(i);
+                        if (next.getTexture() == first.getTexture())
+                            continue;
+                    }
 
-                    // Only bind the texture if it's different from the current one
+                    Texture texture = first.getTexture();
                     if (currentTexture != texture) {
-                        if (currentTexture != null) {
-                            glBindTexture(GL_TEXTURE_2D, 0);
-                        }
                         texture.bind();
                         currentTexture = texture;
                     }
-
-                    modelMatrix.get(matrixBuffer);
-                    glUniformMatrix4fv(uniformFontModelLocation, false, matrixBuffer);
-                    glUniform3f(uniformFontColorLocation, color.x, color.y, color.z);
-
-                    glDrawElements(GL_TRIANGLES, 6, GL_UNSIGNED_INT, i * 6 * Integer.BYTES);
+                    bufferManager.drawElements(BufferManager.BUFFER_TYPE_FONT, bufferId, GL_TRIANGLES, (i - runStart) * 6, runStart * 6);
+                    runStart = i;
                 }
 
                 if (currentTexture != null) {
@@ -588,9 +620,10 @@ public class Graphics2D  implements AutoCloseable {
 
     private void renderTrianglesTextured(List<RenderQueue.RenderTexturedTriangleOperation> triangles) {
         if (!triangles.isEmpty()) {
-            Graphics2DUtils.BuffersTexture buffersTrianglesTexture = Graphics2DUtils.prepareTrianglesTextureBuffers(triangles);
-            int bufferId = bufferManager.getTextureBuffer(buffersTrianglesTexture.positions.length / 3, buffersTrianglesTexture.indices.length);
-            bufferManager.updateTextureBuffer(bufferId, buffersTrianglesTexture.positions, buffersTrianglesTexture.coords, buffersTrianglesTexture.indices);
+            Graphics2DUtils.BuffersTexture buffers = Graphics2DUtils.prepareTrianglesTextureBuffers(triangles, buffersTexture);
+            if (headless) return;
+            int bufferId = bufferManager.getTextureBuffer(buffers.vertexCount, buffers.indexCount);
+            bufferManager.updateTextureBuffer(bufferId, buffers);
 
             bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_TEXTURE, bufferId);
             shaderTexture.bind();
@@ -599,28 +632,28 @@ public class Graphics2D  implements AutoCloseable {
                 var matrixBuffer = stack.mallocFloat(16);
                 mProjection.get(matrixBuffer);
                 glUniformMatrix4fv(uniformTextureProjectionLocation, false, matrixBuffer);
+                mModelIdentity.get(matrixBuffer);
+                glUniformMatrix4fv(uniformTextureModelLocation, false, matrixBuffer);
 
+                // the transforms and tints are already in the vertices, so each run of operations with the same
+                // image is drawn in one call. Regions of one atlas page share an image.
                 Texture currentTexture = null;
-                for (int i = 0; i < triangles.size(); i++) {
-                    var op = triangles.get(i);
-                    Texture texture = op.getTexture();
-                    Matrix4f modelMatrix = op.getTransform();
-                    Vector3f color = op.getColor();
+                int runStart = 0;
+                for (int i = 1; i <= triangles.size(); i++) {
+                    var first = triangles.get(runStart);
+                    if (i < triangles.size()) {
+                        var next = triangles.get(i);
+                        if (next.getTexture().sharesImageWith(first.getTexture()))
+                            continue;
+                    }
 
-                    // Only bind the texture if it's different from the current one
-                    if (currentTexture != texture) {
-                        if (currentTexture != null) {
-                            glBindTexture(GL_TEXTURE_2D, 0);
-                        }
+                    Texture texture = first.getTexture();
+                    if (!texture.sharesImageWith(currentTexture)) {
                         texture.bind();
                         currentTexture = texture;
                     }
-
-                    modelMatrix.get(matrixBuffer);
-                    glUniformMatrix4fv(uniformTextureModelLocation, false, matrixBuffer);
-                    glUniform3f(uniformTextureColorLocation, color.x, color.y, color.z);
-
-                    glDrawElements(GL_TRIANGLES, 3, GL_UNSIGNED_INT, i * 3 * Integer.BYTES);
+                    bufferManager.drawElements(BufferManager.BUFFER_TYPE_TEXTURE, bufferId, GL_TRIANGLES, (i - runStart) * 3, runStart * 3);
+                    runStart = i;
                 }
 
                 if (currentTexture != null) {
@@ -636,9 +669,10 @@ public class Graphics2D  implements AutoCloseable {
 
     private void renderRectanglesTextured(List<RenderQueue.RenderTexturedRectangleOperation> rectangles) {
         if (!rectangles.isEmpty()) {
-            Graphics2DUtils.BuffersTexture buffersTexture = Graphics2DUtils.prepareRectsTextureBuffers(rectangles);
-            int bufferId = bufferManager.getTextureBuffer(buffersTexture.positions.length / 3, buffersTexture.indices.length);
-            bufferManager.updateTextureBuffer(bufferId, buffersTexture.positions, buffersTexture.coords, buffersTexture.indices);
+            Graphics2DUtils.BuffersTexture buffers = Graphics2DUtils.prepareRectsTextureBuffers(rectangles, buffersTexture);
+            if (headless) return;
+            int bufferId = bufferManager.getTextureBuffer(buffers.vertexCount, buffers.indexCount);
+            bufferManager.updateTextureBuffer(bufferId, buffers);
 
             bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_TEXTURE, bufferId);
             shaderTexture.bind();
@@ -647,28 +681,28 @@ public class Graphics2D  implements AutoCloseable {
                 var matrixBuffer = stack.mallocFloat(16);
                 mProjection.get(matrixBuffer);
                 glUniformMatrix4fv(uniformTextureProjectionLocation, false, matrixBuffer);
+                mModelIdentity.get(matrixBuffer);
+                glUniformMatrix4fv(uniformTextureModelLocation, false, matrixBuffer);
 
+                // the transforms and tints are already in the vertices, so each run of operations with the same
+                // image is drawn in one call. Regions of one atlas page share an image.
                 Texture currentTexture = null;
-                for (int i = 0; i < rectangles.size(); i++) {
-                    var op = rectangles.get(i);
-                    Texture texture = op.getTexture();
-                    Matrix4f modelMatrix = op.getTransform();
-                    Vector3f color = op.getColor();
+                int runStart = 0;
+                for (int i = 1; i <= rectangles.size(); i++) {
+                    var first = rectangles.get(runStart);
+                    if (i < rectangles.size()) {
+                        var next = rectangles.get(i);
+                        if (next.getTexture().sharesImageWith(first.getTexture()))
+                            continue;
+                    }
 
-                    // Only bind the texture if it's different from the current one
-                    if (currentTexture != texture) {
-                        if (currentTexture != null) {
-                            glBindTexture(GL_TEXTURE_2D, 0);
-                        }
+                    Texture texture = first.getTexture();
+                    if (!texture.sharesImageWith(currentTexture)) {
                         texture.bind();
                         currentTexture = texture;
                     }
-
-                    modelMatrix.get(matrixBuffer);
-                    glUniformMatrix4fv(uniformTextureModelLocation, false, matrixBuffer);
-                    glUniform3f(uniformTextureColorLocation, color.x, color.y, color.z);
-
-                    glDrawElements(GL_TRIANGLES, 6, GL_UNSIGNED_INT, i * 6 * Integer.BYTES);
+                    bufferManager.drawElements(BufferManager.BUFFER_TYPE_TEXTURE, bufferId, GL_TRIANGLES, (i - runStart) * 6, runStart * 6);
+                    runStart = i;
                 }
 
                 if (currentTexture != null) {
@@ -684,9 +718,10 @@ public class Graphics2D  implements AutoCloseable {
 
     private void renderRectanglesSolidColor(List<RenderQueue.RenderSolidRectangleOperation> rectangles) {
         if (!rectangles.isEmpty()) {
-            Graphics2DUtils.BuffersColor buffersSolidColor = Graphics2DUtils.prepareRectsSolidColorBuffers(rectangles);
-            int bufferId = bufferManager.getSolidColorBuffer(buffersSolidColor.positions.length / 3, buffersSolidColor.indices.length);
-            bufferManager.updateSolidColorBuffer(bufferId, buffersSolidColor.positions, buffersSolidColor.colors, buffersSolidColor.indices);
+            Graphics2DUtils.BuffersColor buffersSolidColor = Graphics2DUtils.prepareRectsSolidColorBuffers(rectangles, buffersColor);
+            if (headless) return;
+            int bufferId = bufferManager.getSolidColorBuffer(buffersSolidColor.vertexCount, buffersSolidColor.indexCount);
+            bufferManager.updateSolidColorBuffer(bufferId, buffersSolidColor);
 
             bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId);
             shaderSolidColor.bind();
@@ -695,16 +730,177 @@ public class Graphics2D  implements AutoCloseable {
                 var matrixBuffer = stack.mallocFloat(16);
                 mProjection.get(matrixBuffer);
                 glUniformMatrix4fv(uniformSolidColorProjectionLocation, false, matrixBuffer);
+                // the transforms are already applied to the vertices, so the whole pass is a single draw call
+                mModelIdentity.get(matrixBuffer);
+                glUniformMatrix4fv(uniformSolidColorModelLocation, false, matrixBuffer);
+                bufferManager.drawElements(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId, GL_TRIANGLES, buffersSolidColor.indexCount, 0);
+            }
+
+            shaderSolidColor.unbind();
+            bufferManager.unbindBuffer();
+            bufferManager.releaseBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId);
+        }
+    }
+
+    private void renderStaticGeometry(List<RenderQueue.RenderStaticGeometryOperation> operations) {
+        if (!operations.isEmpty() && !headless) {
+            shaderSolidColor.bind();
+
+            try (var stack = MemoryStack.stackPush()) {
+                var matrixBuffer = stack.mallocFloat(16);
+                mProjection.get(matrixBuffer);
+                glUniformMatrix4fv(uniformSolidColorProjectionLocation, false, matrixBuffer);
+
+                for (int i = 0; i < operations.size(); i++) {
+                    var op = operations.get(i);
+                    StaticGeometry geometry = op.getGeometry();
+                    // only upload when the geometry is new or has changed since it was last drawn
+                    if (geometry.dirty) {
+                        release(geometry);
+                        geometry.bufferId = bufferManager.createStaticSolidColorBuffer(geometry.buffers);
+                        geometry.dirty = false;
+                    }
+
+                    bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_STATIC_SOLID_COLOR, geometry.bufferId);
+                    op.getTransform().get(matrixBuffer);
+                    glUniformMatrix4fv(uniformSolidColorModelLocation, false, matrixBuffer);
+                    glDrawElements(GL_TRIANGLES, geometry.buffers.indexCount, GL_UNSIGNED_INT, 0);
+                }
+            }
+
+            shaderSolidColor.unbind();
+            bufferManager.unbindBuffer();
+        }
+    }
+
+    private void renderLineStrips(List<RenderQueue.RenderLineStripsOperation> operations) {
+        if (!operations.isEmpty() && !headless) {
+            shaderSolidColor.bind();
+            // the restart index ends one strip and starts the next, so every strip of an operation is one draw call
+            glEnable(GL_PRIMITIVE_RESTART);
+            glPrimitiveRestartIndex(LineStrips.RESTART_INDEX);
+
+            try (var stack = MemoryStack.stackPush()) {
+                var matrixBuffer = stack.mallocFloat(16);
+                mProjection.get(matrixBuffer);
+                glUniformMatrix4fv(uniformSolidColorProjectionLocation, false, matrixBuffer);
+                glLineWidth(1.5f);
 
-                for (int i = 0; i < rectangles.size(); i++) {
-                    var op = rectangles.get(i);
-                    Matrix4f modelMatrix = op.getTransform();
-                    modelMatrix.get(matrixBuffer);
+                for (int i = 0; i < operations.size(); i++) {
+                    var op = operations.get(i);
+                    Graphics2DUtils.BuffersColor buffers = op.getStrips().buffers;
+                    int bufferId = bufferManager.getSolidColorBuffer(buffers.vertexCount, buffers.indexCount);
+                    bufferManager.updateSolidColorBuffer(bufferId, buffers);
+
+                    bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId);
+                    op.getTransform().get(matrixBuffer);
                     glUniformMatrix4fv(uniformSolidColorModelLocation, false, matrixBuffer);
-                    glDrawElements(GL_TRIANGLES, 6, GL_UNSIGNED_INT, i * 6 * Integer.BYTES);
+                    bufferManager.drawElements(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId, GL_LINE_STRIP, buffers.indexCount, 0);
+                    bufferManager.releaseBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId);
                 }
             }
 
+            glDisable(GL_PRIMITIVE_RESTART);
+            shaderSolidColor.unbind();
+            bufferManager.unbindBuffer();
+        }
+    }
+
+    private void renderMeshInstances(List<MeshInstances> meshes) {
+        if (!meshes.isEmpty() && !headless) {
+            shaderSolidColorInstanced.bind();
+
+            try (var stack = MemoryStack.stackPush()) {
+                var matrixBuffer = stack.mallocFloat(16);
+                mProjection.get(matrixBuffer);
+                glUniformMatrix4fv(uniformInstancedProjectionLocation, false, matrixBuffer);
+            }
+
+            for (int i = 0; i < meshes.size(); i++) {
+                MeshInstances instances = meshes.get(i);
+                if (instances.vaoId == 0) {
+                    uploadMesh(instances);
+                }
+
+                int ints = instances.count * MeshInstances.INSTANCE_INTS;
+                if (instanceUpload == null || instanceUpload.capacity() < ints) {
+                    instanceUpload = MemoryUtil.memRealloc(instanceUpload, Math.max(ints, instanceUpload == null ? 0 : instanceUpload.capacity() * 2));
+                }
+                instanceUpload.clear();
+                instanceUpload.put(instances.instances, 0, ints).flip();
+
+                glBindVertexArray(instances.vaoId);
+                // a fresh store every frame, so the driver doesn't wait for last frame's draw to finish reading it
+                glBindBuffer(GL_ARRAY_BUFFER, instances.vboInstances);
+                glBufferData(GL_ARRAY_BUFFER, instanceUpload, GL_STREAM_DRAW);
+                glDrawElementsInstanced(GL_TRIANGLES, instances.mesh.getIndexCount(), GL_UNSIGNED_INT, 0, instances.count);
+            }
+
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+            glBindVertexArray(0);
+            shaderSolidColorInstanced.unbind();
+        }
+    }
+
+    /**
+     * Uploads a mesh for instanced drawing, once. The vertices and indices never change, and the copies are read from
+     * a buffer of their own, advancing once per copy rather than once per vertex.
+     */
+    private void uploadMesh(MeshInstances instances) {
+        instances.vaoId = glGenVertexArrays();
+        glBindVertexArray(instances.vaoId);
+
+        instances.vboPositions = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, instances.vboPositions);
+        glBufferData(GL_ARRAY_BUFFER, instances.mesh.getPositions(), GL_STATIC_DRAW);
+        glEnableVertexAttribArray(0);
+        glVertexAttribPointer(0, 2, GL_FLOAT, false, 0, 0);
+
+        int stride = MeshInstances.INSTANCE_BYTES;
+        instances.vboInstances = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, instances.vboInstances);
+        // x, y, z and rotation
+        glEnableVertexAttribArray(1);
+        glVertexAttribPointer(1, 4, GL_FLOAT, false, stride, 0);
+        glVertexAttribDivisor(1, 1);
+        // scale
+        glEnableVertexAttribArray(2);
+        glVertexAttribPointer(2, 2, GL_FLOAT, false, stride, 4 * Float.BYTES);
+        glVertexAttribDivisor(2, 1);
+        // color, packed as four normalized bytes
+        glEnableVertexAttribArray(3);
+        glVertexAttribPointer(3, 4, GL_UNSIGNED_BYTE, true, stride, 6 * Float.BYTES);
+        glVertexAttribDivisor(3, 1);
+
+        instances.vboIndices = glGenBuffers();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, instances.vboIndices);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, instances.mesh.getIndices(), GL_STATIC_DRAW);
+
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+        uploadedInstances.add(instances);
+    }
+
+    private void renderMeshesSolidColor(List<RenderQueue.RenderSolidMeshOperation> meshes) {
+        if (!meshes.isEmpty()) {
+            Graphics2DUtils.BuffersColor buffersSolidColor = Graphics2DUtils.prepareMeshesSolidColorBuffers(meshes, buffersColor);
+            if (headless) return;
+            int bufferId = bufferManager.getSolidColorBuffer(buffersSolidColor.vertexCount, buffersSolidColor.indexCount);
+            bufferManager.updateSolidColorBuffer(bufferId, buffersSolidColor);
+
+            bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId);
+            shaderSolidColor.bind();
+
+            try (var stack = MemoryStack.stackPush()) {
+                var matrixBuffer = stack.mallocFloat(16);
+                mProjection.get(matrixBuffer);
+                glUniformMatrix4fv(uniformSolidColorProjectionLocation, false, matrixBuffer);
+                // the transforms are already applied to the vertices, so the whole pass is a single draw call
+                mModelIdentity.get(matrixBuffer);
+                glUniformMatrix4fv(uniformSolidColorModelLocation, false, matrixBuffer);
+                bufferManager.drawElements(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId, GL_TRIANGLES, buffersSolidColor.indexCount, 0);
+            }
+
             shaderSolidColor.unbind();
             bufferManager.unbindBuffer();
             bufferManager.releaseBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId);
@@ -713,9 +909,10 @@ public class Graphics2D  implements AutoCloseable {
 
     private void renderTrianglesSolidColor(List<RenderQueue.RenderSolidTriangleOperation> triangles) {
         if (!triangles.isEmpty()) {
-            Graphics2DUtils.BuffersColor buffersSolidColor = Graphics2DUtils.prepareTrisSolidColorBuffers(triangles);
-            int bufferId = bufferManager.getSolidColorBuffer(buffersSolidColor.positions.length / 3, buffersSolidColor.indices.length);
-            bufferManager.updateSolidColorBuffer(bufferId, buffersSolidColor.positions, buffersSolidColor.colors, buffersSolidColor.indices);
+            Graphics2DUtils.BuffersColor buffersSolidColor = Graphics2DUtils.prepareTrisSolidColorBuffers(triangles, buffersColor);
+            if (headless) return;
+            int bufferId = bufferManager.getSolidColorBuffer(buffersSolidColor.vertexCount, buffersSolidColor.indexCount);
+            bufferManager.updateSolidColorBuffer(bufferId, buffersSolidColor);
 
             bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId);
             shaderSolidColor.bind();
@@ -724,14 +921,10 @@ public class Graphics2D  implements AutoCloseable {
                 var matrixBuffer = stack.mallocFloat(16);
                 mProjection.get(matrixBuffer);
                 glUniformMatrix4fv(uniformSolidColorProjectionLocation, false, matrixBuffer);
-
-                for (int i = 0; i < triangles.size(); i++) {
-                    var op = triangles.get(i);
-                    Matrix4f modelMatrix = op.getTransform();
-                    modelMatrix.get(matrixBuffer);
-                    glUniformMatrix4fv(uniformSolidColorModelLocation, false, matrixBuffer);
-                    glDrawElements(GL_TRIANGLES, 3, GL_UNSIGNED_INT, i * 3 * Integer.BYTES);
-                }
+                // the transforms are already applied to the vertices, so the whole pass is a single draw call
+                mModelIdentity.get(matrixBuffer);
+                glUniformMatrix4fv(uniformSolidColorModelLocation, false, matrixBuffer);
+                bufferManager.drawElements(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId, GL_TRIANGLES, buffersSolidColor.indexCount, 0);
             }
 
             shaderSolidColor.unbind();
@@ -742,9 +935,10 @@ public class Graphics2D  implements AutoCloseable {
 
     private void renderLines(List<RenderQueue.RenderLineOperation> linex) {
         if (!linex.isEmpty()) {
-            Graphics2DUtils.BuffersColor buffersLines = Graphics2DUtils.prepareLinesColorBuffers(linex);
-            int bufferId = bufferManager.getSolidColorBuffer(buffersLines.positions.length / 3, buffersLines.indices.length);
-            bufferManager.updateSolidColorBuffer(bufferId, buffersLines.positions, buffersLines.colors, buffersLines.indices);
+            Graphics2DUtils.BuffersColor buffersLines = Graphics2DUtils.prepareLinesColorBuffers(linex, buffersColor);
+            if (headless) return;
+            int bufferId = bufferManager.getSolidColorBuffer(buffersLines.vertexCount, buffersLines.indexCount);
+            bufferManager.updateSolidColorBuffer(bufferId, buffersLines);
 
             bufferManager.bindBuffer(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId);
             shaderSolidColor.bind();
@@ -757,7 +951,7 @@ public class Graphics2D  implements AutoCloseable {
                 glUniformMatrix4fv(uniformSolidColorModelLocation, false, matrixBuffer);
 
                 glLineWidth(1.5f);
-                glDrawElements(GL_LINES, linex.size() * 2, GL_UNSIGNED_INT, 0);
+                bufferManager.drawElements(BufferManager.BUFFER_TYPE_SOLID_COLOR, bufferId, GL_LINES, linex.size() * 2, 0);
             }
 
             shaderSolidColor.unbind();
@@ -23,64 +23,158 @@ package edu.usu.graphics;
 
 import edu.usu.graphics.objects.Rectangle;
 import edu.usu.graphics.objects.Triangle;
+import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 
+import java.nio.ByteOrder;
 import java.util.List;
 
 public class Graphics2DUtils {
 
+    // Every solid color vertex is VERTEX_INTS ints, interleaved in one array and uploaded to one buffer: the x, y and
+    // z of its position as float bits, then its color packed as normalized RGBA8. That is 16 bytes a vertex.
+    public static final int VERTEX_INTS = 4;
+    public static final int VERTEX_BYTES = VERTEX_INTS * Integer.BYTES;
+    // Textured vertices, for images and text, have the same position, then their texture coordinates packed as two
+    // unorm16s, then their tint packed as normalized RGBA8, so the tint's alpha reaches blending as well. That is 20
+    // bytes a vertex.
+    public static final int TEXTURED_VERTEX_INTS = 5;
+    public static final int TEXTURED_VERTEX_BYTES = TEXTURED_VERTEX_INTS * Integer.BYTES;
+
+    // The packed ints are uploaded in the native byte order, while GL reads the color's bytes in memory order
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    // The arrays are reused from frame to frame and only grow, so only the first vertexCount vertices and
+    // indexCount indices are valid.
     public static class BuffersColor {
-        public BuffersColor(float[] positions, float[] colors, int[] indices) {
-            this.positions = positions;
-            this.colors = colors;
+        public BuffersColor() {
+            this(new int[0], new int[0]);
+        }
+
+        public BuffersColor(int[] vertices, int[] indices) {
+            this.vertices = vertices;
             this.indices = indices;
+            this.vertexCount = vertices.length / VERTEX_INTS;
+            this.indexCount = indices.length;
         }
 
-        public float[] positions;
-        public float[] colors;
+        public int[] vertices;
         public int[] indices;
+        public int vertexCount;
+        public int indexCount;
+
+        void prepare(int vertexCount, int indexCount) {
+            if (vertices.length < vertexCount * VERTEX_INTS) {
+                int capacity = Math.max(vertexCount, vertices.length / VERTEX_INTS * 2);
+                vertices = new int[capacity * VERTEX_INTS];
+            }
+            if (indices.length < indexCount) {
+                indices = new int[Math.max(indexCount, indices.length * 2)];
+            }
+            this.vertexCount = vertexCount;
+            this.indexCount = indexCount;
+        }
     }
 
     public static class BuffersTexture {
-        public BuffersTexture(float[] positions, float[] coords, int[] indices) {
-            this.positions = positions;
-            this.coords = coords;
+        public BuffersTexture() {
+            this(new int[0], new int[0]);
+        }
+
+        public BuffersTexture(int[] vertices, int[] indices) {
+            this.vertices = vertices;
             this.indices = indices;
+            this.vertexCount = vertices.length / TEXTURED_VERTEX_INTS;
+            this.indexCount = indices.length;
         }
 
-        public float[] positions;
-        public float[] coords;
+        public int[] vertices;
         public int[] indices;
+        public int vertexCount;
+        public int indexCount;
+
+        void prepare(int vertexCount, int indexCount) {
+            if (vertices.length < vertexCount * TEXTURED_VERTEX_INTS) {
+                int capacity = Math.max(vertexCount, vertices.length / TEXTURED_VERTEX_INTS * 2);
+                vertices = new int[capacity * TEXTURED_VERTEX_INTS];
+            }
+            if (indices.length < indexCount) {
+                indices = new int[Math.max(indexCount, indices.length * 2)];
+            }
+            this.vertexCount = vertexCount;
+            this.indexCount = indexCount;
+        }
+    }
+
+    /** packs a color into four normalized bytes, red first in memory, keeping its alpha */
+    static int packColor(Color color) {
+        int packed = unorm8(color.r) | unorm8(color.g) << 8 | unorm8(color.b) << 16 | unorm8(color.a) << 24;
+        return LITTLE_ENDIAN ? packed : Integer.reverseBytes(packed);
+    }
+
+    /** packs texture coordinates into two normalized unsigned shorts, u first in memory, clamped to the texture */
+    static int packTexCoords(float u, float v) {
+        return LITTLE_ENDIAN ? unorm16(u) | unorm16(v) << 16 : unorm16(u) << 16 | unorm16(v);
     }
 
-    public static BuffersColor prepareLinesColorBuffers(List<RenderQueue.RenderLineOperation> operations) {
-        float[] positions = new float[operations.size() * 6];
-        float[] colors = new float[operations.size() * 6];
-        int[] indices = new int[operations.size() * 2];
+    private static int unorm8(float value) {
+        return (int) (Math.min(Math.max(value, 0.0f), 1.0f) * 255.0f + 0.5f);
+    }
+
+    private static int unorm16(float value) {
+        return (int) (Math.min(Math.max(value, 0.0f), 1.0f) * 65535.0f + 0.5f);
+    }
+
+    /** writes the vertex (x, y, z) and its packed color into the vertices */
+    static void put(int[] vertices, int vIndex, float x, float y, float z, int packed) {
+        vertices[vIndex * VERTEX_INTS + 0] = Float.floatToRawIntBits(x);
+        vertices[vIndex * VERTEX_INTS + 1] = Float.floatToRawIntBits(y);
+        vertices[vIndex * VERTEX_INTS + 2] = Float.floatToRawIntBits(z);
+        vertices[vIndex * VERTEX_INTS + 3] = packed;
+    }
+
+    /**
+     * Writes the vertex (x, y, z), moved by the operation's transform, into the vertices. The transforms are applied
+     * here rather than in the shader, so a whole pass can be drawn with the identity model matrix in one call.
+     */
+    private static void put(int[] vertices, int vIndex, Matrix4f transform, float x, float y, float z, int packed) {
+        put(vertices, vIndex,
+                transform.m00() * x + transform.m10() * y + transform.m20() * z + transform.m30(),
+                transform.m01() * x + transform.m11() * y + transform.m21() * z + transform.m31(),
+                transform.m02() * x + transform.m12() * y + transform.m22() * z + transform.m32(),
+                packed);
+    }
+
+    /**
+     * Writes the textured vertex (x, y, z), moved by the operation's transform, and its packed texture coordinates
+     * and tint into the vertices
+     */
+    private static void putTextured(int[] vertices, int vIndex, Matrix4f transform, float x, float y, float z, int texCoords, int tint) {
+        int first = vIndex * TEXTURED_VERTEX_INTS;
+        vertices[first + 0] = Float.floatToRawIntBits(transform.m00() * x + transform.m10() * y + transform.m20() * z + transform.m30());
+        vertices[first + 1] = Float.floatToRawIntBits(transform.m01() * x + transform.m11() * y + transform.m21() * z + transform.m31());
+        vertices[first + 2] = Float.floatToRawIntBits(transform.m02() * x + transform.m12() * y + transform.m22() * z + transform.m32());
+        vertices[first + 3] = texCoords;
+        vertices[first + 4] = tint;
+    }
+
+    public static BuffersColor prepareLinesColorBuffers(List<RenderQueue.RenderLineOperation> operations, BuffersColor buffers) {
+        buffers.prepare(operations.size() * 2, operations.size() * 2);
+        int[] vertices = buffers.vertices;
+        int[] indices = buffers.indices;
 
         int rIndex = 0;
         int iIndex = 0;
-        for (var op : operations) {
+        for (int opIndex = 0; opIndex < operations.size(); opIndex++) {
+            var op = operations.get(opIndex);
             Vector3f start = op.getStart();
             Vector3f end = op.getEnd();
             Color color = op.getColor();
 
-            positions[rIndex * 3 + 0] = start.x;
-            positions[rIndex * 3 + 1] = start.y;
-            positions[rIndex * 3 + 2] = start.z;
-
-            positions[rIndex * 3 + 3] = end.x;
-            positions[rIndex * 3 + 4] = end.y;
-            positions[rIndex * 3 + 5] = end.z;
-
-            colors[rIndex * 3 + 0] = color.r;
-            colors[rIndex * 3 + 1] = color.g;
-            colors[rIndex * 3 + 2] = color.b;
-
-            colors[rIndex * 3 + 3] = color.r;
-            colors[rIndex * 3 + 4] = color.g;
-            colors[rIndex * 3 + 5] = color.b;
+            int packed = packColor(color);
+            put(vertices, rIndex, start.x, start.y, start.z, packed);
+            put(vertices, rIndex + 1, end.x, end.y, end.z, packed);
 
             indices[iIndex + 0] = rIndex + 0;
             indices[iIndex + 1] = rIndex + 1;
@@ -89,43 +183,26 @@ public class Graphics2DUtils {
             iIndex += 2;
         }
 
-        return new BuffersColor(positions, colors, indices);
+        return buffers;
     }
 
-    public static BuffersColor prepareTrisSolidColorBuffers(List<RenderQueue.RenderSolidTriangleOperation> operations) {
-        float[] positions = new float[operations.size() * 9];
-        float[] colors = new float[operations.size() * 9];
-        int[] indices = new int[operations.size() * 3];
+    public static BuffersColor prepareTrisSolidColorBuffers(List<RenderQueue.RenderSolidTriangleOperation> operations, BuffersColor buffers) {
+        buffers.prepare(operations.size() * 3, operations.size() * 3);
+        int[] vertices = buffers.vertices;
+        int[] indices = buffers.indices;
 
         int rIndex = 0;
         int iIndex = 0;
-        for (var op : operations) {
+        for (int opIndex = 0; opIndex < operations.size(); opIndex++) {
+            var op = operations.get(opIndex);
+            Matrix4f transform = op.getTransform();
             Triangle triangle = op.getTriangle();
             Color color = op.getColor();
 
-            positions[rIndex * 3 + 0] = triangle.pt1.x;
-            positions[rIndex * 3 + 1] = triangle.pt1.y;
-            positions[rIndex * 3 + 2] = triangle.pt1.z;
-
-            positions[rIndex * 3 + 3] = triangle.pt2.x;
-            positions[rIndex * 3 + 4] = triangle.pt2.y;
-            positions[rIndex * 3 + 5] = triangle.pt2.z;
-
-            positions[rIndex * 3 + 6] = triangle.pt3.x;
-            positions[rIndex * 3 + 7] = triangle.pt3.y;
-            positions[rIndex * 3 + 8] = triangle.pt3.z;
-
-            colors[rIndex * 3 + 0] = color.r;
-            colors[rIndex * 3 + 1] = color.g;
-            colors[rIndex * 3 + 2] = color.b;
-
-            colors[rIndex * 3 + 3] = color.r;
-            colors[rIndex * 3 + 4] = color.g;
-            colors[rIndex * 3 + 5] = color.b;
-
-            colors[rIndex * 3 + 6] = color.r;
-            colors[rIndex * 3 + 7] = color.g;
-            colors[rIndex * 3 + 8] = color.b;
+            int packed = packColor(color);
+            put(vertices, rIndex, transform, triangle.pt1.x, triangle.pt1.y, triangle.pt1.z, packed);
+            put(vertices, rIndex + 1, transform, triangle.pt2.x, triangle.pt2.y, triangle.pt2.z, packed);
+            put(vertices, rIndex + 2, transform, triangle.pt3.x, triangle.pt3.y, triangle.pt3.z, packed);
 
             indices[iIndex + 0] = rIndex + 0;
             indices[iIndex + 1] = rIndex + 1;
@@ -135,51 +212,27 @@ public class Graphics2DUtils {
             iIndex += 3;
         }
 
-        return new BuffersColor(positions, colors, indices);
+        return buffers;
     }
 
-    public static BuffersColor prepareRectsSolidColorBuffers(List<RenderQueue.RenderSolidRectangleOperation> operations) {
-        float[] positions = new float[operations.size() * 12];
-        float[] colors = new float[operations.size() * 12];
-        int[] indices = new int[operations.size() * 6];
+    public static BuffersColor prepareRectsSolidColorBuffers(List<RenderQueue.RenderSolidRectangleOperation> operations, BuffersColor buffers) {
+        buffers.prepare(operations.size() * 4, operations.size() * 6);
+        int[] vertices = buffers.vertices;
+        int[] indices = buffers.indices;
 
         int rIndex = 0;
         int iIndex = 0;
-        for (var op : operations) {
+        for (int opIndex = 0; opIndex < operations.size(); opIndex++) {
+            var op = operations.get(opIndex);
+            Matrix4f transform = op.getTransform();
             Rectangle rect = op.getRectangle();
             Color color = op.getColor();
 
-            positions[rIndex * 3 + 0] = rect.left;
-            positions[rIndex * 3 + 1] = rect.top;
-            positions[rIndex * 3 + 2] = rect.z;
-
-            positions[rIndex * 3 + 3] = rect.left + rect.width;
-            positions[rIndex * 3 + 4] = rect.top;
-            positions[rIndex * 3 + 5] = rect.z;
-
-            positions[rIndex * 3 + 6] = rect.left + rect.width;
-            positions[rIndex * 3 + 7] = rect.top + rect.height;
-            positions[rIndex * 3 + 8] = rect.z;
-
-            positions[rIndex * 3 + 9] = rect.left;
-            positions[rIndex * 3 + 10] = rect.top + rect.height;
-            positions[rIndex * 3 + 11] = rect.z;
-
-            colors[rIndex * 3 + 0] = color.r;
-            colors[rIndex * 3 + 1] = color.g;
-            colors[rIndex * 3 + 2] = color.b;
-
-            colors[rIndex * 3 + 3] = color.r;
-            colors[rIndex * 3 + 4] = color.g;
-            colors[rIndex * 3 + 5] = color.b;
-
-            colors[rIndex * 3 + 6] = color.r;
-            colors[rIndex * 3 + 7] = color.g;
-            colors[rIndex * 3 + 8] = color.b;
-
-            colors[rIndex * 3 + 9] = color.r;
-            colors[rIndex * 3 + 10] = color.g;
-            colors[rIndex * 3 + 11] = color.b;
+            int packed = packColor(color);
+            put(vertices, rIndex, transform, rect.left, rect.top, rect.z, packed);
+            put(vertices, rIndex + 1, transform, rect.left + rect.width, rect.top, rect.z, packed);
+            put(vertices, rIndex + 2, transform, rect.left + rect.width, rect.top + rect.height, rect.z, packed);
+            put(vertices, rIndex + 3, transform, rect.left, rect.top + rect.height, rect.z, packed);
 
             indices[iIndex + 0] = rIndex + 0;
             indices[iIndex + 1] = rIndex + 1;
@@ -193,66 +246,34 @@ public class Graphics2DUtils {
             iIndex += 6;
         }
 
-        return new BuffersColor(positions, colors, indices);
+        return buffers;
     }
 
-    public static BuffersTexture prepareRectsTextureBuffers(List<RenderQueue.RenderTexturedRectangleOperation> operations) {
-        float[] positions = new float[operations.size() * 12];
-        float[] coords = new float[operations.size() * 8];
-        int[] indices = new int[operations.size() * 6];
+    public static BuffersTexture prepareRectsTextureBuffers(List<RenderQueue.RenderTexturedRectangleOperation> operations, BuffersTexture buffers) {
+        buffers.prepare(operations.size() * 4, operations.size() * 6);
+        int[] vertices = buffers.vertices;
+        int[] indices = buffers.indices;
 
         int rIndex = 0;
         int iIndex = 0;
-        for (var op : operations) {
+        for (int opIndex = 0; opIndex < operations.size(); opIndex++) {
+            var op = operations.get(opIndex);
+            Matrix4f transform = op.getTransform();
             Texture texture = op.getTexture();
             Rectangle rect = op.getDestination();
             Rectangle subImage = op.getSubImage();
 
-            positions[rIndex * 3 + 0] = rect.left;
-            positions[rIndex * 3 + 1] = rect.top;
-            positions[rIndex * 3 + 2] = rect.z;
+            // Convert pixel coordinates to texture coordinates, which places them within the texture's atlas region if it has one
+            float left = subImage != null ? subImage.left : 0.0f;
+            float top = subImage != null ? subImage.top : 0.0f;
+            float right = subImage != null ? subImage.left + subImage.width : texture.getWidth();
+            float bottom = subImage != null ? subImage.top + subImage.height : texture.getHeight();
+            int tint = packColor(op.getColor());
 
-            positions[rIndex * 3 + 3] = rect.left + rect.width;
-            positions[rIndex * 3 + 4] = rect.top;
-            positions[rIndex * 3 + 5] = rect.z;
-
-            positions[rIndex * 3 + 6] = rect.left + rect.width;
-            positions[rIndex * 3 + 7] = rect.top + rect.height;
-            positions[rIndex * 3 + 8] = rect.z;
-
-            positions[rIndex * 3 + 9] = rect.left;
-            positions[rIndex * 3 + 10] = rect.top + rect.height;
-            positions[rIndex * 3 + 11] = rect.z;
-
-            // Convert pixel coordinates to texture coordinates
-            float texWidth = texture.getWidth();
-            float texHeight = texture.getHeight();
-
-            if (subImage != null) {
-                coords[rIndex * 2 + 0] = subImage.left / texWidth;
-                coords[rIndex * 2 + 1] = subImage.top / texHeight;
-
-                coords[rIndex * 2 + 2] = (subImage.left + subImage.width) / texWidth;
-                coords[rIndex * 2 + 3] = subImage.top / texHeight;
-
-                coords[rIndex * 2 + 4] = (subImage.left + subImage.width) / texWidth;
-                coords[rIndex * 2 + 5] = (subImage.top + subImage.height) / texHeight;
-
-                coords[rIndex * 2 + 6] = subImage.left / texWidth;
-                coords[rIndex * 2 + 7] = (subImage.top + subImage.height) / texHeight;
-            } else {
-                coords[rIndex * 2 + 0] = 0.0f;
-                coords[rIndex * 2 + 1] = 0.0f;
-
-                coords[rIndex * 2 + 2] = 1.0f;
-                coords[rIndex * 2 + 3] = 0.0f;
-
-                coords[rIndex * 2 + 4] = 1.0f;
-                coords[rIndex * 2 + 5] = 1.0f;
-
-                coords[rIndex * 2 + 6] = 0.0f;
-                coords[rIndex * 2 + 7] = 1.0f;
-            }
+            putTextured(vertices, rIndex, transform, rect.left, rect.top, rect.z, packTexCoords(texture.u(left), texture.v(top)), tint);
+            putTextured(vertices, rIndex + 1, transform, rect.left + rect.width, rect.top, rect.z, packTexCoords(texture.u(right), texture.v(top)), tint);
+            putTextured(vertices, rIndex + 2, transform, rect.left + rect.width, rect.top + rect.height, rect.z, packTexCoords(texture.u(right), texture.v(bottom)), tint);
+            putTextured(vertices, rIndex + 3, transform, rect.left, rect.top + rect.height, rect.z, packTexCoords(texture.u(left), texture.v(bottom)), tint);
 
             indices[iIndex + 0] = rIndex + 0;
             indices[iIndex + 1] = rIndex + 1;
@@ -266,40 +287,33 @@ public class Graphics2DUtils {
             iIndex += 6;
         }
 
-        return new BuffersTexture(positions, coords, indices);
+        return buffers;
     }
 
-    public static BuffersTexture prepareTrianglesTextureBuffers(List<RenderQueue.RenderTexturedTriangleOperation> operations) {
-        float[] positions = new float[operations.size() * 9];
-        float[] coords = new float[operations.size() * 6];
-        int[] indices = new int[operations.size() * 3];
+    public static BuffersTexture prepareTrianglesTextureBuffers(List<RenderQueue.RenderTexturedTriangleOperation> operations, BuffersTexture buffers) {
+        buffers.prepare(operations.size() * 3, operations.size() * 3);
+        int[] vertices = buffers.vertices;
+        int[] indices = buffers.indices;
 
         int tIndex = 0;
         int iIndex = 0;
-        for (var op : operations) {
+        for (int opIndex = 0; opIndex < operations.size(); opIndex++) {
+            var op = operations.get(opIndex);
+            Matrix4f transform = op.getTransform();
             Triangle triangle = op.getTriangle();
             TriangleTexCoords texCoords = op.getTexCoords();
+            Texture texture = op.getTexture();
+            float texWidth = texture.getWidth();
+            float texHeight = texture.getHeight();
+            int tint = packColor(op.getColor());
 
-            positions[tIndex * 3 + 0] = triangle.pt1.x;
-            positions[tIndex * 3 + 1] = triangle.pt1.y;
-            positions[tIndex * 3 + 2] = triangle.pt1.z;
-
-            positions[tIndex * 3 + 3] = triangle.pt2.x;
-            positions[tIndex * 3 + 4] = triangle.pt2.y;
-            positions[tIndex * 3 + 5] = triangle.pt2.z;
-
-            positions[tIndex * 3 + 6] = triangle.pt3.x;
-            positions[tIndex * 3 + 7] = triangle.pt3.y;
-            positions[tIndex * 3 + 8] = triangle.pt3.z;
-
-            coords[tIndex * 2 + 0] = texCoords.pt1.x;
-            coords[tIndex * 2 + 1] = texCoords.pt1.y;
-
-            coords[tIndex * 2 + 2] = texCoords.pt2.x;
-            coords[tIndex * 2 + 3] = texCoords.pt2.y;
-
-            coords[tIndex * 2 + 4] = texCoords.pt3.x;
-            coords[tIndex * 2 + 5] = texCoords.pt3.y;
+            // the texture coordinates are for the whole image, so scale them into the texture's atlas region
+            putTextured(vertices, tIndex, transform, triangle.pt1.x, triangle.pt1.y, triangle.pt1.z,
+                    packTexCoords(texture.u(texCoords.pt1.x * texWidth), texture.v(texCoords.pt1.y * texHeight)), tint);
+            putTextured(vertices, tIndex + 1, transform, triangle.pt2.x, triangle.pt2.y, triangle.pt2.z,
+                    packTexCoords(texture.u(texCoords.pt2.x * texWidth), texture.v(texCoords.pt2.y * texHeight)), tint);
+            putTextured(vertices, tIndex + 2, transform, triangle.pt3.x, triangle.pt3.y, triangle.pt3.z,
+                    packTexCoords(texture.u(texCoords.pt3.x * texWidth), texture.v(texCoords.pt3.y * texHeight)), tint);
 
             indices[iIndex + 0] = tIndex + 0;
             indices[iIndex + 1] = tIndex + 1;
@@ -309,50 +323,30 @@ public class Graphics2DUtils {
             iIndex += 3;
         }
 
-        return new BuffersTexture(positions, coords, indices);
+        return buffers;
     }
 
-    public static BuffersTexture prepareTextGlyphBuffers(List<RenderQueue.RenderTextGlyphOperation> operations) {
-        float[] positions = new float[operations.size() * 12];
-        float[] coords = new float[operations.size() * 8];
-        int[] indices = new int[operations.size() * 6];
+    public static BuffersTexture prepareTextGlyphBuffers(List<RenderQueue.RenderTextGlyphOperation> operations, BuffersTexture buffers) {
+        buffers.prepare(operations.size() * 4, operations.size() * 6);
+        int[] vertices = buffers.vertices;
+        int[] indices = buffers.indices;
 
         int rIndex = 0;
         int iIndex = 0;
-        for (var op : operations) {
+        for (int opIndex = 0; opIndex < operations.size(); opIndex++) {
+            var op = operations.get(opIndex);
+            Matrix4f transform = op.getTransform();
             Rectangle rect = op.getDestination();
             Vector2f p1 = op.getP1();
             Vector2f p2 = op.getP2();
             Vector2f p3 = op.getP3();
             Vector2f p4 = op.getP4();
+            int tint = packColor(op.getColor());
 
-            positions[rIndex * 3 + 0] = rect.left;
-            positions[rIndex * 3 + 1] = rect.top;
-            positions[rIndex * 3 + 2] = rect.z;
-
-            positions[rIndex * 3 + 3] = rect.left + rect.width;
-            positions[rIndex * 3 + 4] = rect.top;
-            positions[rIndex * 3 + 5] = rect.z;
-
-            positions[rIndex * 3 + 6] = rect.left + rect.width;
-            positions[rIndex * 3 + 7] = rect.top + rect.height;
-            positions[rIndex * 3 + 8] = rect.z;
-
-            positions[rIndex * 3 + 9] = rect.left;
-            positions[rIndex * 3 + 10] = rect.top + rect.height;
-            positions[rIndex * 3 + 11] = rect.z;
-
-            coords[rIndex * 2 + 0] = p1.x;
-            coords[rIndex * 2 + 1] = p1.y;
-
-            coords[rIndex * 2 + 2] = p2.x;
-            coords[rIndex * 2 + 3] = p2.y;
-
-            coords[rIndex * 2 + 4] = p3.x;
-            coords[rIndex * 2 + 5] = p3.y;
-
-            coords[rIndex * 2 + 6] = p4.x;
-            coords[rIndex * 2 + 7] = p4.y;
+            putTextured(vertices, rIndex, transform, rect.left, rect.top, rect.z, packTexCoords(p1.x, p1.y), tint);
+            putTextured(vertices, rIndex + 1, transform, rect.left + rect.width, rect.top, rect.z, packTexCoords(p2.x, p2.y), tint);
+            putTextured(vertices, rIndex + 2, transform, rect.left + rect.width, rect.top + rect.height, rect.z, packTexCoords(p3.x, p3.y), tint);
+            putTextured(vertices, rIndex + 3, transform, rect.left, rect.top + rect.height, rect.z, packTexCoords(p4.x, p4.y), tint);
 
             indices[iIndex + 0] = rIndex + 0;
             indices[iIndex + 1] = rIndex + 1;
@@ -366,6 +360,44 @@ public class Graphics2DUtils {
             iIndex += 6;
         }
 
-        return new BuffersTexture(positions, coords, indices);
+        return buffers;
+    }
+
+    public static BuffersColor prepareMeshesSolidColorBuffers(List<RenderQueue.RenderSolidMeshOperation> operations, BuffersColor buffers) {
+        int vertexCount = 0;
+        int indexCount = 0;
+        for (int opIndex = 0; opIndex < operations.size(); opIndex++) {
+            Mesh mesh = operations.get(opIndex).getMesh();
+            vertexCount += mesh.getVertexCount();
+            indexCount += mesh.getIndexCount();
+        }
+        buffers.prepare(vertexCount, indexCount);
+        int[] vertices = buffers.vertices;
+        int[] indices = buffers.indices;
+
+        int vIndex = 0;
+        int iIndex = 0;
+        for (int opIndex = 0; opIndex < operations.size(); opIndex++) {
+            var op = operations.get(opIndex);
+            Matrix4f transform = op.getTransform();
+            Mesh mesh = op.getMesh();
+            Color color = op.getColor();
+            float[] meshPositions = mesh.getPositions();
+            int[] meshIndices = mesh.getIndices();
+
+            int packed = packColor(color);
+            for (int v = 0; v < mesh.getVertexCount(); v++) {
+                put(vertices, vIndex + v, transform, meshPositions[v * 2 + 0], meshPositions[v * 2 + 1], 0.0f, packed);
+            }
+
+            for (int i = 0; i < meshIndices.length; i++) {
+                indices[iIndex + i] = vIndex + meshIndices[i];
+            }
+
+            vIndex += mesh.getVertexCount();
+            iIndex += meshIndices.length;
+        }
+
+        return buffers;
     }
 }
@@ -0,0 +1,73 @@
+package edu.usu.graphics;
+
+import java.util.Arrays;
+
+/**
+ * Solid color line strips that are rebuilt every frame, such as the trails of moving bodies. Every strip goes into the
+ * same vertex stream, with a restart index between one strip and the next, so drawing them all is a single draw call
+ * however many strips there are. The arrays only grow, so once they are big enough rebuilding allocates nothing.
+ */
+public class LineStrips {
+    // ends one strip and starts the next, the largest unsigned int so it can't be mistaken for a vertex
+    static final int RESTART_INDEX = 0xFFFFFFFF;
+
+    final Graphics2DUtils.BuffersColor buffers = new Graphics2DUtils.BuffersColor();
+    private int stripCount = 0;
+    // the current strip's color, packed as it is stored in every vertex
+    private int color = Graphics2DUtils.packColor(Color.WHITE);
+
+    /** removes every strip, to be added again */
+    public void clear() {
+        buffers.vertexCount = 0;
+        buffers.indexCount = 0;
+        stripCount = 0;
+    }
+
+    /** makes room for this many points in this many strips, so adding them doesn't have to grow the arrays */
+    public void reserve(int vertexCount, int stripCount) {
+        ensureCapacity(vertexCount, vertexCount + stripCount);
+    }
+
+    /** starts a new strip, which the points added after this are joined into, in the given color */
+    public void begin(Color color) {
+        this.color = Graphics2DUtils.packColor(color);
+        if (stripCount > 0) {
+            ensureCapacity(buffers.vertexCount, buffers.indexCount + 1);
+            buffers.indices[buffers.indexCount++] = RESTART_INDEX;
+        }
+        stripCount++;
+    }
+
+    /** adds a point to the end of the current strip, at the depth z */
+    public void add(float x, float y, float z) {
+        int vIndex = buffers.vertexCount;
+        ensureCapacity(vIndex + 1, buffers.indexCount + 1);
+        Graphics2DUtils.put(buffers.vertices, vIndex, x, y, z, color);
+
+        buffers.indices[buffers.indexCount++] = vIndex;
+        buffers.vertexCount++;
+    }
+
+    public boolean isEmpty() {
+        return buffers.vertexCount < 2;
+    }
+
+    public int getVertexCount() {
+        return buffers.vertexCount;
+    }
+
+    public int getStripCount() {
+        return stripCount;
+    }
+
+    /** grows the vertex arrays, keeping what has already been added */
+    private void ensureCapacity(int vertexCount, int indexCount) {
+        if (buffers.vertices.length < vertexCount * Graphics2DUtils.VERTEX_INTS) {
+            int capacity = Math.max(vertexCount, buffers.vertices.length / Graphics2DUtils.VERTEX_INTS * 2);
+            buffers.vertices = Arrays.copyOf(buffers.vertices, capacity * Graphics2DUtils.VERTEX_INTS);
+        }
+        if (buffers.indices.length < indexCount) {
+            buffers.indices = Arrays.copyOf(buffers.indices, Math.max(indexCount, buffers.indices.length * 2));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package edu.usu.graphics;
+
+/**
+ * A convex shape tessellated once in its own local space. The vertices are (x, y) pairs around the origin and are
+ * placed on the screen by the transform passed to Graphics2D.draw, so the same mesh can be drawn at any position,
+ * rotation and scale, and shared by every shape with the same geometry. Shapes that share one can draw it with
+ * Graphics2D.drawInstance instead, so every copy is a single draw call.
+ */
+public class Mesh {
+    private final float[] positions;
+    private final int[] indices;
+    // the copies of this mesh drawn instanced this frame, made the first time it is (see Graphics2D.drawInstance)
+    MeshInstances instances;
+
+    public Mesh(float[] positions, int[] indices) {
+        this.positions = positions;
+        this.indices = indices;
+    }
+
+    /**
+     * Creates a mesh from the outline of a convex shape, given as (x, y) pairs in order around the shape. The outline
+     * is split into a fan of triangles from its first vertex.
+     */
+    public static Mesh fromConvexOutline(float[] outline) {
+        int vertexCount = outline.length / 2;
+        int[] indices = new int[Math.max(vertexCount - 2, 0) * 3];
+        for (int i = 0; i < vertexCount - 2; i++) {
+            indices[i * 3 + 0] = 0;
+            indices[i * 3 + 1] = i + 1;
+            indices[i * 3 + 2] = i + 2;
+        }
+        return new Mesh(outline.clone(), indices);
+    }
+
+    /** the (x, y) pairs of the vertices, which must not be modified */
+    public float[] getPositions() {
+        return positions;
+    }
+
+    /** the vertex indices, three per triangle, which must not be modified */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public int getVertexCount() {
+        return positions.length / 2;
+    }
+
+    public int getIndexCount() {
+        return indices.length;
+    }
+}
@@ -0,0 +1,76 @@
+package edu.usu.graphics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tessellates meshes for common shapes and shares them between every shape with identical geometry, such as the
+ * balls on a billiards table. Meshes are only built the first time their geometry is asked for, so callers should
+ * hold on to the mesh they get back rather than looking it up every frame.
+ */
+public class MeshCache {
+    // the largest distance, in pixels, a circle's edge may sit inside the true circle
+    private static final float CIRCLE_TOLERANCE = 0.25f;
+    private static final int MIN_CIRCLE_SEGMENTS = 8;
+    private static final int MAX_CIRCLE_SEGMENTS = 128;
+
+    private record CircleKey(float radius, int segments) {}
+    private record RectangleKey(float width, float height) {}
+    private record PolygonKey(List<Float> outline) {}
+
+    private final Map<Object, Mesh> meshes = new HashMap<>();
+
+    /**
+     * The number of segments a circle needs to look round at the given on-screen radius in pixels. The count is
+     * rounded up to a multiple of 4, so circles of slightly different sizes still share a mesh.
+     */
+    public static int circleSegments(float screenRadius) {
+        if (screenRadius <= CIRCLE_TOLERANCE) {
+            return MIN_CIRCLE_SEGMENTS;
+        }
+        // each segment may span an angle whose sagitta is within the tolerance
+        double segmentAngle = 2.0 * Math.acos(1.0 - CIRCLE_TOLERANCE / screenRadius);
+        int segments = (int) Math.ceil(2.0 * Math.PI / segmentAngle);
+        segments = (segments + 3) / 4 * 4;
+        return Math.clamp(segments, MIN_CIRCLE_SEGMENTS, MAX_CIRCLE_SEGMENTS);
+    }
+
+    /** a circle centered on the origin */
+    public Mesh circle(float radius, int segments) {
+        return meshes.computeIfAbsent(new CircleKey(radius, segments), key -> {
+            float[] outline = new float[segments * 2];
+            for (int i = 0; i < segments; i++) {
+                double angle = 2.0 * Math.PI / segments * i;
+                outline[i * 2 + 0] = radius * (float) Math.cos(angle);
+                outline[i * 2 + 1] = radius * (float) Math.sin(angle);
+            }
+            return Mesh.fromConvexOutline(outline);
+        });
+    }
+
+    /** a rectangle centered on the origin */
+    public Mesh rectangle(float width, float height) {
+        return meshes.computeIfAbsent(new RectangleKey(width, height), key -> Mesh.fromConvexOutline(new float[] {
+                -width / 2, -height / 2,
+                width / 2, -height / 2,
+                width / 2, height / 2,
+                -width / 2, height / 2
+        }));
+    }
+
+    /** a convex polygon, given as (x, y) pairs in order around the outline */
+    public Mesh polygon(float[] outline) {
+        List<Float> key = new ArrayList<>(outline.length);
+        for (float value : outline) {
+            key.add(value);
+        }
+        return meshes.computeIfAbsent(new PolygonKey(key), k -> Mesh.fromConvexOutline(outline));
+    }
+
+    /** the number of distinct meshes that have been built */
+    public int size() {
+        return meshes.size();
+    }
+}
@@ -0,0 +1,44 @@
+package edu.usu.graphics;
+
+import java.util.Arrays;
+
+/**
+ * The copies of one mesh drawn in a frame, each placed by its own position, rotation and scale and drawn in its own
+ * color. The mesh itself is uploaded to the GPU once, so a frame only uploads INSTANCE_INTS ints per copy, and
+ * every copy is drawn in a single instanced draw call. Each mesh has at most one, made the first time it is drawn
+ * instanced. The array only grows, so once it is big enough adding copies allocates nothing.
+ */
+final class MeshInstances {
+    // x, y, z, rotation, scale x and scale y as float bits, then the color packed as RGBA8, like a vertex's
+    static final int INSTANCE_INTS = 7;
+    static final int INSTANCE_BYTES = INSTANCE_INTS * Integer.BYTES;
+
+    final Mesh mesh;
+    int[] instances = new int[16 * INSTANCE_INTS];
+    int count = 0;
+    // the GPU buffers holding the mesh and the copies, 0 until the first draw
+    int vaoId = 0;
+    int vboPositions = 0;
+    int vboIndices = 0;
+    int vboInstances = 0;
+
+    MeshInstances(Mesh mesh) {
+        this.mesh = mesh;
+    }
+
+    /** adds a copy rotated about the mesh's origin, then scaled, then moved so the origin is at (x, y) */
+    void add(float x, float y, float z, float rotation, float scaleX, float scaleY, Color color) {
+        int offset = count * INSTANCE_INTS;
+        if (instances.length < offset + INSTANCE_INTS) {
+            instances = Arrays.copyOf(instances, instances.length * 2);
+        }
+        instances[offset + 0] = Float.floatToRawIntBits(x);
+        instances[offset + 1] = Float.floatToRawIntBits(y);
+        instances[offset + 2] = Float.floatToRawIntBits(z);
+        instances[offset + 3] = Float.floatToRawIntBits(rotation);
+        instances[offset + 4] = Float.floatToRawIntBits(scaleX);
+        instances[offset + 5] = Float.floatToRawIntBits(scaleY);
+        instances[offset + 6] = Graphics2DUtils.packColor(color);
+        count++;
+    }
+}
@@ -6,17 +6,21 @@ import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 
-import edu.usu.utils.Tuple3;
-import edu.usu.utils.Tuple5;
-import edu.usu.utils.Tuple8;
-
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
 
 /**
  * A unified render queue system that handles sorting and batching of render operations
  * without changing the existing Graphics2D API.
+ * <p>
+ * Operations are pooled: each operation owns its geometry, transform and color, and the values passed to add()
+ * are copied into it. Once the queue has grown to the size of a typical frame, queueing, sorting and clearing
+ * allocate nothing, and callers are free to reuse the objects they pass in.
  */
 public class RenderQueue {
     // Different types of render operations
@@ -26,17 +30,19 @@ public class RenderQueue {
         TEXTURED_RECTANGLE,
         TEXTURED_TRIANGLE,
         TEXT_GLYPH,
-        LINE
+        LINE,
+        SOLID_COLOR_MESH,
+        STATIC_GEOMETRY,
+        LINE_STRIPS
     }
 
     // There is no need to include RenderOperation constructors, only the base abstract class is needed for typing
     public static abstract class RenderOperation {
         private final RenderType type;
-        private final float zOrder;
+        protected float zOrder;
 
-        protected RenderOperation(RenderType type, float zOrder) {
+        protected RenderOperation(RenderType type) {
             this.type = type;
-            this.zOrder = zOrder;
         }
 
         public float getZOrder() {
@@ -46,157 +52,458 @@ public class RenderQueue {
 
     // Specific operation class for solid color rectangles
     public static class RenderSolidRectangleOperation extends RenderOperation {
-        private final Tuple3<Rectangle, Color, Matrix4f> data;
+        private final Rectangle rectangle = new Rectangle(0, 0, 0, 0);
+        private final Matrix4f transform = new Matrix4f();
+        private Color color;
+
+        public RenderSolidRectangleOperation() {
+            super(RenderType.SOLID_COLOR_RECTANGLE);
+        }
 
-        public RenderSolidRectangleOperation(Rectangle rectangle, Color color, Matrix4f transform) {
-            super(RenderType.SOLID_COLOR_RECTANGLE, rectangle.z);
-            this.data = new Tuple3<>(rectangle, color, transform);
+        void set(Rectangle rectangle, Color color, Matrix4f transform) {
+            copy(rectangle, this.rectangle);
+            this.color = color;
+            this.transform.set(transform);
+            this.zOrder = rectangle.z;
         }
 
-        public Rectangle getRectangle() { return data.item1(); }
-        public Color getColor() { return data.item2(); }
-        public Matrix4f getTransform() { return data.item3(); }
+        public Rectangle getRectangle() { return rectangle; }
+        public Color getColor() { return color; }
+        public Matrix4f getTransform() { return transform; }
     }
 
     // Specific operation class for textured rectangles
     public static class RenderTexturedRectangleOperation extends RenderOperation {
-        private final Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f> data;
+        private final Rectangle destination = new Rectangle(0, 0, 0, 0);
+        private final Rectangle subImage = new Rectangle(0, 0, 0, 0);
+        private boolean hasSubImage;
+        private final Matrix4f transform = new Matrix4f();
+        private Color color;
+        private Texture texture;
+
+        public RenderTexturedRectangleOperation() {
+            super(RenderType.TEXTURED_RECTANGLE);
+        }
 
-        public RenderTexturedRectangleOperation(Texture texture, Rectangle destination, Rectangle subImage, Matrix4f transform, Vector3f color) {
-            super(RenderType.TEXTURED_RECTANGLE, destination.z);
-            this.data = new Tuple5<>(texture, destination, subImage, transform, color);
+        void set(Texture texture, Rectangle destination, Rectangle subImage, Matrix4f transform, Color color) {
+            this.texture = texture;
+            copy(destination, this.destination);
+            this.hasSubImage = subImage != null;
+            if (hasSubImage) copy(subImage, this.subImage);
+            this.transform.set(transform);
+            this.color = color;
+            this.zOrder = destination.z;
         }
 
-        public Texture getTexture() { return data.item1(); }
-        public Rectangle getDestination() { return data.item2(); }
-        public Rectangle getSubImage() { return data.item3(); }
-        public Matrix4f getTransform() { return data.item4(); }
-        public Vector3f getColor() { return data.item5(); }
+        public Texture getTexture() { return texture; }
+        public Rectangle getDestination() { return destination; }
+        public Rectangle getSubImage() { return hasSubImage ? subImage : null; }
+        public Matrix4f getTransform() { return transform; }
+        public Color getColor() { return color; }
     }
 
     // Specific operation class for text glyphs
     public static class RenderTextGlyphOperation extends RenderOperation {
-        private final Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f> data;
+        private final Rectangle destination = new Rectangle(0, 0, 0, 0);
+        private final Vector2f p1 = new Vector2f();
+        private final Vector2f p2 = new Vector2f();
+        private final Vector2f p3 = new Vector2f();
+        private final Vector2f p4 = new Vector2f();
+        private final Matrix4f transform = new Matrix4f();
+        private Color color;
+        private Texture texture;
+
+        public RenderTextGlyphOperation() {
+            super(RenderType.TEXT_GLYPH);
+        }
+
+        void set(Texture texture, Rectangle destination, Vector2f p1, Vector2f p2, Vector2f p3, Vector2f p4, Matrix4f transform, Color color) {
+            this.texture = texture;
+            copy(destination, this.destination);
+            this.p1.set(p1);
+            this.p2.set(p2);
+            this.p3.set(p3);
+            this.p4.set(p4);
+            this.transform.set(transform);
+            this.color = color;
+            this.zOrder = destination.z;
+        }
 
-        public RenderTextGlyphOperation(Texture texture, Rectangle destination, Vector2f p1, Vector2f p2, Vector2f p3, Vector2f p4, Matrix4f transform, Vector3f color) {
-            super(RenderType.TEXT_GLYPH, destination.z);
-            this.data = new Tuple8<>(texture, destination, p1, p2, p3, p4, transform, color);
+        // used by Font to emit a glyph without building intermediate objects; the texture coordinates are the
+        // horizontal span [u1, u2] of the glyph over the full height of the font texture
+        void set(Texture texture, float left, float top, float width, float height, float z, float u1, float u2, Matrix4f transform, Color color) {
+            this.texture = texture;
+            this.destination.left = left;
+            this.destination.top = top;
+            this.destination.width = width;
+            this.destination.height = height;
+            this.destination.z = z;
+            this.p1.set(u1, 0.0f);
+            this.p2.set(u2, 0.0f);
+            this.p3.set(u2, 1.0f);
+            this.p4.set(u1, 1.0f);
+            this.transform.set(transform);
+            this.color = color;
+            this.zOrder = z;
         }
-        
-        public Texture getTexture() { return data.item1(); }
-        public Rectangle getDestination() { return data.item2(); }
-        public Vector2f getP1() { return data.item3(); }
-        public Vector2f getP2() { return data.item4(); }
-        public Vector2f getP3() { return data.item5(); }
-        public Vector2f getP4() { return data.item6(); }
-        public Matrix4f getTransform() { return data.item7(); }
-        public Vector3f getColor() { return data.item8(); }
+
+        public Texture getTexture() { return texture; }
+        public Rectangle getDestination() { return destination; }
+        public Vector2f getP1() { return p1; }
+        public Vector2f getP2() { return p2; }
+        public Vector2f getP3() { return p3; }
+        public Vector2f getP4() { return p4; }
+        public Matrix4f getTransform() { return transform; }
+        public Color getColor() { return color; }
     }
 
     // Specific operation class for solid color triangles
     public static class RenderSolidTriangleOperation extends RenderOperation {
-        private final Tuple3<Triangle, Color, Matrix4f> data;
+        private final Triangle triangle = new Triangle(new Vector3f(), new Vector3f(), new Vector3f());
+        private final Matrix4f transform = new Matrix4f();
+        private Color color;
+
+        public RenderSolidTriangleOperation() {
+            super(RenderType.SOLID_COLOR_TRIANGLE);
+        }
 
-        public RenderSolidTriangleOperation(Triangle triangle, Color color, Matrix4f transform) {
-            super(RenderType.SOLID_COLOR_TRIANGLE, triangle.pt1.z);
-            this.data = new Tuple3<>(triangle, color, transform);
+        void set(Triangle triangle, Color color, Matrix4f transform) {
+            copy(triangle, this.triangle);
+            this.color = color;
+            this.transform.set(transform);
+            this.zOrder = triangle.pt1.z;
         }
-        
-        public Triangle getTriangle() { return data.item1(); }
-        public Color getColor() { return data.item2(); }
-        public Matrix4f getTransform() { return data.item3(); }
+
+        public Triangle getTriangle() { return triangle; }
+        public Color getColor() { return color; }
+        public Matrix4f getTransform() { return transform; }
     }
 
     // Specific operation class for textured triangles
     public static class RenderTexturedTriangleOperation extends RenderOperation {
-        private final Tuple5<Texture, Triangle, TriangleTexCoords, Matrix4f, Vector3f> data;
+        private final Triangle triangle = new Triangle(new Vector3f(), new Vector3f(), new Vector3f());
+        private final TriangleTexCoords texCoords = new TriangleTexCoords(new Vector2f(), new Vector2f(), new Vector2f());
+        private final Matrix4f transform = new Matrix4f();
+        private Color color;
+        private Texture texture;
+
+        public RenderTexturedTriangleOperation() {
+            super(RenderType.TEXTURED_TRIANGLE);
+        }
 
-        public RenderTexturedTriangleOperation(Texture texture, Triangle triangle, TriangleTexCoords texCoords, Matrix4f transform, Vector3f color) {
-            super(RenderType.TEXTURED_TRIANGLE, triangle.pt1.z);
-            this.data = new Tuple5<>(texture, triangle, texCoords, transform, color);
+        void set(Texture texture, Triangle triangle, TriangleTexCoords texCoords, Matrix4f transform, Color color) {
+            this.texture = texture;
+            copy(triangle, this.triangle);
+            this.texCoords.pt1.set(texCoords.pt1);
+            this.texCoords.pt2.set(texCoords.pt2);
+            this.texCoords.pt3.set(texCoords.pt3);
+            this.transform.set(transform);
+            this.color = color;
+            this.zOrder = triangle.pt1.z;
         }
-        
-        public Texture getTexture() { return data.item1(); }
-        public Triangle getTriangle() { return data.item2(); }
-        public TriangleTexCoords getTexCoords() { return data.item3(); }
-        public Matrix4f getTransform() { return data.item4(); }
-        public Vector3f getColor() { return data.item5(); }
+
+        public Texture getTexture() { return texture; }
+        public Triangle getTriangle() { return triangle; }
+        public TriangleTexCoords getTexCoords() { return texCoords; }
+        public Matrix4f getTransform() { return transform; }
+        public Color getColor() { return color; }
     }
 
     // Specific operation class for lines
     public static class RenderLineOperation extends RenderOperation {
-        private final Tuple3<Vector3f, Vector3f, Color> data;
+        private final Vector3f start = new Vector3f();
+        private final Vector3f end = new Vector3f();
+        private Color color;
+
+        public RenderLineOperation() {
+            super(RenderType.LINE);
+        }
+
+        void set(Vector3f start, Vector3f end, Color color) {
+            this.start.set(start);
+            this.end.set(end);
+            this.color = color;
+            this.zOrder = Math.max(start.z, end.z);
+        }
+
+        public Vector3f getStart() { return start; }
+        public Vector3f getEnd() { return end; }
+        public Color getColor() { return color; }
+    }
+
+    // Specific operation class for solid color meshes, whose vertices are placed by the transform
+    public static class RenderSolidMeshOperation extends RenderOperation {
+        private final Matrix4f transform = new Matrix4f();
+        private Mesh mesh;
+        private Color color;
+
+        public RenderSolidMeshOperation() {
+            super(RenderType.SOLID_COLOR_MESH);
+        }
+
+        void set(Mesh mesh, float z, Color color, Matrix4f transform) {
+            this.mesh = mesh;
+            this.color = color;
+            this.transform.set(transform);
+            this.zOrder = z;
+        }
+
+        public Mesh getMesh() { return mesh; }
+        public Color getColor() { return color; }
+        public Matrix4f getTransform() { return transform; }
+    }
+
+    // Specific operation class for static geometry, which is already on the GPU and only needs its transform
+    public static class RenderStaticGeometryOperation extends RenderOperation {
+        private final Matrix4f transform = new Matrix4f();
+        private StaticGeometry geometry;
+
+        public RenderStaticGeometryOperation() {
+            super(RenderType.STATIC_GEOMETRY);
+        }
+
+        void set(StaticGeometry geometry, Matrix4f transform) {
+            this.geometry = geometry;
+            this.transform.set(transform);
+            this.zOrder = 0;
+        }
+
+        public StaticGeometry getGeometry() { return geometry; }
+        public Matrix4f getTransform() { return transform; }
+    }
+
+    // Specific operation class for line strips, which are drawn together in one call
+    public static class RenderLineStripsOperation extends RenderOperation {
+        private final Matrix4f transform = new Matrix4f();
+        private LineStrips strips;
+
+        public RenderLineStripsOperation() {
+            super(RenderType.LINE_STRIPS);
+        }
+
+        void set(LineStrips strips, Matrix4f transform) {
+            this.strips = strips;
+            this.transform.set(transform);
+            this.zOrder = 0;
+        }
+
+        public LineStrips getStrips() { return strips; }
+        public Matrix4f getTransform() { return transform; }
+    }
+
+    private static void copy(Rectangle from, Rectangle to) {
+        to.left = from.left;
+        to.top = from.top;
+        to.width = from.width;
+        to.height = from.height;
+        to.z = from.z;
+    }
+
+    private static void copy(Triangle from, Triangle to) {
+        to.pt1.set(from.pt1);
+        to.pt2.set(from.pt2);
+        to.pt3.set(from.pt3);
+    }
+
+    private static final Comparator<RenderOperation> Z_ORDER = (a, b) -> Float.compare(a.zOrder, b.zOrder);
+
+    /**
+     * A list of pooled operations. Operations past the end of the list are kept around and handed out again by
+     * next(), so a frame that queues no more operations than an earlier frame allocates nothing. The list is sorted
+     * with a stable merge sort that reuses its scratch space.
+     */
+    public static final class OperationList<T extends RenderOperation> extends AbstractList<T> implements RandomAccess {
+        private final Supplier<T> factory;
+        private Object[] items = new Object[64];
+        private Object[] scratch = new Object[64];
+        private int pooled;
+        private int count;
+
+        OperationList(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        /** returns the next free operation, appending it to the list */
+        T next() {
+            if (count == pooled) {
+                if (pooled == items.length) {
+                    items = Arrays.copyOf(items, items.length * 2);
+                    scratch = new Object[items.length];
+                }
+                items[pooled++] = factory.get();
+            }
+            @SuppressWarnings("unchecked")
+            T op = (T) items[count++];
+            return op;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index >= count) throw new IndexOutOfBoundsException(index);
+            return (T) items[index];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public void clear() {
+            // the operations stay in the pool, only the count is reset
+            count = 0;
+        }
 
-        public RenderLineOperation(Vector3f start, Vector3f end, Color color) {
-            super(RenderType.LINE, Math.max(start.z, end.z));
-            this.data = new Tuple3<>(start, end, color);
+        @SuppressWarnings("unchecked")
+        void sortByZOrder() {
+            // insertion sort short runs, then merge them bottom up
+            final int run = 16;
+            for (int start = 0; start < count; start += run) {
+                int end = Math.min(start + run, count);
+                for (int i = start + 1; i < end; i++) {
+                    Object item = items[i];
+                    int j = i - 1;
+                    while (j >= start && Z_ORDER.compare((T) items[j], (T) item) > 0) {
+                        items[j + 1] = items[j];
+                        j--;
+                    }
+                    items[j + 1] = item;
+                }
+            }
+
+            Object[] from = items;
+            Object[] to = scratch;
+            for (int width = run; width < count; width *= 2) {
+                for (int left = 0; left < count; left += 2 * width) {
+                    int middle = Math.min(left + width, count);
+                    int right = Math.min(left + 2 * width, count);
+                    int i = left, j = middle, k = left;
+                    while (i < middle && j < right) {
+                        to[k++] = Z_ORDER.compare((T) from[j], (T) from[i]) < 0 ? from[j++] : from[i++];
+                    }
+                    while (i < middle) to[k++] = from[i++];
+                    while (j < right) to[k++] = from[j++];
+                }
+                Object[] swap = from;
+                from = to;
+                to = swap;
+            }
+
+            if (from != items) {
+                System.arraycopy(from, 0, items, 0, count);
+            }
         }
-        
-        public Vector3f getStart() { return data.item1(); }
-        public Vector3f getEnd() { return data.item2(); }
-        public Color getColor() { return data.item3(); }
     }
 
-    private final ArrayList<RenderSolidRectangleOperation> solidColorRectangles = new ArrayList<>();
-    private final ArrayList<RenderSolidTriangleOperation> solidColorTriangles = new ArrayList<>();
-    private final ArrayList<RenderTexturedRectangleOperation> texturedRectangles = new ArrayList<>();
-    private final ArrayList<RenderTexturedTriangleOperation> texturedTriangles = new ArrayList<>();
-    private final ArrayList<RenderTextGlyphOperation> textGlyphs = new ArrayList<>();
-    private final ArrayList<RenderLineOperation> lines = new ArrayList<>();
+    private final OperationList<RenderSolidRectangleOperation> solidColorRectangles = new OperationList<>(RenderSolidRectangleOperation::new);
+    private final OperationList<RenderSolidTriangleOperation> solidColorTriangles = new OperationList<>(RenderSolidTriangleOperation::new);
+    private final OperationList<RenderTexturedRectangleOperation> texturedRectangles = new OperationList<>(RenderTexturedRectangleOperation::new);
+    private final OperationList<RenderTexturedTriangleOperation> texturedTriangles = new OperationList<>(RenderTexturedTriangleOperation::new);
+    private final OperationList<RenderTextGlyphOperation> textGlyphs = new OperationList<>(RenderTextGlyphOperation::new);
+    private final OperationList<RenderLineOperation> lines = new OperationList<>(RenderLineOperation::new);
+    private final OperationList<RenderSolidMeshOperation> solidColorMeshes = new OperationList<>(RenderSolidMeshOperation::new);
+    private final OperationList<RenderStaticGeometryOperation> staticGeometry = new OperationList<>(RenderStaticGeometryOperation::new);
+    private final OperationList<RenderLineStripsOperation> lineStrips = new OperationList<>(RenderLineStripsOperation::new);
+    // the meshes drawn instanced this frame, each holding its own copies rather than an operation per copy
+    private final ArrayList<MeshInstances> meshInstances = new ArrayList<>();
 
     /**
      * Add a solid color rectangle operation to the queue
      */
     public void add(Rectangle rectangle, Color color, Matrix4f transform) {
-        solidColorRectangles.add(new RenderSolidRectangleOperation(rectangle, color, transform));
+        solidColorRectangles.next().set(rectangle, color, transform);
     }
 
     /**
      * Add a textured rectangle operation to the queue
      */
-    public void add(Texture texture, Rectangle destination, Rectangle subImage, Matrix4f transform, Vector3f color) {
-        texturedRectangles.add(new RenderTexturedRectangleOperation(texture, destination, subImage, transform, color));
+    public void add(Texture texture, Rectangle destination, Rectangle subImage, Matrix4f transform, Color color) {
+        texturedRectangles.next().set(texture, destination, subImage, transform, color);
     }
 
     /**
      * Add a text glyph operation to the queue
      */
-    public void add(Texture texture, Rectangle destination, Vector2f p1, Vector2f p2, Vector2f p3, Vector2f p4, Matrix4f transform, Vector3f color) {
-        textGlyphs.add(new RenderTextGlyphOperation(texture, destination, p1, p2, p3, p4, transform, color));
+    public void add(Texture texture, Rectangle destination, Vector2f p1, Vector2f p2, Vector2f p3, Vector2f p4, Matrix4f transform, Color color) {
+        textGlyphs.next().set(texture, destination, p1, p2, p3, p4, transform, color);
+    }
+
+    /**
+     * Add a text glyph operation to the queue, given the glyph's rectangle and the horizontal span of the
+     * glyph in the font texture
+     */
+    void addGlyph(Texture texture, float left, float top, float width, float height, float z, float u1, float u2, Matrix4f transform, Color color) {
+        textGlyphs.next().set(texture, left, top, width, height, z, u1, u2, transform, color);
     }
 
     /**
      * Add a solid color triangle operation to the queue
      */
     public void add(Triangle triangle, Color color, Matrix4f transform) {
-        solidColorTriangles.add(new RenderSolidTriangleOperation(triangle, color, transform));
+        solidColorTriangles.next().set(triangle, color, transform);
     }
 
     /**
      * Add a textured triangle operation to the queue
      */
-    public void add(Texture texture, Triangle triangle, TriangleTexCoords texCoords, Matrix4f transform, Vector3f color) {
-        texturedTriangles.add(new RenderTexturedTriangleOperation(texture, triangle, texCoords, transform, color));
+    public void add(Texture texture, Triangle triangle, TriangleTexCoords texCoords, Matrix4f transform, Color color) {
+        texturedTriangles.next().set(texture, triangle, texCoords, transform, color);
+    }
+
+    /**
+     * Add a solid color mesh operation to the queue, the transform taking the mesh from local space to the screen
+     */
+    public void add(Mesh mesh, float z, Color color, Matrix4f transform) {
+        solidColorMeshes.next().set(mesh, z, color, transform);
+    }
+
+    /**
+     * Add a static geometry operation to the queue, the depth of each vertex is kept in the geometry itself
+     */
+    public void add(StaticGeometry geometry, Matrix4f transform) {
+        staticGeometry.next().set(geometry, transform);
+    }
+
+    /**
+     * Add a line strips operation to the queue, the depth of each point is kept in the strips themselves
+     */
+    public void add(LineStrips strips, Matrix4f transform) {
+        lineStrips.next().set(strips, transform);
+    }
+
+    /**
+     * Add a copy of a mesh to be drawn instanced, along with every other copy of the same mesh
+     */
+    public void addInstance(Mesh mesh, float x, float y, float z, float rotation, float scaleX, float scaleY, Color color) {
+        MeshInstances instances = mesh.instances;
+        if (instances == null) {
+            instances = mesh.instances = new MeshInstances(mesh);
+        }
+        if (instances.count == 0) {
+            meshInstances.add(instances);
+        }
+        instances.add(x, y, z, rotation, scaleX, scaleY, color);
     }
 
     /**
      * Add a line operation to the queue
      */
     public void add(Vector3f start, Vector3f end, Color color) {
-        lines.add(new RenderLineOperation(start, end, color));
+        lines.next().set(start, end, color);
     }
 
     /**
      * Sort all render queues by z-order (back to front)
      */
     public void sort() {
-        Comparator<RenderOperation> zOrderComparator = Comparator.comparing(RenderOperation::getZOrder);
-        solidColorRectangles.sort(zOrderComparator);
-        solidColorTriangles.sort(zOrderComparator);
-        texturedRectangles.sort(zOrderComparator);
-        texturedTriangles.sort(zOrderComparator);
-        textGlyphs.sort(zOrderComparator);
-        lines.sort(zOrderComparator);
+        solidColorRectangles.sortByZOrder();
+        solidColorTriangles.sortByZOrder();
+        texturedRectangles.sortByZOrder();
+        texturedTriangles.sortByZOrder();
+        textGlyphs.sortByZOrder();
+        lines.sortByZOrder();
+        solidColorMeshes.sortByZOrder();
     }
 
     /**
@@ -241,6 +548,34 @@ public class RenderQueue {
         return lines;
     }
 
+    /**
+     * Get solid color mesh operations
+     */
+    public List<RenderSolidMeshOperation> getSolidMeshOperations() {
+        return solidColorMeshes;
+    }
+
+    /**
+     * Get static geometry operations
+     */
+    public List<RenderStaticGeometryOperation> getStaticGeometryOperations() {
+        return staticGeometry;
+    }
+
+    /**
+     * Get the meshes with copies to draw instanced
+     */
+    List<MeshInstances> getMeshInstances() {
+        return meshInstances;
+    }
+
+    /**
+     * Get line strips operations
+     */
+    public List<RenderLineStripsOperation> getLineStripsOperations() {
+        return lineStrips;
+    }
+
     /**
      * Clear all operations in the queue
      */
@@ -251,5 +586,12 @@ public class RenderQueue {
         texturedTriangles.clear();
         textGlyphs.clear();
         lines.clear();
+        solidColorMeshes.clear();
+        staticGeometry.clear();
+        lineStrips.clear();
+        for (int i = 0; i < meshInstances.size(); i++) {
+            meshInstances.get(i).count = 0;
+        }
+        meshInstances.clear();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package edu.usu.graphics;
+
+import java.util.Arrays;
+
+/**
+ * Solid color geometry that doesn't move, such as the ground of a level. Meshes are placed into it once, and the
+ * combined vertices are uploaded to the GPU the first time it is drawn. After that, drawing it costs a single draw
+ * call per frame no matter how many meshes it holds. Changing it re-uploads it on the next draw.
+ */
+public class StaticGeometry {
+    final Graphics2DUtils.BuffersColor buffers = new Graphics2DUtils.BuffersColor();
+    // the GPU buffer holding the uploaded vertices, -1 until the first draw
+    int bufferId = -1;
+    boolean dirty = false;
+
+    /** removes every mesh, to be placed again */
+    public void clear() {
+        buffers.vertexCount = 0;
+        buffers.indexCount = 0;
+        dirty = true;
+    }
+
+    /**
+     * Adds a mesh, rotated about its origin, then moved so the origin is at (x, y). Every vertex is given the depth z.
+     */
+    public void add(Mesh mesh, float x, float y, float z, float rotation, Color color) {
+        add(mesh, x, y, z, rotation, 1.0f, 1.0f, color);
+    }
+
+    /**
+     * Adds a mesh, rotated about its origin, scaled, then moved so the origin is at (x, y), just like an instance of it
+     * drawn with Graphics2D.drawInstance. Every vertex is given the depth z. The scale is applied after the rotation,
+     * so unequal scales shear a rotated mesh.
+     */
+    public void add(Mesh mesh, float x, float y, float z, float rotation, float scaleX, float scaleY, Color color) {
+        int vertexStart = buffers.vertexCount;
+        int indexStart = buffers.indexCount;
+        ensureCapacity(vertexStart + mesh.getVertexCount(), indexStart + mesh.getIndexCount());
+
+        float cos = (float) Math.cos(rotation);
+        float sin = (float) Math.sin(rotation);
+        float[] meshPositions = mesh.getPositions();
+        int packed = Graphics2DUtils.packColor(color);
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            float localX = meshPositions[v * 2 + 0];
+            float localY = meshPositions[v * 2 + 1];
+            Graphics2DUtils.put(buffers.vertices, vertexStart + v,
+                    x + (localX * cos - localY * sin) * scaleX,
+                    y + (localX * sin + localY * cos) * scaleY,
+                    z, packed);
+        }
+
+        int[] meshIndices = mesh.getIndices();
+        for (int i = 0; i < meshIndices.length; i++) {
+            buffers.indices[indexStart + i] = vertexStart + meshIndices[i];
+        }
+
+        buffers.vertexCount += mesh.getVertexCount();
+        buffers.indexCount += meshIndices.length;
+        dirty = true;
+    }
+
+    public boolean isEmpty() {
+        return buffers.indexCount == 0;
+    }
+
+    public int getVertexCount() {
+        return buffers.vertexCount;
+    }
+
+    /** the x coordinate a vertex was placed at */
+    public float getX(int vertex) {
+        return Float.intBitsToFloat(buffers.vertices[vertex * Graphics2DUtils.VERTEX_INTS + 0]);
+    }
+
+    /** the y coordinate a vertex was placed at */
+    public float getY(int vertex) {
+        return Float.intBitsToFloat(buffers.vertices[vertex * Graphics2DUtils.VERTEX_INTS + 1]);
+    }
+
+    /** grows the vertex arrays, keeping what has already been added */
+    private void ensureCapacity(int vertexCount, int indexCount) {
+        if (buffers.vertices.length < vertexCount * Graphics2DUtils.VERTEX_INTS) {
+            int capacity = Math.max(vertexCount, buffers.vertices.length / Graphics2DUtils.VERTEX_INTS * 2);
+            buffers.vertices = Arrays.copyOf(buffers.vertices, capacity * Graphics2DUtils.VERTEX_INTS);
+        }
+        if (buffers.indices.length < indexCount) {
+            buffers.indices = Arrays.copyOf(buffers.indices, Math.max(indexCount, buffers.indices.length * 2));
+        }
+    }
+}
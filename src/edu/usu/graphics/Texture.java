@@ -33,6 +33,12 @@ public class Texture {
     private final int textureId;
     private final int width;
     private final int height;
+    // where the image sits in the GL texture, which is the whole texture unless this is a region of an atlas page
+    private final int regionX;
+    private final int regionY;
+    private final int textureWidth;
+    private final int textureHeight;
+    private final boolean ownsTexture;
 
     public Texture(String texturePath) {
         try (MemoryStack stack = MemoryStack.stackPush()) {
@@ -47,6 +53,11 @@ public class Texture {
 
             this.width = w.get();
             this.height = h.get();
+            this.regionX = 0;
+            this.regionY = 0;
+            this.textureWidth = width;
+            this.textureHeight = height;
+            this.ownsTexture = true;
 
             this.textureId = createTexture(buffer);
             stbi_image_free(buffer);
@@ -75,12 +86,78 @@ public class Texture {
 
             this.width = w.get();
             this.height = h.get();
+            this.regionX = 0;
+            this.regionY = 0;
+            this.textureWidth = width;
+            this.textureHeight = height;
+            this.ownsTexture = true;
 
             this.textureId = createTexture(buffer);
             stbi_image_free(buffer);
         }
     }
 
+    // --------------------------------------------------------------
+    //
+    // Builds a texture from raw RGBA pixels, 4 bytes each, row by row.
+    // This is used for the pages of a texture atlas, which are put
+    // together in memory rather than loaded from a file.
+    //
+    // --------------------------------------------------------------
+    Texture(ByteBuffer pixels, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.regionX = 0;
+        this.regionY = 0;
+        this.textureWidth = width;
+        this.textureHeight = height;
+        this.ownsTexture = true;
+
+        this.textureId = createTexture(pixels);
+    }
+
+    // --------------------------------------------------------------
+    //
+    // A texture that draws from part of another one, such as a single
+    // image packed into an atlas page.  It shares the page's GL texture,
+    // so drawing regions of the same page never switches textures, and
+    // cleaning it up leaves the page alone.
+    //
+    // --------------------------------------------------------------
+    Texture(Texture page, int x, int y, int width, int height) {
+        this.textureId = page.textureId;
+        this.width = width;
+        this.height = height;
+        this.regionX = page.regionX + x;
+        this.regionY = page.regionY + y;
+        this.textureWidth = page.textureWidth;
+        this.textureHeight = page.textureHeight;
+        this.ownsTexture = false;
+    }
+
+    // --------------------------------------------------------------
+    //
+    // A texture with a size but no GL texture behind it, for drawing
+    // with a headless Graphics2D, which queues and packs the draws of
+    // a frame without a GL context to upload anything to.
+    //
+    // --------------------------------------------------------------
+    private Texture(int width, int height) {
+        this.textureId = 0;
+        this.width = width;
+        this.height = height;
+        this.regionX = 0;
+        this.regionY = 0;
+        this.textureWidth = width;
+        this.textureHeight = height;
+        this.ownsTexture = false;
+    }
+
+    /** a texture of the given size for a headless Graphics2D, see Graphics2D.createHeadless */
+    public static Texture createHeadless(int width, int height) {
+        return new Texture(width, height);
+    }
+
     public int getWidth() {
         return this.width;
     }
@@ -89,12 +166,29 @@ public class Texture {
         return this.height;
     }
 
+    /** the horizontal texture coordinate of a pixel column of this image */
+    public float u(float x) {
+        return (regionX + x) / textureWidth;
+    }
+
+    /** the vertical texture coordinate of a pixel row of this image */
+    public float v(float y) {
+        return (regionY + y) / textureHeight;
+    }
+
+    /** true if both textures draw from the same GL texture, so switching between them doesn't need a bind */
+    public boolean sharesImageWith(Texture other) {
+        return other != null && this.textureId == other.textureId;
+    }
+
     public void bind() {
         glBindTexture(GL_TEXTURE_2D, textureId);
     }
 
     public void cleanup() {
-        glDeleteTextures(textureId);
+        if (ownsTexture) {
+            glDeleteTextures(textureId);
+        }
     }
 
     private int createTexture(ByteBuffer buffer) {
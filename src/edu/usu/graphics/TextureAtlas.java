@@ -0,0 +1,283 @@
+package edu.usu.graphics;
+
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL32.GL_MAX_TEXTURE_SIZE;
+import static org.lwjgl.opengl.GL32.glGetInteger;
+import static org.lwjgl.stb.STBImage.*;
+
+/**
+ * Packs images into a few large textures, called pages, so that things drawn with different images can be drawn
+ * without switching textures between them. Each image becomes a region of a page: a Texture that draws from its own
+ * part of the page through the same pixel-to-texture-coordinate path used for sub-images. Images are placed tallest
+ * first with a skyline packer, and each is surrounded by a border of copies of its own edge pixels, so filtering and
+ * mipmapping don't bleed neighbouring images into it. Images too large for a page are left out, and get a texture of
+ * their own when they are loaded.
+ */
+public class TextureAtlas {
+    private static final int MAX_PAGE_SIZE = 4096;
+    private static final int MIN_PAGE_SIZE = 256;
+    private static final int PADDING = 4;
+
+    private static class Image {
+        final String path;
+        final int width;
+        final int height;
+        ByteBuffer pixels;
+        int x;
+        int y;
+
+        Image(String path, int width, int height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
+        int paddedWidth() {
+            return width + PADDING * 2;
+        }
+
+        int paddedHeight() {
+            return height + PADDING * 2;
+        }
+    }
+
+    /** a run of the packed area's top edge, all at the same height */
+    private record Segment(int x, int y, int width) {
+    }
+
+    private final List<Texture> pages = new ArrayList<>();
+    // keyed by the path each image was given as
+    private final Map<String, Texture> regions = new LinkedHashMap<>();
+
+    private TextureAtlas() {
+    }
+
+    /** loads the image files and packs them into as few pages as fit them. Requires a current GL context. */
+    public static TextureAtlas build(Collection<String> paths) {
+        TextureAtlas atlas = new TextureAtlas();
+        int maxPageSize = Math.min(MAX_PAGE_SIZE, glGetInteger(GL_MAX_TEXTURE_SIZE));
+
+        List<Image> images = new ArrayList<>();
+        try {
+            for (String path : new LinkedHashSet<>(paths)) {
+                Image image = load(path);
+                if (image.paddedWidth() <= maxPageSize && image.paddedHeight() <= maxPageSize) {
+                    images.add(image);
+                } else {
+                    stbi_image_free(image.pixels);
+                }
+            }
+            images.sort((a, b) -> b.paddedHeight() != a.paddedHeight() ?
+                    Integer.compare(b.paddedHeight(), a.paddedHeight()) :
+                    Integer.compare(b.paddedWidth(), a.paddedWidth()));
+
+            while (!images.isEmpty()) {
+                atlas.packPage(images, maxPageSize);
+            }
+        } finally {
+            for (Image image : images) {
+                stbi_image_free(image.pixels);
+            }
+        }
+        return atlas;
+    }
+
+    private static Image load(String path) {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+
+            ByteBuffer buffer = stbi_load(path, w, h, channels, 4);
+            if (buffer == null) {
+                throw new RuntimeException("Image file [" + path + "] not loaded: " + stbi_failure_reason());
+            }
+
+            Image image = new Image(path, w.get(), h.get());
+            image.pixels = buffer;
+            return image;
+        }
+    }
+
+    /**
+     * Packs the images into the smallest page that holds them all, or, when even the largest page can't, as many of
+     * them as fit into the largest page. The images packed are removed from the list.
+     */
+    private void packPage(List<Image> images, int maxPageSize) {
+        int pageWidth = maxPageSize;
+        int pageHeight = maxPageSize;
+        List<Image> packed = pack(images, pageWidth, pageHeight);
+
+        if (packed.size() == images.size()) {
+            // everything fits, so use the smallest page that still holds it all, squarest first between equal areas
+            List<int[]> sizes = new ArrayList<>();
+            for (int width = MIN_PAGE_SIZE; width <= maxPageSize; width *= 2) {
+                for (int height = MIN_PAGE_SIZE; height <= maxPageSize; height *= 2) {
+                    sizes.add(new int[] { width, height });
+                }
+            }
+            sizes.sort((a, b) -> a[0] * a[1] != b[0] * b[1] ?
+                    Integer.compare(a[0] * a[1], b[0] * b[1]) :
+                    Integer.compare(Math.abs(a[0] - a[1]), Math.abs(b[0] - b[1])));
+            for (int[] size : sizes) {
+                if (pack(images, size[0], size[1]).size() == images.size()) {
+                    pageWidth = size[0];
+                    pageHeight = size[1];
+                    break;
+                }
+            }
+            // pack again so the image positions are from the page size that was chosen
+            packed = pack(images, pageWidth, pageHeight);
+        }
+
+        ByteBuffer pagePixels = MemoryUtil.memCalloc(pageWidth * pageHeight * 4);
+        try {
+            for (Image image : packed) {
+                copyPadded(image, pagePixels, pageWidth);
+            }
+            Texture page = new Texture(pagePixels, pageWidth, pageHeight);
+            pages.add(page);
+            for (Image image : packed) {
+                regions.put(image.path, new Texture(page, image.x + PADDING, image.y + PADDING, image.width, image.height));
+            }
+        } finally {
+            MemoryUtil.memFree(pagePixels);
+        }
+
+        for (Image image : packed) {
+            stbi_image_free(image.pixels);
+        }
+        images.removeAll(packed);
+    }
+
+    /**
+     * Places each image, in order, as close to the first row of the page as it can go, and leftmost between equally
+     * close places, resting against the images already placed. Returns the images that fit, with their positions set.
+     */
+    private static List<Image> pack(List<Image> images, int pageWidth, int pageHeight) {
+        List<Segment> skyline = new ArrayList<>();
+        skyline.add(new Segment(0, 0, pageWidth));
+        List<Image> packed = new ArrayList<>();
+
+        for (Image image : images) {
+            int width = image.paddedWidth();
+            int height = image.paddedHeight();
+
+            int bestIndex = -1;
+            int bestX = 0;
+            int bestY = Integer.MAX_VALUE;
+            for (int i = 0; i < skyline.size(); i++) {
+                int x = skyline.get(i).x();
+                if (x + width > pageWidth) {
+                    break;
+                }
+                // the image has to clear the tallest of the segments it spans
+                int y = 0;
+                int covered = 0;
+                for (int j = i; covered < width; j++) {
+                    Segment segment = skyline.get(j);
+                    y = Math.max(y, segment.y());
+                    covered = segment.x() + segment.width() - x;
+                }
+                if (y + height <= pageHeight && y < bestY) {
+                    bestIndex = i;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+            if (bestIndex < 0) {
+                continue;
+            }
+
+            image.x = bestX;
+            image.y = bestY;
+            packed.add(image);
+            place(skyline, bestIndex, bestX, bestY + height, width);
+        }
+        return packed;
+    }
+
+    /** raises the skyline over [x, x + width) to y, starting at the segment at index */
+    private static void place(List<Segment> skyline, int index, int x, int y, int width) {
+        int right = x + width;
+        // drop the segments the new one covers, keeping whatever sticks out past its right edge
+        while (index < skyline.size() && skyline.get(index).x() < right) {
+            Segment segment = skyline.remove(index);
+            int segmentRight = segment.x() + segment.width();
+            if (segmentRight > right) {
+                skyline.add(index, new Segment(right, segment.y(), segmentRight - right));
+                break;
+            }
+        }
+        skyline.add(index, new Segment(x, y, width));
+
+        // neighbours at the same height are one segment
+        for (int i = 0; i < skyline.size() - 1; i++) {
+            Segment a = skyline.get(i);
+            Segment b = skyline.get(i + 1);
+            if (a.y() == b.y()) {
+                skyline.set(i, new Segment(a.x(), a.y(), a.width() + b.width()));
+                skyline.remove(i + 1);
+                i--;
+            }
+        }
+    }
+
+    /** copies an image onto the page, with its edge pixels repeated out into the padding around it */
+    private static void copyPadded(Image image, ByteBuffer page, int pageWidth) {
+        IntBuffer source = image.pixels.asIntBuffer();
+        IntBuffer destination = page.asIntBuffer();
+        for (int row = 0; row < image.paddedHeight(); row++) {
+            int sourceRow = Math.max(0, Math.min(image.height - 1, row - PADDING));
+            int destinationStart = (image.y + row) * pageWidth + image.x;
+            for (int column = 0; column < image.paddedWidth(); column++) {
+                int sourceColumn = Math.max(0, Math.min(image.width - 1, column - PADDING));
+                destination.put(destinationStart + column, source.get(sourceRow * image.width + sourceColumn));
+            }
+        }
+    }
+
+    /** the region for an image file, given as the same path it was packed with, or null if it isn't in the atlas */
+    public Texture getRegion(String path) {
+        return regions.get(path);
+    }
+
+    /** every packed image's region, keyed by the path it was packed with */
+    public Map<String, Texture> getRegions() {
+        return Collections.unmodifiableMap(regions);
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /** the GPU memory the pages take up, in bytes, counting their mipmaps */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Texture page : pages) {
+            bytes += (long) page.getWidth() * page.getHeight() * 4 * 4 / 3;
+        }
+        return bytes;
+    }
+
+    /** deletes the pages, which every region draws from */
+    public void cleanup() {
+        for (Texture page : pages) {
+            page.cleanup();
+        }
+        pages.clear();
+        regions.clear();
+    }
+}
@@ -0,0 +1,160 @@
+package edu.usu.graphics;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Loads textures from image files and shares them between everything that draws the same file. Textures are reference
+ * counted: acquire loads a file the first time and returns the same texture after that, and release hands it back.
+ * A texture nobody holds stays loaded, so acquiring it again is free, until the loaded textures go over the GPU
+ * memory budget. Then the least recently used textures nobody holds are deleted until the cache is back under it.
+ * Textures that are held are never deleted, even if that leaves the cache over budget. Images packed into a texture
+ * atlas are handed out as regions of its pages, and stay loaded for as long as the cache does.
+ */
+public class TextureCache {
+    private static final long DEFAULT_BUDGET_BYTES = 256L * 1024 * 1024;
+
+    private static class Entry {
+        final Texture texture;
+        final long bytes;
+        // atlas regions are never evicted, since their page is shared
+        final boolean pinned;
+        int references = 0;
+
+        Entry(Texture texture) {
+            this.texture = texture;
+            // 4 bytes a pixel, plus a third again for the mipmaps
+            this.bytes = (long) texture.getWidth() * texture.getHeight() * 4 * 4 / 3;
+            this.pinned = false;
+        }
+
+        Entry(Texture region, boolean pinned) {
+            this.texture = region;
+            this.bytes = 0;
+            this.pinned = pinned;
+        }
+    }
+
+    // keyed by canonical path and kept in access order, so the first unreferenced entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long budgetBytes = DEFAULT_BUDGET_BYTES;
+    private long bytesUsed = 0;
+    private final ArrayList<TextureAtlas> atlases = new ArrayList<>();
+
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+
+    /** the texture for an image file, loading it if it isn't already. Every acquire must be matched by a release. */
+    public Texture acquire(String path) {
+        String key = canonicalPath(path);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+            entry = new Entry(new Texture(path));
+            entries.put(key, entry);
+            bytesUsed += entry.bytes;
+        }
+        entry.references++;
+        evictOverBudget();
+        return entry.texture;
+    }
+
+    /** hands back a texture from acquire, which stays loaded until the cache needs the memory */
+    public void release(String path) {
+        Entry entry = entries.get(canonicalPath(path));
+        if (entry == null || entry.references == 0) {
+            throw new IllegalStateException("Texture [" + path + "] released more times than it was acquired");
+        }
+        entry.references--;
+        evictOverBudget();
+    }
+
+    /**
+     * Serves the atlas' images from its pages from now on. Images already loaded on their own keep their texture while
+     * they are held, and switch to the atlas once they are let go. The cache deletes the atlas when it is cleared.
+     */
+    public void addAtlas(TextureAtlas atlas) {
+        atlases.add(atlas);
+        bytesUsed += atlas.sizeInBytes();
+        for (Map.Entry<String, Texture> region : atlas.getRegions().entrySet()) {
+            String key = canonicalPath(region.getKey());
+            Entry existing = entries.get(key);
+            if (existing != null && existing.references > 0) {
+                continue;
+            }
+            if (existing != null) {
+                existing.texture.cleanup();
+                bytesUsed -= existing.bytes;
+            }
+            entries.put(key, new Entry(region.getValue(), true));
+        }
+        evictOverBudget();
+    }
+
+    /** sets the most GPU memory, in bytes, the loaded textures should take up */
+    public void setBudget(long bytes) {
+        this.budgetBytes = bytes;
+        evictOverBudget();
+    }
+
+    private void evictOverBudget() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (bytesUsed > budgetBytes && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.references == 0 && !entry.pinned) {
+                entry.texture.cleanup();
+                bytesUsed -= entry.bytes;
+                evictions++;
+                iterator.remove();
+            }
+        }
+    }
+
+    /** the same file reached through different relative paths shares one texture */
+    private static String canonicalPath(String path) {
+        return Path.of(path).toAbsolutePath().normalize().toString();
+    }
+
+    /** deletes every texture, whether it is held or not, for when the GL context is closing */
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            entry.texture.cleanup();
+        }
+        entries.clear();
+        for (TextureAtlas atlas : atlases) {
+            atlas.cleanup();
+        }
+        atlases.clear();
+        bytesUsed = 0;
+    }
+
+    /** the number of acquires that found the texture already loaded */
+    public int getHits() {
+        return hits;
+    }
+
+    /** the number of acquires that had to load the texture */
+    public int getMisses() {
+        return misses;
+    }
+
+    /** the number of textures deleted to stay under the budget */
+    public int getEvictions() {
+        return evictions;
+    }
+
+    /** the estimated GPU memory the loaded textures take up, in bytes */
+    public long getBytesUsed() {
+        return bytesUsed;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
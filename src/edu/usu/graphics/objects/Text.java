@@ -59,6 +59,15 @@ public class Text implements Clickable {
         return new Vector3f(center.x, center.y, center.z);
     }
 
+    // the center without copying it, for drawing every frame
+    public float getCenterX() {
+        return this.center.x;
+    }
+
+    public float getCenterY() {
+        return this.center.y;
+    }
+
     public float getHeight() {
         return this.height;
     }
@@ -0,0 +1,431 @@
+package physics;
+
+import org.jbox2d.collision.shapes.CircleShape;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.collision.shapes.ShapeType;
+import org.jbox2d.common.Transform;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.Fixture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Splits the bodies of a scene into groups that can never touch each other, so each group can be stepped in a JBox2D
+ * world of its own (see PhysicsWorld.setWorldCount). Moving bodies are kept apart by static ones: the static fixtures
+ * are drawn onto a grid, and a cell is a wall if they cover it, with a margin to spare for bodies sinking into them.
+ * Every other cell is open, and the open cells split into regions that only touch each other across a wall. A moving
+ * body always stays in the region it started in, so moving bodies in different regions belong to different groups. A
+ * static body belongs to every group whose region it borders, and is copied into each of their worlds.
+ * <p>
+ * That only holds for bodies the walls actually stop. Kinematic bodies pass through static ones, and without
+ * continuous collision a fast dynamic body can tunnel through a thin wall, so scenes with either are left whole (see
+ * single).
+ * <p>
+ * The test is conservative: a gap, a wall too thin for the grid, or a body starting inside a wall joins regions that
+ * might have stayed apart, down to a single group for the whole scene. It never splits bodies that could touch.
+ */
+public class BodyGroups {
+    // the most cells along either side of the grid
+    private static final int MAX_GRID_SIZE = 1024;
+    // cells are at least this many meters wide, well over the distance at which JBox2D bodies touch
+    private static final float MIN_CELL_SIZE = 0.02f;
+    // how deep a moving body may sink into a static one, in meters
+    private static final float MARGIN = 0.1f;
+    private static final int CIRCLE_SEGMENTS = 16;
+    // leftovers smaller than this fraction of a cell count as covered
+    private static final float AREA_TOLERANCE = 1e-6f;
+
+    // the group of every object, and for static objects, every group they border (the first is their own)
+    private final int[] groupOf;
+    private final int[][] groupsOf;
+    private final int count;
+
+    private BodyGroups(int[] groupOf, int[][] groupsOf, int count) {
+        this.groupOf = groupOf;
+        this.groupsOf = groupsOf;
+        this.count = count;
+    }
+
+    /** every object in one group, for scenes whose bodies can't be trusted to stay inside the walls */
+    public static BodyGroups single(int objectCount) {
+        int[][] groupsOf = new int[objectCount][];
+        Arrays.fill(groupsOf, new int[] { 0 });
+        return new BodyGroups(new int[objectCount], groupsOf, 1);
+    }
+
+    /**
+     * Groups the objects of a scene. staticBodies has the body of every static object and null for every moving one,
+     * and points has a point inside every moving object as (x, y) pairs in meters, at the same indices.
+     */
+    public static BodyGroups find(Body[] staticBodies, float[] points) {
+        int objectCount = staticBodies.length;
+        ArrayList<float[]> fixtures = new ArrayList<>();
+        ArrayList<float[]> fixtureBounds = new ArrayList<>();
+        int[] fixtureOwner = new int[objectCount * 4];
+        int movingCount = 0;
+        for (int i = 0; i < objectCount; i++) {
+            if (staticBodies[i] == null) {
+                movingCount++;
+                continue;
+            }
+            for (Fixture fixture = staticBodies[i].getFixtureList(); fixture != null; fixture = fixture.getNext()) {
+                float[] bounds = new float[4];
+                float[] outline = outline(staticBodies[i].getTransform(), fixture, bounds);
+                if (outline == null)
+                    continue;
+                if (fixtures.size() == fixtureOwner.length)
+                    fixtureOwner = Arrays.copyOf(fixtureOwner, fixtureOwner.length * 2);
+                fixtureOwner[fixtures.size()] = i;
+                fixtures.add(outline);
+                fixtureBounds.add(bounds);
+            }
+        }
+        if (movingCount < 2 || fixtures.isEmpty())
+            return single(objectCount);
+
+        // the grid covers every fixture and moving body, with two open cells around them so the outside is one region
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (float[] bounds : fixtureBounds) {
+            minX = Math.min(minX, bounds[0]);
+            minY = Math.min(minY, bounds[1]);
+            maxX = Math.max(maxX, bounds[2]);
+            maxY = Math.max(maxY, bounds[3]);
+        }
+        for (int i = 0; i < objectCount; i++) {
+            if (staticBodies[i] == null) {
+                minX = Math.min(minX, points[i * 2]);
+                minY = Math.min(minY, points[i * 2 + 1]);
+                maxX = Math.max(maxX, points[i * 2]);
+                maxY = Math.max(maxY, points[i * 2 + 1]);
+            }
+        }
+        float cellSize = Math.max(Math.max(maxX - minX, maxY - minY) / (MAX_GRID_SIZE - 6), MIN_CELL_SIZE);
+        Grid grid = new Grid(minX - cellSize * 2, minY - cellSize * 2,
+                (int) Math.ceil((maxX - minX) / cellSize) + 5, (int) Math.ceil((maxY - minY) / cellSize) + 5, cellSize);
+
+        grid.fill(fixtures, fixtureBounds);
+        int regionCount = grid.label();
+
+        // number the groups in the order their first moving body appears
+        int[] groupOfRegion = new int[regionCount];
+        Arrays.fill(groupOfRegion, -1);
+        int[] groupOf = new int[objectCount];
+        int groupCount = 0;
+        for (int i = 0; i < objectCount; i++) {
+            if (staticBodies[i] != null)
+                continue;
+            int region = grid.regionAt(points[i * 2], points[i * 2 + 1]);
+            if (region < 0)
+                // the body starts inside a wall, so there's no telling where it can get to
+                return single(objectCount);
+            if (groupOfRegion[region] < 0)
+                groupOfRegion[region] = groupCount++;
+            groupOf[i] = groupOfRegion[region];
+        }
+        if (groupCount == 1)
+            return single(objectCount);
+
+        // a static body belongs to every group with a region among the cells its fixtures overlap
+        boolean[][] borders = new boolean[objectCount][];
+        for (int f = 0; f < fixtures.size(); f++) {
+            int owner = fixtureOwner[f];
+            if (borders[owner] == null)
+                borders[owner] = new boolean[groupCount];
+            grid.markRegions(fixtureBounds.get(f), groupOfRegion, borders[owner]);
+        }
+        int[][] groupsOf = new int[objectCount][];
+        for (int i = 0; i < objectCount; i++) {
+            if (staticBodies[i] == null || borders[i] == null) {
+                groupsOf[i] = new int[] { groupOf[i] };
+                continue;
+            }
+            int[] groups = new int[groupCount];
+            int n = 0;
+            for (int g = 0; g < groupCount; g++) {
+                if (borders[i][g])
+                    groups[n++] = g;
+            }
+            // a static body no moving body can reach still needs a world to be in
+            groupsOf[i] = n == 0 ? new int[] { 0 } : Arrays.copyOf(groups, n);
+            groupOf[i] = groupsOf[i][0];
+        }
+        return new BodyGroups(groupOf, groupsOf, groupCount);
+    }
+
+    /**
+     * The outline of a fixture in world space, as counter-clockwise (x, y) pairs, with its bounds stored as
+     * (min x, min y, max x, max y). Circles are outlined on the inside, so the outline never covers more than the
+     * circle, but their bounds are the circle's own. Returns null for shapes that aren't circles or polygons.
+     */
+    private static float[] outline(Transform transform, Fixture fixture, float[] bounds) {
+        Vec2 point = new Vec2();
+        float[] outline;
+        if (fixture.getType() == ShapeType.POLYGON) {
+            PolygonShape polygon = (PolygonShape) fixture.getShape();
+            int vertexCount = polygon.getVertexCount();
+            outline = new float[vertexCount * 2];
+            for (int v = 0; v < vertexCount; v++) {
+                Transform.mulToOut(transform, polygon.getVertex(v), point);
+                outline[v * 2] = point.x;
+                outline[v * 2 + 1] = point.y;
+            }
+            if (signedArea(outline) < 0)
+                reverse(outline);
+        } else if (fixture.getType() == ShapeType.CIRCLE) {
+            CircleShape circle = (CircleShape) fixture.getShape();
+            Transform.mulToOut(transform, circle.m_p, point);
+            outline = new float[CIRCLE_SEGMENTS * 2];
+            for (int s = 0; s < CIRCLE_SEGMENTS; s++) {
+                double angle = Math.PI * 2 * s / CIRCLE_SEGMENTS;
+                outline[s * 2] = point.x + (float) Math.cos(angle) * circle.m_radius;
+                outline[s * 2 + 1] = point.y + (float) Math.sin(angle) * circle.m_radius;
+            }
+            bounds[0] = point.x - circle.m_radius;
+            bounds[1] = point.y - circle.m_radius;
+            bounds[2] = point.x + circle.m_radius;
+            bounds[3] = point.y + circle.m_radius;
+            return outline;
+        } else {
+            return null;
+        }
+
+        bounds[0] = bounds[1] = Float.MAX_VALUE;
+        bounds[2] = bounds[3] = -Float.MAX_VALUE;
+        for (int v = 0; v < outline.length; v += 2) {
+            bounds[0] = Math.min(bounds[0], outline[v]);
+            bounds[1] = Math.min(bounds[1], outline[v + 1]);
+            bounds[2] = Math.max(bounds[2], outline[v]);
+            bounds[3] = Math.max(bounds[3], outline[v + 1]);
+        }
+        return outline;
+    }
+
+    /** the number of groups, 1 if the scene can't be split */
+    public int count() {
+        return this.count;
+    }
+
+    /** the group an object is in, which is the world its body is created in */
+    public int groupOf(int object) {
+        return this.groupOf[object];
+    }
+
+    /** every group an object can touch bodies of: its own group, and for a static object, every other it borders */
+    public int[] groupsOf(int object) {
+        return this.groupsOf[object];
+    }
+
+    /** the cells of the grid, which are walls or numbered regions */
+    private static class Grid {
+        private static final int WALL = -1;
+        private static final int UNLABELED = -2;
+
+        final float originX;
+        final float originY;
+        final int width;
+        final int height;
+        final float cellSize;
+        final int[] cells;
+
+        Grid(float originX, float originY, int width, int height, float cellSize) {
+            this.originX = originX;
+            this.originY = originY;
+            this.width = width;
+            this.height = height;
+            this.cellSize = cellSize;
+            this.cells = new int[width * height];
+        }
+
+        /** marks the cells the fixtures cover, with the margin around each cell, as walls */
+        void fill(ArrayList<float[]> fixtures, ArrayList<float[]> fixtureBounds) {
+            // the fixtures overlapping each cell and the margin around it, as linked lists threaded through these arrays
+            int[] first = new int[this.cells.length];
+            Arrays.fill(first, -1);
+            int[] next = new int[64];
+            int[] fixtureOf = new int[64];
+            int entries = 0;
+            for (int f = 0; f < fixtures.size(); f++) {
+                float[] bounds = fixtureBounds.get(f);
+                int x0 = column(bounds[0] - MARGIN), y0 = row(bounds[1] - MARGIN);
+                int x1 = column(bounds[2] + MARGIN), y1 = row(bounds[3] + MARGIN);
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) {
+                        if (entries == next.length) {
+                            next = Arrays.copyOf(next, entries * 2);
+                            fixtureOf = Arrays.copyOf(fixtureOf, entries * 2);
+                        }
+                        int cell = y * this.width + x;
+                        next[entries] = first[cell];
+                        fixtureOf[entries] = f;
+                        first[cell] = entries++;
+                    }
+                }
+            }
+
+            ArrayList<float[]> overlapping = new ArrayList<>();
+            for (int cell = 0; cell < this.cells.length; cell++) {
+                this.cells[cell] = UNLABELED;
+                if (first[cell] < 0)
+                    continue;
+                overlapping.clear();
+                for (int e = first[cell]; e >= 0; e = next[e]) {
+                    overlapping.add(fixtures.get(fixtureOf[e]));
+                }
+                float left = this.originX + (cell % this.width) * this.cellSize - MARGIN;
+                float bottom = this.originY + (cell / this.width) * this.cellSize - MARGIN;
+                float size = this.cellSize + MARGIN * 2;
+                if (covered(left, bottom, size, overlapping))
+                    this.cells[cell] = WALL;
+            }
+        }
+
+        /** numbers the regions of open cells that touch along an edge or a corner, returning how many there are */
+        int label() {
+            int[] queue = new int[this.cells.length];
+            int regions = 0;
+            for (int start = 0; start < this.cells.length; start++) {
+                if (this.cells[start] != UNLABELED)
+                    continue;
+                int head = 0, tail = 0;
+                queue[tail++] = start;
+                this.cells[start] = regions;
+                while (head < tail) {
+                    int cell = queue[head++];
+                    int cx = cell % this.width, cy = cell / this.width;
+                    for (int y = Math.max(cy - 1, 0); y <= Math.min(cy + 1, this.height - 1); y++) {
+                        for (int x = Math.max(cx - 1, 0); x <= Math.min(cx + 1, this.width - 1); x++) {
+                            int neighbour = y * this.width + x;
+                            if (this.cells[neighbour] == UNLABELED) {
+                                this.cells[neighbour] = regions;
+                                queue[tail++] = neighbour;
+                            }
+                        }
+                    }
+                }
+                regions++;
+            }
+            return regions;
+        }
+
+        /** the region of the cell holding a point, or -1 if the cell is a wall */
+        int regionAt(float x, float y) {
+            int region = this.cells[row(y) * this.width + column(x)];
+            return region == WALL ? -1 : region;
+        }
+
+        /** flags the group of every region with a cell within the bounds, or a cell next to them */
+        void markRegions(float[] bounds, int[] groupOfRegion, boolean[] groups) {
+            int x0 = Math.max(column(bounds[0]) - 1, 0), y0 = Math.max(row(bounds[1]) - 1, 0);
+            int x1 = Math.min(column(bounds[2]) + 1, this.width - 1), y1 = Math.min(row(bounds[3]) + 1, this.height - 1);
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    int region = this.cells[y * this.width + x];
+                    if (region != WALL && groupOfRegion[region] >= 0)
+                        groups[groupOfRegion[region]] = true;
+                }
+            }
+        }
+
+        private int column(float x) {
+            return Math.max(0, Math.min(this.width - 1, (int) ((x - this.originX) / this.cellSize)));
+        }
+
+        private int row(float y) {
+            return Math.max(0, Math.min(this.height - 1, (int) ((y - this.originY) / this.cellSize)));
+        }
+    }
+
+    /**
+     * Whether the square is entirely inside the union of the outlines. The square is cut down by each outline in turn,
+     * keeping what lies outside it as convex pieces, until nothing of it is left or the outlines run out.
+     */
+    private static boolean covered(float left, float bottom, float size, ArrayList<float[]> outlines) {
+        float right = left + size, top = bottom + size;
+        // one outline holding every corner of the square holds all of it, since outlines are convex
+        for (float[] outline : outlines) {
+            if (contains(outline, left, bottom) && contains(outline, right, bottom) &&
+                    contains(outline, right, top) && contains(outline, left, top))
+                return true;
+        }
+
+        float minArea = size * size * AREA_TOLERANCE;
+        ArrayList<float[]> pieces = new ArrayList<>();
+        pieces.add(new float[] { left, bottom, right, bottom, right, top, left, top });
+        for (float[] outline : outlines) {
+            ArrayList<float[]> remaining = new ArrayList<>();
+            for (float[] piece : pieces) {
+                // the part of the piece outside the outline is, edge by edge, what is outside that edge but inside
+                // the edges before it
+                float[] inside = piece;
+                for (int v = 0; v < outline.length && inside != null; v += 2) {
+                    int w = (v + 2) % outline.length;
+                    float[] outside = clip(inside, outline[w], outline[w + 1], outline[v], outline[v + 1]);
+                    if (outside != null && Math.abs(signedArea(outside)) > minArea)
+                        remaining.add(outside);
+                    inside = clip(inside, outline[v], outline[v + 1], outline[w], outline[w + 1]);
+                }
+            }
+            pieces = remaining;
+            if (pieces.isEmpty())
+                return true;
+        }
+        return false;
+    }
+
+    /** true if the point is inside or on the edge of the counter-clockwise convex outline */
+    private static boolean contains(float[] outline, float x, float y) {
+        for (int v = 0; v < outline.length; v += 2) {
+            int w = (v + 2) % outline.length;
+            if (side(outline[v], outline[v + 1], outline[w], outline[w + 1], x, y) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /** the part of a convex polygon to the left of the line from a to b, or null if there is none */
+    private static float[] clip(float[] polygon, float ax, float ay, float bx, float by) {
+        float[] result = new float[polygon.length + 2];
+        int n = 0;
+        for (int v = 0; v < polygon.length; v += 2) {
+            int w = (v + 2) % polygon.length;
+            float sideV = side(ax, ay, bx, by, polygon[v], polygon[v + 1]);
+            float sideW = side(ax, ay, bx, by, polygon[w], polygon[w + 1]);
+            if (sideV >= 0) {
+                result[n++] = polygon[v];
+                result[n++] = polygon[v + 1];
+            }
+            if ((sideV < 0 && sideW > 0) || (sideV > 0 && sideW < 0)) {
+                float t = sideV / (sideV - sideW);
+                result[n++] = polygon[v] + (polygon[w] - polygon[v]) * t;
+                result[n++] = polygon[v + 1] + (polygon[w + 1] - polygon[v + 1]) * t;
+            }
+        }
+        return n < 6 ? null : Arrays.copyOf(result, n);
+    }
+
+    /** positive if the point is to the left of the line from a to b, negative if it is to the right */
+    private static float side(float ax, float ay, float bx, float by, float x, float y) {
+        return (bx - ax) * (y - ay) - (by - ay) * (x - ax);
+    }
+
+    private static float signedArea(float[] polygon) {
+        float area = 0;
+        for (int v = 0; v < polygon.length; v += 2) {
+            int w = (v + 2) % polygon.length;
+            area += polygon[v] * polygon[w + 1] - polygon[w] * polygon[v + 1];
+        }
+        return area / 2;
+    }
+
+    private static void reverse(float[] polygon) {
+        for (int i = 0, j = polygon.length - 2; i < j; i += 2, j -= 2) {
+            float x = polygon[i], y = polygon[i + 1];
+            polygon[i] = polygon[j];
+            polygon[i + 1] = polygon[j + 1];
+            polygon[j] = x;
+            polygon[j + 1] = y;
+        }
+    }
+}
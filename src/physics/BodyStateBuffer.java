@@ -0,0 +1,157 @@
+package physics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * The state of every body in a physics world, stored off-heap as a structure of arrays. Each plane (x, y, angle, ...)
+ * is a contiguous run of floats indexed by the body's state index, so readers walk memory sequentially and no
+ * per-body objects are created. Positions are the body's center of mass in meters, angles are in radians and
+ * velocities are in m/s. The previous planes hold the state before the last step and are used for interpolation.
+ * */
+public class BodyStateBuffer {
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int ANGLE = 2;
+    public static final int VX = 3;
+    public static final int VY = 4;
+    // 1 if the body is awake, 0 if it is asleep (or has been destroyed)
+    public static final int AWAKE = 5;
+    public static final int PREV_X = 6;
+    public static final int PREV_Y = 7;
+    public static final int PREV_ANGLE = 8;
+    private static final int PLANE_COUNT = 9;
+    // the current planes that are copied to the previous planes before each step
+    private static final int CURRENT_POSE_PLANES = 3;
+
+    private FloatBuffer data;
+    private int capacity;
+    private int count;
+
+    public BodyStateBuffer(int initialCapacity) {
+        this.capacity = Math.max(initialCapacity, 1);
+        this.data = allocate(this.capacity);
+    }
+
+    private static FloatBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * PLANE_COUNT * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    /** reserves the next slot, growing the buffer if needed, and returns its index */
+    int add() {
+        if (count == capacity) {
+            int newCapacity = capacity * 2;
+            FloatBuffer grown = allocate(newCapacity);
+            for (int plane = 0; plane < PLANE_COUNT; plane++) {
+                grown.put(plane * newCapacity, this.data, plane * capacity, count);
+            }
+            this.data = grown;
+            this.capacity = newCapacity;
+        }
+        return count++;
+    }
+
+    void set(int index, float x, float y, float angle, float vx, float vy, boolean awake) {
+        data.put(X * capacity + index, x);
+        data.put(Y * capacity + index, y);
+        data.put(ANGLE * capacity + index, angle);
+        data.put(VX * capacity + index, vx);
+        data.put(VY * capacity + index, vy);
+        data.put(AWAKE * capacity + index, awake ? 1.0f : 0.0f);
+    }
+
+    /** overwrites the pose of a body, used to show a recorded frame */
+    void setPose(int index, float x, float y, float angle) {
+        data.put(X * capacity + index, x);
+        data.put(Y * capacity + index, y);
+        data.put(ANGLE * capacity + index, angle);
+    }
+
+    void setPreviousPose(int index, float x, float y, float angle) {
+        data.put(PREV_X * capacity + index, x);
+        data.put(PREV_Y * capacity + index, y);
+        data.put(PREV_ANGLE * capacity + index, angle);
+    }
+
+    /** copies the current pose of every body into the previous planes */
+    void savePrevious() {
+        for (int plane = 0; plane < CURRENT_POSE_PLANES; plane++) {
+            data.put((PREV_X + plane) * capacity, this.data, plane * capacity, count);
+        }
+    }
+
+    /** copies the current pose of a single body into the previous planes */
+    void savePrevious(int index) {
+        for (int plane = 0; plane < CURRENT_POSE_PLANES; plane++) {
+            data.put((PREV_X + plane) * capacity + index, data.get(plane * capacity + index));
+        }
+    }
+
+    /** makes this buffer a copy of another, reallocating it only if the two hold a different number of bodies */
+    void copyFrom(BodyStateBuffer other) {
+        if (this.capacity != other.capacity) {
+            this.data = allocate(other.capacity);
+            this.capacity = other.capacity;
+        }
+        this.data.put(0, other.data, 0, other.capacity * PLANE_COUNT);
+        this.count = other.count;
+    }
+
+    /** the number of bodies in the buffer */
+    public int count() {
+        return this.count;
+    }
+
+    public float get(int plane, int index) {
+        return data.get(plane * capacity + index);
+    }
+
+    public float x(int index) {
+        return data.get(X * capacity + index);
+    }
+
+    public float y(int index) {
+        return data.get(Y * capacity + index);
+    }
+
+    public float angle(int index) {
+        return data.get(ANGLE * capacity + index);
+    }
+
+    public float vx(int index) {
+        return data.get(VX * capacity + index);
+    }
+
+    public float vy(int index) {
+        return data.get(VY * capacity + index);
+    }
+
+    public boolean isAwake(int index) {
+        return data.get(AWAKE * capacity + index) != 0.0f;
+    }
+
+    /** the position and angle blended between the previous and current state (alpha 0 = previous, 1 = current) */
+    public float interpolatedX(int index, float alpha) {
+        float previous = data.get(PREV_X * capacity + index);
+        return previous + (data.get(X * capacity + index) - previous) * alpha;
+    }
+
+    public float interpolatedY(int index, float alpha) {
+        float previous = data.get(PREV_Y * capacity + index);
+        return previous + (data.get(Y * capacity + index) - previous) * alpha;
+    }
+
+    public float interpolatedAngle(int index, float alpha) {
+        float previous = data.get(PREV_ANGLE * capacity + index);
+        return previous + (data.get(ANGLE * capacity + index) - previous) * alpha;
+    }
+
+    /**
+     * A read only view of a single plane, with one float per body starting at position 0. The view is invalidated
+     * when the buffer grows, so fetch it again after bodies are added.
+     * */
+    public FloatBuffer plane(int plane) {
+        return data.slice(plane * capacity, count).asReadOnlyBuffer();
+    }
+}
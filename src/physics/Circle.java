@@ -2,8 +2,10 @@ package physics;
 
 import edu.usu.graphics.Color;
 import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.Mesh;
+import edu.usu.graphics.MeshCache;
+import edu.usu.graphics.StaticGeometry;
 
-import edu.usu.graphics.objects.Triangle;
 import org.jbox2d.collision.shapes.*;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.*;
@@ -11,14 +13,17 @@ import org.jbox2d.dynamics.*;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 
-import java.util.ArrayList;
 
 /** Used to render circles to the canvas, as well as do physics in the given physics world */
 public class Circle implements PhysicsObject2D {
     private final PhysicsWorld world;
     private Body body;
+    private int stateIndex;
 
-    private Vector3f center;
+    private final Vector3f center;
+    // the shared unit circle mesh, scaled to the radius when drawn, and the segment count it was tessellated with
+    private Mesh mesh;
+    private int meshSegments;
     public float renderOrder;
     public Color color;
     public float radius;
@@ -50,7 +55,8 @@ public class Circle implements PhysicsObject2D {
         bodyDef.linearVelocity = new Vec2(initVelocity.x, initVelocity.y);
 
         // create body and place in the world
-        this.body = world.addAndCreateBody(bodyDef);
+        this.stateIndex = world.addBody(bodyDef);
+        this.body = world.getBody(stateIndex);
         this.angle = this.body.getAngle();
 
         // create shape
@@ -66,6 +72,7 @@ public class Circle implements PhysicsObject2D {
 
         // attach fixture to body
         body.createFixture(fx);
+        this.world.refreshState(stateIndex);
     }
 
     @Override
@@ -82,47 +89,57 @@ public class Circle implements PhysicsObject2D {
         return new Vector2f(this.world.worldCoordsToCanvas(new Vec2(center.x, center.y)));
     }
 
+    @Override
+    public int getStateIndex() {
+        return this.stateIndex;
+    }
+
     /** update the position of the points that represent the circle*/
     @Override
     public void update(double elapsedTime) {
-        // retrieve the center and angle of the body from the world
-        Vec2 bodyCenter = this.body.getWorldCenter();
-        this.center = new Vector3f(bodyCenter.x, bodyCenter.y, this.renderOrder);
-        this.angle = this.body.getAngle();
+        // retrieve the center and angle of the body from the world's state buffer
+        BodyStateBuffer state = this.world.getState();
+        this.center.set(state.x(stateIndex), state.y(stateIndex), this.renderOrder);
+        this.angle = state.angle(stateIndex);
     }
 
-    /** Creates a series of points that the graphics library can use to render a circle */
-    private ArrayList<Vector3f> createCirclePoints(Vector3f center, float radius) {
-        ArrayList<Vector3f> circlePoints = new ArrayList<>();
-        int numPoints = 30; //TODO: change this to be dependent on the radius
-        for (int i = 0; i < numPoints; i++) {
-            float angle = (float) (2.0 * Math.PI / numPoints * i) + this.angle;
-            float nextX = center.x + radius * (float) Math.cos(angle);
-            float nextY = center.y + radius * (float) Math.sin(angle);
-
-            circlePoints.add(new Vector3f(nextX, nextY, this.renderOrder));
+    /** picks the tessellation from the on-screen radius in pixels, which only changes when the view is zoomed */
+    private void updateMesh(Graphics2D graphics, float meter) {
+        float screenRadius = this.radius * meter * graphics.getWidth() / 2;
+        int segments = MeshCache.circleSegments(screenRadius);
+        if (this.mesh == null || segments != this.meshSegments) {
+            this.mesh = graphics.getMeshCache().circle(1.0f, segments);
+            this.meshSegments = segments;
         }
-        circlePoints.add(circlePoints.getFirst());
-        return circlePoints;
+    }
+
+    @Override
+    public boolean bake(Graphics2D graphics, StaticGeometry geometry) {
+        updateMesh(graphics, this.world.getCanvasMeter());
+        // placed where render would draw it, which the body itself may not be while the physics thread runs
+        BodyStateBuffer state = this.world.getState();
+        float alpha = this.world.getInterpolationAlpha();
+        geometry.add(this.mesh, state.interpolatedX(stateIndex, alpha), state.interpolatedY(stateIndex, alpha),
+                this.renderOrder, state.interpolatedAngle(stateIndex, alpha), this.radius, this.radius, this.color);
+        return true;
     }
 
     /** render this circle to the screen using the passed in graphics object */
     @Override
     public void render(Graphics2D graphics, double elapsedTime) {
-        // convert the center and radius for the graphics API
-        Vector2f centerCanvas2f = this.world.worldCoordsToCanvas(new Vec2(this.center.x, this.center.y));
-        Vector3f centerCanvas3f = new Vector3f(centerCanvas2f.x, centerCanvas2f.y, renderOrder);
-        float canvasRadius = this.world.scalarWorldToCanvas(this.radius);
-
-        // updates the points on the circle if the center changed position
-        ArrayList<Vector3f> circlePoints = createCirclePoints(centerCanvas3f, canvasRadius);
-
-        // render the circle as a set of triangles
-        for (int i = 0; i < circlePoints.size()-1; i++) {
-            Vector3f v1 = circlePoints.get(i);
-            Vector3f v2 = circlePoints.get(i+1);
-            graphics.draw(new Triangle(centerCanvas3f, v1, v2), -this.angle, centerCanvas2f, this.color);
-        }
+        // blend between the last two physics states so motion is smooth regardless of the frame rate
+        BodyStateBuffer state = this.world.getState();
+        float alpha = this.world.getInterpolationAlpha();
+        float meter = this.world.getCanvasMeter();
+        updateMesh(graphics, meter);
+
+        // the mesh is a unit circle, so scale it to the radius on the canvas and flip it to the canvas' downward y axis.
+        // Every circle with the same tessellation is one instanced draw.
+        float scale = this.radius * meter;
+        graphics.drawInstance(this.mesh,
+                this.world.xWorldToCanvas(state.interpolatedX(stateIndex, alpha)),
+                this.world.yWorldToCanvas(state.interpolatedY(stateIndex, alpha)),
+                this.renderOrder, state.interpolatedAngle(stateIndex, alpha), scale, -scale, this.color);
     }
 
     public String toString() {
@@ -0,0 +1,67 @@
+package physics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size queue of commands from one thread to one other thread, without locks or allocation. Each command is an
+ * opcode and a single number. The producer writes a command into its slot and then moves the tail past it, and the
+ * consumer reads the slot and then moves the head past it, so neither thread ever sees a slot the other is still
+ * writing. Only one thread may offer and only one other thread may poll.
+ * */
+final class CommandQueue {
+    static final int NONE = -1;
+
+    private final int[] ops;
+    private final double[] values;
+    private final int mask;
+    // the next slot to read, moved only by the consumer, and the next slot to write, moved only by the producer
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // the number that came with the last polled command, only read by the consumer
+    private double polledValue;
+
+    /** a queue holding up to capacity commands, which must be a power of two */
+    CommandQueue(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0)
+            throw new IllegalArgumentException("Command queue capacity must be a power of two: " + capacity);
+        this.ops = new int[capacity];
+        this.values = new double[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /** adds a command, returning false without adding it if the queue is full */
+    boolean offer(int op, double value) {
+        long t = tail.get();
+        if (t - head.get() == ops.length) {
+            return false;
+        }
+        int slot = (int) t & mask;
+        ops[slot] = op;
+        values[slot] = value;
+        // an ordered store, so the command is visible before the new tail is
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** removes the oldest command and returns its opcode, or NONE if the queue is empty */
+    int poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return NONE;
+        }
+        int slot = (int) h & mask;
+        int op = ops[slot];
+        polledValue = values[slot];
+        head.lazySet(h + 1);
+        return op;
+    }
+
+    /** the number sent with the command last returned by poll */
+    double polledValue() {
+        return polledValue;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -0,0 +1,155 @@
+package physics;
+
+import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.StaticGeometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Updates and draws the bodies of a world that can move, skipping the ones at rest. A body that JBox2D has put to
+ * sleep, or that has been drawn in exactly the same place for REST_FRAMES frames in a row, is baked into one piece of
+ * static geometry along with every other body at rest. Until it moves again it is neither updated nor rendered on its
+ * own, so a settled pile costs a single draw call however many bodies are in it. The geometry is rebuilt whenever a
+ * body comes to rest or starts moving, and when the world is zoomed, just like StaticBodies.
+ */
+public class MovingBodies {
+    // the frames an awake body has to stay put before it is baked, so one that only pauses for a moment, like a ball
+    // at the top of its bounce, doesn't make the geometry be rebuilt twice
+    private static final int REST_FRAMES = 10;
+
+    private final PhysicsWorld world;
+    private final ArrayList<PhysicsObject2D> bodies;
+    private final StaticGeometry geometry = new StaticGeometry();
+    // per body, in the order of the list: where it was drawn last frame and the number of frames it has been there
+    private final float[] lastX;
+    private final float[] lastY;
+    private final float[] lastAngle;
+    private final int[] restFrames;
+    // per body: whether it is baked into the geometry, and whether it can't be, like a textured rectangle
+    private final boolean[] baked;
+    private final boolean[] unbakeable;
+    private boolean dirty = false;
+    // the canvas meter the geometry was baked at, 0 before the first render
+    private float bakedMeter = 0;
+    private int restingCount = 0;
+    private int rebuildCount = 0;
+
+    public MovingBodies(PhysicsWorld world, ArrayList<PhysicsObject2D> bodies) {
+        this.world = world;
+        this.bodies = bodies;
+        int count = bodies.size();
+        this.lastX = new float[count];
+        this.lastY = new float[count];
+        this.lastAngle = new float[count];
+        // no body has been drawn yet, so the first frame always counts as a move
+        Arrays.fill(this.lastX, Float.NaN);
+        this.restFrames = new int[count];
+        this.baked = new boolean[count];
+        this.unbakeable = new boolean[count];
+    }
+
+    /** finds the bodies at rest and updates every other one, called once a frame before rendering */
+    public void update(double elapsedTime) {
+        BodyStateBuffer state = this.world.getState();
+        float alpha = this.world.getInterpolationAlpha();
+        int resting = 0;
+        for (int i = 0; i < this.bodies.size(); i++) {
+            PhysicsObject2D body = this.bodies.get(i);
+            int index = body.getStateIndex();
+            // compared where the body is drawn, so a baked body is exactly where it would have been rendered
+            float x = state.interpolatedX(index, alpha);
+            float y = state.interpolatedY(index, alpha);
+            float angle = state.interpolatedAngle(index, alpha);
+            if (x == this.lastX[i] && y == this.lastY[i] && angle == this.lastAngle[i]) {
+                if (this.restFrames[i] < REST_FRAMES) this.restFrames[i]++;
+            } else {
+                this.lastX[i] = x;
+                this.lastY[i] = y;
+                this.lastAngle[i] = angle;
+                this.restFrames[i] = 0;
+            }
+
+            // a sleeping body won't move until something wakes it, so there's no need to wait and see
+            boolean atRest = this.restFrames[i] >= REST_FRAMES || (this.restFrames[i] > 0 && !state.isAwake(index));
+            if (atRest != this.baked[i] && !this.unbakeable[i]) {
+                this.baked[i] = atRest;
+                this.dirty = true;
+            }
+
+            if (this.baked[i]) {
+                resting++;
+            } else {
+                body.update(elapsedTime);
+            }
+        }
+        this.restingCount = resting;
+    }
+
+    public void render(Graphics2D graphics, double elapsedTime) {
+        float meter = this.world.getCanvasMeter();
+        if (this.bakedMeter == 0) {
+            reserve(graphics);
+        }
+        if (this.dirty || meter != this.bakedMeter) {
+            bake(graphics, elapsedTime);
+            this.bakedMeter = meter;
+        }
+
+        // the geometry is in meters, so scale it to the canvas and flip it to the canvas' downward y axis
+        graphics.draw(this.geometry, meter, -meter);
+        for (int i = 0; i < this.bodies.size(); i++) {
+            if (!this.baked[i]) {
+                this.bodies.get(i).render(graphics, elapsedTime);
+            }
+        }
+    }
+
+    /**
+     * Bakes every body once and throws the result away, so the geometry already has room for all of them and baking
+     * never allocates after the first frame. This is also when the bodies that can't be baked are found.
+     * */
+    private void reserve(Graphics2D graphics) {
+        this.geometry.clear();
+        for (int i = 0; i < this.bodies.size(); i++) {
+            if (!this.bodies.get(i).bake(graphics, this.geometry)) {
+                this.unbakeable[i] = true;
+            }
+        }
+        this.dirty = true;
+    }
+
+    private void bake(Graphics2D graphics, double elapsedTime) {
+        this.geometry.clear();
+        for (int i = 0; i < this.bodies.size(); i++) {
+            if (this.baked[i] && !this.bodies.get(i).bake(graphics, this.geometry)) {
+                // it wasn't updated this frame, because it was going to be baked
+                this.unbakeable[i] = true;
+                this.baked[i] = false;
+                this.restingCount--;
+                this.bodies.get(i).update(elapsedTime);
+            }
+        }
+        this.dirty = false;
+        this.rebuildCount++;
+    }
+
+    /** frees the GPU copy of the geometry, once the world is no longer drawn */
+    public void release(Graphics2D graphics) {
+        graphics.release(this.geometry);
+    }
+
+    public int size() {
+        return this.bodies.size();
+    }
+
+    /** the number of bodies at rest in the last update, which were neither updated nor rendered on their own */
+    public int getRestingCount() {
+        return this.restingCount;
+    }
+
+    /** the number of times the geometry of the bodies at rest has been rebuilt */
+    public int getRebuildCount() {
+        return this.rebuildCount;
+    }
+}
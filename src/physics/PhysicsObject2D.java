@@ -1,6 +1,7 @@
 package physics;
 
 import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.StaticGeometry;
 import org.jbox2d.dynamics.Body;
 import org.joml.Vector2f;
 
@@ -8,6 +9,15 @@ import org.joml.Vector2f;
 public interface PhysicsObject2D {
     Body getBody();
     Vector2f getCenter();
+    /** the index of this object's body in the world's state buffer */
+    int getStateIndex();
     void update(double elapsedTime);
     void render(Graphics2D graphics, double elapsedTime);
+    /**
+     * adds this object to static geometry where render would draw it right now, in meters. Returns false if the object
+     * can't be drawn that way and must still be rendered on its own.
+     */
+    boolean bake(Graphics2D graphics, StaticGeometry geometry);
+    /** hands back anything acquired from the graphics object for rendering, once the object won't be drawn for a while */
+    default void release(Graphics2D graphics) {}
 }
@@ -0,0 +1,209 @@
+package physics;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steps a physics world on a thread of its own, so a slow step holds up the physics instead of the frame. Once started,
+ * the world belongs to this thread: the render thread sends it commands through a lock-free queue, and draws from
+ * snapshots of the body state handed back through a lock-free triple buffer, which the world's getState returns after
+ * each call to show. The render thread sends the time each frame covers, and the world is stepped by that much, just as
+ * if the render thread had stepped it, so pausing is a matter of sending no time. Neither thread ever waits on the
+ * other, and nothing is allocated after the thread is created.
+ * <p>
+ * Every method except the constructor is meant for the render thread, which must be the only one calling them.
+ * */
+public class PhysicsThread {
+    private static final int QUEUE_CAPACITY = 256;
+    // the opcodes of the commands, with the number each one is sent with
+    private static final int ADVANCE = 0;          // seconds to step the world by
+    private static final int RESET = 1;
+    private static final int SHOW_RECORDING = 2;   // the recorded time to show
+    private static final int SHOW_SIMULATION = 3;
+    private static final int STOP = 4;
+
+    private final PhysicsWorld world;
+    private final double endTime;
+    private final CommandQueue commands = new CommandQueue(QUEUE_CAPACITY);
+    private final StateHandoff handoff;
+    private final String name;
+    // made by start, so the constructor doesn't hand out this before it has finished; null until then
+    private Thread thread;
+
+    // render thread only: frame time that didn't fit in the queue, the number of resets sent and the snapshot shown
+    private double unsentTime = 0.0;
+    private int resetsSent = 0;
+    private StateHandoff.Snapshot shown;
+
+    // physics thread only: the number of resets done
+    private int resetsDone = 0;
+
+    /**
+     * A thread that steps the world with its solver profile until the simulated time passes endTime, or its stop
+     * condition is met. Every body must be added to the world first. The thread doesn't run until start is called.
+     * */
+    public PhysicsThread(PhysicsWorld world, double endTime, String name) {
+        this.world = world;
+        this.endTime = endTime;
+        this.handoff = new StateHandoff(world.liveState().count());
+        // publish the state as it is, so there is something to show before the first step
+        publish();
+        this.shown = handoff.latest();
+        this.name = name;
+    }
+
+    public void start() {
+        this.thread = new Thread(this::run, this.name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** asks the thread to finish and waits until it has, after which the world can be used directly again */
+    public void stop() {
+        if (this.thread == null) {
+            this.world.showLive();
+            return;
+        }
+        send(STOP, 0.0);
+        try {
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.world.showLive();
+    }
+
+    /** steps the world forward by elapsedTime, as PhysicsWorld.stepForward does, unless it has passed the end time */
+    public void advance(double elapsedTime) {
+        // if the physics thread has fallen so far behind that the queue is full, this frame's time goes with the next
+        if (this.commands.offer(ADVANCE, this.unsentTime + elapsedTime)) {
+            this.unsentTime = 0.0;
+        } else {
+            this.unsentTime += elapsedTime;
+        }
+        LockSupport.unpark(this.thread);
+    }
+
+    /** puts every body back to its saved snapshot, see PhysicsWorld.restoreSnapshot */
+    public void reset() {
+        this.unsentTime = 0.0;
+        this.resetsSent++;
+        send(RESET, 0.0);
+    }
+
+    /** shows the recorded state at the given time, see PhysicsWorld.showRecording */
+    public void showRecording(double time) {
+        send(SHOW_RECORDING, time);
+    }
+
+    /** goes back to showing the simulated state after showRecording */
+    public void showSimulation() {
+        send(SHOW_SIMULATION, 0.0);
+    }
+
+    /** sends a command that can't be dropped, waiting for room in the queue if the physics thread is behind */
+    private void send(int op, double value) {
+        while (!this.commands.offer(op, value)) {
+            LockSupport.unpark(this.thread);
+            Thread.onSpinWait();
+        }
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Takes the newest state the physics thread has published and has the world show it, so it is what renderers
+     * draw until the next call. Called once a frame, before the objects are updated.
+     * */
+    public void show() {
+        this.shown = this.handoff.latest();
+        this.world.show(this.shown.state, this.shown.alpha, this.shown.stateTime);
+    }
+
+    /** true once the shown state comes from after the last reset that was sent */
+    private boolean isCurrent() {
+        return this.shown.generation == this.resetsSent;
+    }
+
+    /** the simulated time of the shown state, in seconds */
+    public double getSimulatedTime() {
+        return isCurrent() ? this.shown.simulatedTime : 0.0;
+    }
+
+    /** the amount of the run that had been recorded when the shown state was published, in seconds */
+    public double getRecordedTime() {
+        return isCurrent() ? this.shown.recordedTime : 0.0;
+    }
+
+    /** true if the recording had filled up when the shown state was published */
+    public boolean isRecordingFull() {
+        return isCurrent() && this.shown.recordingFull;
+    }
+
+    /** true if the world's stop condition had been met when the shown state was published */
+    public boolean isStopped() {
+        return isCurrent() && this.shown.stopped;
+    }
+
+    /** copies the step telemetry as it was when the shown state was published into the given summary */
+    public void getTelemetry(StepTelemetry.Summary into) {
+        into.set(this.shown.telemetry);
+    }
+
+    private void run() {
+        while (true) {
+            // every command waiting is carried out before the state is published, so a thread that fell behind catches
+            // up in a single batch. Each frame's time is still stepped on its own, so the cap on steps per frame and
+            // the order of the steps are the same as when the render thread steps the world itself.
+            boolean changed = false;
+            int op;
+            while ((op = this.commands.poll()) != CommandQueue.NONE) {
+                double value = this.commands.polledValue();
+                switch (op) {
+                    case ADVANCE -> changed |= step(value);
+                    case RESET -> this.world.restoreSnapshot();
+                    case SHOW_RECORDING -> this.world.showRecording(value);
+                    case SHOW_SIMULATION -> this.world.showSimulation();
+                    case STOP -> {
+                        return;
+                    }
+                }
+                if (op == RESET) {
+                    this.resetsDone++;
+                }
+                changed |= op != ADVANCE;
+            }
+
+            if (changed) {
+                publish();
+            }
+            if (this.commands.isEmpty()) {
+                // a command sent after the check unparks the thread first, so park returns right away and it isn't lost
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /** steps the world by the given time, returning false if the run is already over */
+    private boolean step(double elapsedTime) {
+        if (this.world.getSimulatedTime() > this.endTime || this.world.isStopped()) {
+            return false;
+        }
+        this.world.stepForward(elapsedTime);
+        return true;
+    }
+
+    /** copies the world's state into the back snapshot and hands it to the render thread */
+    private void publish() {
+        StateHandoff.Snapshot snapshot = this.handoff.back();
+        snapshot.state.copyFrom(this.world.liveState());
+        snapshot.alpha = this.world.liveInterpolationAlpha();
+        snapshot.stateTime = this.world.liveStateTime();
+        snapshot.simulatedTime = this.world.getSimulatedTime();
+        StateRecording recording = this.world.getRecording();
+        snapshot.recordedTime = recording == null ? 0.0 : recording.getEndTime();
+        snapshot.recordingFull = recording != null && recording.isFull();
+        snapshot.stopped = this.world.isStopped();
+        this.world.getTelemetry().summarize(snapshot.telemetry);
+        snapshot.generation = this.resetsDone;
+        this.handoff.publish();
+    }
+}
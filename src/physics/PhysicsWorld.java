@@ -3,42 +3,608 @@ package physics;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.Body;
 import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.Fixture;
+import org.jbox2d.dynamics.FixtureDef;
 import org.jbox2d.dynamics.World;
 import org.joml.Vector2f;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.RecursiveAction;
+
 /** wrapper class for a JBox2D world, has useful methods that convert world values and vectors
  * into values and vectors that the graphics engine can use. */
 public class PhysicsWorld {
-    private final World world;
+    // the JBox2D worlds the bodies are split between, one per group of bodies that can never touch (see BodyGroups)
+    private World[] worlds;
+    // the world addBody creates bodies in
+    private int targetWorld = 0;
+    // with more than one world and more than one processor, steps each world as its own fork/join task
+    private StepTask[] stepTasks;
+    // the copies of static bodies made for other worlds, so they can be destroyed along with the original
+    private final HashMap<Body, ArrayList<Body>> copies = new HashMap<>();
+
+    // the solver settings, and the iteration counts stepForward(elapsedTime) uses, which follow the step time if adaptive
+    private SolverProfile solver = new SolverProfile();
+    private boolean adaptive = false;
+    private int velocityIterations = solver.velocityIterations;
+    private int positionIterations = solver.positionIterations;
+    // the step time per frame, averaged over recent frames, and the frames since the counts last changed
+    private static final int ADAPT_FRAMES = 15;
+    private static final double ADAPT_SMOOTHING = 0.2;
+    private double averageStepMillis = -1.0;
+    private int framesSinceAdapted = 0;
 
     // 1 real life meter is this in canvas units
     private float canvasMeter;
 
+    // fixed timestep settings. A timestep of 0 means the world is stepped with the raw frame time.
+    private float fixedTimestep = 0.0f;
+    private int maxStepsPerFrame = 1;
+    private double accumulator = 0.0;
+    private float interpolationAlpha = 1.0f;
+    private double simulatedTime = 0.0;
+    // the simulated time of the state in the buffer, which is the recorded time shown while showRecording is in effect
+    private double stateTime = 0.0;
+    // the cost of the recent steps, enough for the last five seconds at 60 steps a second
+    private static final int TELEMETRY_STEPS = 300;
+    private final StepTelemetry telemetry = new StepTelemetry(TELEMETRY_STEPS);
+    // the moving bodies that were awake after the last step, counted as the state is exported
+    private int awakeBodies = 0;
+    // ends the run early once met, after which the world isn't stepped until the run starts over
+    private StopCondition stopCondition;
+    private boolean stopped = false;
+
+    // bodies in the order they were added, the index of a body is its index in the state buffer
+    private Body[] bodies = new Body[16];
+    private final BodyStateBuffer state = new BodyStateBuffer(16);
+    // records the state after every step once startRecording is called
+    private StateRecording recording;
+    // while a physics thread steps the world, the snapshot of its state the render thread is drawing (see show)
+    private BodyStateBuffer shownState;
+    private float shownAlpha;
+    private double shownStateTime;
+
+    // the position, angle, velocities and awake flag of every body when saveSnapshot was last called
+    private static final int SNAPSHOT_VALUES = 7;
+    private float[] snapshot = new float[0];
+    private int snapshotCount = 0;
+    private final Vec2 scratchVec = new Vec2();
+
     public PhysicsWorld(Vector2f gravity, float canvasMeter) {
-        this.world = new World(new Vec2(gravity.x, gravity.y), false);
+        this.worlds = new World[] { createWorld(new Vec2(gravity.x, gravity.y)) };
         this.canvasMeter = canvasMeter;
     }
 
-    public void stepForward(double elapsedTime, int calculationsPerFrame) {
-        // the higher the number, the more accurate the physics, at the cost of frame rate.
-        this.world.step((float) elapsedTime, calculationsPerFrame, calculationsPerFrame);
+    private World createWorld(Vec2 gravity) {
+        World world = new World(new Vec2(gravity), this.solver.allowSleep);
+        world.setWarmStarting(this.solver.warmStarting);
+        world.setContinuousPhysics(this.solver.continuousPhysics);
+        return world;
+    }
+
+    /** replaces the worlds with count empty ones, set up from the solver profile */
+    private void createWorlds(int count) {
+        if (this.state.count() > 0)
+            throw new IllegalStateException("The worlds can't be replaced once bodies have been added");
+        Vec2 gravity = this.worlds[0].getGravity();
+        this.worlds = new World[Math.max(count, 1)];
+        for (int i = 0; i < this.worlds.length; i++) {
+            this.worlds[i] = createWorld(gravity);
+        }
+        this.targetWorld = 0;
+
+        this.stepTasks = null;
+        if (this.worlds.length > 1 && Runtime.getRuntime().availableProcessors() > 1) {
+            this.stepTasks = new StepTask[this.worlds.length];
+            for (int i = 0; i < this.worlds.length; i++) {
+                this.stepTasks[i] = new StepTask(this.worlds[i]);
+            }
+        }
+    }
+
+    /**
+     * Steps with the settings of a solver profile from now on. Must be called before any body is added, since
+     * JBox2D only lets sleeping be turned on or off as a world is made. Adaptive mode is only used if allowAdaptive
+     * is true as well, so runs that need repeatable results can step with the profile's own counts.
+     * */
+    public void setSolver(SolverProfile solver, boolean allowAdaptive) {
+        this.solver = solver;
+        createWorlds(this.worlds.length);
+        this.adaptive = allowAdaptive && solver.adaptive;
+        this.velocityIterations = solver.velocityIterations;
+        this.positionIterations = solver.positionIterations;
+        if (this.adaptive) {
+            this.velocityIterations = clampIterations(this.velocityIterations);
+            this.positionIterations = clampIterations(this.positionIterations);
+        }
+        this.averageStepMillis = -1.0;
+        this.framesSinceAdapted = 0;
+    }
+
+    /**
+     * Splits the world into count JBox2D worlds, which are stepped in parallel but otherwise act as one: every body
+     * still has one index into the same state buffer. Bodies in different worlds never collide, so this is only for
+     * groups of bodies that can never touch anyway, as found by BodyGroups. Must be called before any body is added.
+     * */
+    public void setWorldCount(int count) {
+        createWorlds(count);
+    }
+
+    public int getWorldCount() {
+        return this.worlds.length;
+    }
+
+    /** the world, as an index below getWorldCount, that bodies added from now on are created in */
+    public void setTargetWorld(int index) {
+        this.targetWorld = index;
+    }
+
+    /**
+     * Copies a static body, with its fixtures, into another of the worlds, so the bodies there collide with it too.
+     * The copy has no state index of its own, since static bodies never move.
+     * */
+    public void copyStaticBody(int index, int world) {
+        Body body = this.bodies[index];
+        if (body.getType() != BodyType.STATIC)
+            throw new IllegalArgumentException("Only static bodies can be copied into another world");
+
+        BodyDef def = new BodyDef();
+        def.type = BodyType.STATIC;
+        def.position.set(body.getPosition());
+        def.angle = body.getAngle();
+        Body copy = this.worlds[world].createBody(def);
+        copy.setUserData(body.getUserData());
+        for (Fixture fixture = body.getFixtureList(); fixture != null; fixture = fixture.getNext()) {
+            FixtureDef fixtureDef = new FixtureDef();
+            fixtureDef.shape = fixture.getShape();
+            fixtureDef.density = fixture.getDensity();
+            fixtureDef.friction = fixture.getFriction();
+            fixtureDef.restitution = fixture.getRestitution();
+            fixtureDef.isSensor = fixture.isSensor();
+            fixtureDef.filter.set(fixture.getFilterData());
+            copy.createFixture(fixtureDef);
+        }
+        this.copies.computeIfAbsent(body, b -> new ArrayList<>()).add(copy);
+    }
+
+    /** steps every world once, in parallel if there are several */
+    private void stepWorlds(float timestep, int velocityIterations, int positionIterations) {
+        if (this.stepTasks == null) {
+            for (World world : this.worlds) {
+                world.step(timestep, velocityIterations, positionIterations);
+            }
+            return;
+        }
+
+        for (StepTask task : this.stepTasks) {
+            task.reinitialize();
+            task.timestep = timestep;
+            task.velocityIterations = velocityIterations;
+            task.positionIterations = positionIterations;
+        }
+        // the calling thread steps the first world itself while the pool steps the rest
+        for (int i = 1; i < this.stepTasks.length; i++) {
+            this.stepTasks[i].fork();
+        }
+        this.stepTasks[0].invoke();
+        for (int i = 1; i < this.stepTasks.length; i++) {
+            this.stepTasks[i].join();
+        }
+    }
+
+    /** steps one of the worlds, reused every step so stepping doesn't allocate */
+    // never serialized, it only extends a serializable fork/join task
+    @SuppressWarnings("serial")
+    private static class StepTask extends RecursiveAction {
+        private final World world;
+        float timestep;
+        int velocityIterations;
+        int positionIterations;
+
+        StepTask(World world) {
+            this.world = world;
+        }
+
+        @Override
+        protected void compute() {
+            this.world.step(this.timestep, this.velocityIterations, this.positionIterations);
+        }
+    }
+
+    /**
+     * Switches the world to fixed timestep mode. Frame time is accumulated and the world is stepped in increments
+     * of exactly timestep seconds, at most maxStepsPerFrame times per call to stepForward. Any time left over after
+     * the cap is reached is dropped, so a slow frame slows the simulation down instead of snowballing.
+     * A timestep of 0 switches back to variable stepping.
+     * */
+    public void setFixedTimestep(float timestep, int maxStepsPerFrame) {
+        this.fixedTimestep = Math.max(timestep, 0.0f);
+        this.maxStepsPerFrame = Math.max(maxStepsPerFrame, 1);
+        this.accumulator = 0.0;
+        this.interpolationAlpha = 1.0f;
+    }
+
+    /**
+     * Steps with the iteration counts of the solver profile, which in adaptive mode follow the time the steps take.
+     * Returns the number of physics steps that were taken.
+     * */
+    public int stepForward(double elapsedTime) {
+        if (!this.adaptive) {
+            return stepForward(elapsedTime, this.velocityIterations, this.positionIterations);
+        }
+        long start = System.nanoTime();
+        int steps = stepForward(elapsedTime, this.velocityIterations, this.positionIterations);
+        // a frame without a step says nothing about how long steps take
+        if (steps > 0) {
+            adapt((System.nanoTime() - start) / 1e6);
+        }
+        return steps;
+    }
+
+    /** steps with the given number of both velocity and position iterations, returning the number of steps taken */
+    public int stepForward(double elapsedTime, int calculationsPerFrame) {
+        return stepForward(elapsedTime, calculationsPerFrame, calculationsPerFrame);
+    }
+
+    /** returns the number of physics steps that were taken, which is 0 once the stop condition has been met */
+    public int stepForward(double elapsedTime, int velocityIterations, int positionIterations) {
+        if (this.stopped)
+            return 0;
+
+        if (fixedTimestep <= 0.0f) {
+            this.state.savePrevious();
+            // the higher the number, the more accurate the physics, at the cost of frame rate.
+            long start = System.nanoTime();
+            stepWorlds((float) elapsedTime, velocityIterations, positionIterations);
+            long stepNanos = System.nanoTime() - start;
+            exportState();
+            recordTelemetry(stepNanos);
+            this.simulatedTime += elapsedTime;
+            this.stateTime = simulatedTime;
+            this.interpolationAlpha = 1.0f;
+            if (recording != null) recording.record(state, simulatedTime);
+            this.stopped = stopCondition != null && stopCondition.isMet(state);
+            return 1;
+        }
+
+        this.accumulator += elapsedTime;
+        int steps = 0;
+        while (accumulator >= fixedTimestep && steps < maxStepsPerFrame) {
+            this.state.savePrevious();
+            long start = System.nanoTime();
+            stepWorlds(fixedTimestep, velocityIterations, positionIterations);
+            long stepNanos = System.nanoTime() - start;
+            exportState();
+            recordTelemetry(stepNanos);
+            this.accumulator -= fixedTimestep;
+            this.simulatedTime += fixedTimestep;
+            this.stateTime = simulatedTime;
+            if (recording != null) recording.record(state, simulatedTime);
+            steps++;
+
+            if (stopCondition != null && stopCondition.isMet(state)) {
+                // the rest of the frame's time is never stepped, so show the final step as it is
+                this.stopped = true;
+                this.accumulator = 0.0;
+                this.interpolationAlpha = 1.0f;
+                return steps;
+            }
+        }
+
+        // avoid the spiral of death: if the cap was hit, throw away the backlog instead of carrying it over
+        if (accumulator >= fixedTimestep) {
+            this.accumulator %= fixedTimestep;
+        }
+        this.interpolationAlpha = (float) (accumulator / fixedTimestep);
+        return steps;
+    }
+
+    /**
+     * Moves both iteration counts one step towards keeping the frame's step time within the budget: down while the
+     * average is over it, up while it is under half of it. They only move every few frames, so a single slow frame
+     * doesn't change them, and the average has time to show the effect of the last change.
+     * */
+    private void adapt(double stepMillis) {
+        if (this.averageStepMillis < 0.0) {
+            this.averageStepMillis = stepMillis;
+        } else {
+            this.averageStepMillis += (stepMillis - this.averageStepMillis) * ADAPT_SMOOTHING;
+        }
+        if (++this.framesSinceAdapted < ADAPT_FRAMES)
+            return;
+        this.framesSinceAdapted = 0;
+
+        int change = 0;
+        if (this.averageStepMillis > this.solver.stepBudget) {
+            change = -1;
+        } else if (this.averageStepMillis < this.solver.stepBudget / 2) {
+            change = 1;
+        }
+        this.velocityIterations = clampIterations(this.velocityIterations + change);
+        this.positionIterations = clampIterations(this.positionIterations + change);
+    }
+
+    private int clampIterations(int iterations) {
+        return Math.max(this.solver.minIterations, Math.min(this.solver.maxIterations, iterations));
+    }
+
+    /** the velocity iterations stepForward(elapsedTime) steps with right now */
+    public int getVelocityIterations() {
+        return this.velocityIterations;
+    }
+
+    /** the position iterations stepForward(elapsedTime) steps with right now */
+    public int getPositionIterations() {
+        return this.positionIterations;
+    }
+
+    /** copies the state of every body into the state buffer, in one pass after each step */
+    private void exportState() {
+        int count = this.state.count();
+        int awake = 0;
+        for (int i = 0; i < count; i++) {
+            writeState(i);
+            Body body = this.bodies[i];
+            if (body != null && body.isAwake() && body.getType() != BodyType.STATIC) awake++;
+        }
+        this.awakeBodies = awake;
+    }
+
+    /** records what a step cost and how big the worlds were after it */
+    private void recordTelemetry(long stepNanos) {
+        int bodyCount = 0;
+        int contactCount = 0;
+        int proxyCount = 0;
+        for (World world : this.worlds) {
+            bodyCount += world.getBodyCount();
+            contactCount += world.getContactCount();
+            proxyCount += world.getProxyCount();
+        }
+        this.telemetry.record(stepNanos, bodyCount, this.awakeBodies, contactCount, proxyCount);
+    }
+
+    /**
+     * The cost of the recent steps. Like the bodies, it belongs to the thread stepping the world, so while a
+     * PhysicsThread runs, read the summaries it hands over instead.
+     * */
+    public StepTelemetry getTelemetry() {
+        return this.telemetry;
+    }
+
+    private void writeState(int index) {
+        Body body = this.bodies[index];
+        if (body == null)
+            return;
+
+        Vec2 center = body.getWorldCenter();
+        Vec2 velocity = body.getLinearVelocity();
+        this.state.set(index, center.x, center.y, body.getAngle(), velocity.x, velocity.y, body.isAwake());
+    }
+
+    /** saves the state of every body, which restoreSnapshot puts them back to */
+    public void saveSnapshot() {
+        int count = this.state.count();
+        if (this.snapshot.length < count * SNAPSHOT_VALUES) {
+            this.snapshot = new float[count * SNAPSHOT_VALUES];
+        }
+        for (int i = 0; i < count; i++) {
+            Body body = this.bodies[i];
+            if (body == null)
+                continue;
+            int offset = i * SNAPSHOT_VALUES;
+            this.snapshot[offset] = body.getPosition().x;
+            this.snapshot[offset + 1] = body.getPosition().y;
+            this.snapshot[offset + 2] = body.getAngle();
+            this.snapshot[offset + 3] = body.getLinearVelocity().x;
+            this.snapshot[offset + 4] = body.getLinearVelocity().y;
+            this.snapshot[offset + 5] = body.getAngularVelocity();
+            this.snapshot[offset + 6] = body.isAwake() ? 1.0f : 0.0f;
+        }
+        this.snapshotCount = count;
+    }
+
+    /**
+     * Puts every body back to its state from saveSnapshot and rewinds the clock to 0, reusing the world and bodies.
+     * Contacts are dropped, so no impulses from the old run carry over into the first step through warm starting.
+     * The recording, if there is one, starts over.
+     * */
+    public void restoreSnapshot() {
+        for (int i = 0; i < this.snapshotCount; i++) {
+            Body body = this.bodies[i];
+            if (body == null)
+                continue;
+            int offset = i * SNAPSHOT_VALUES;
+            body.setTransform(this.scratchVec.set(this.snapshot[offset], this.snapshot[offset + 1]), this.snapshot[offset + 2]);
+            // deactivating destroys the body's contacts, activating creates its broad-phase proxies again
+            body.setActive(false);
+            body.setActive(true);
+            // putting a body to sleep zeroes its velocity, so the awake flag has to be set first
+            body.setAwake(this.snapshot[offset + 6] != 0.0f);
+            body.setLinearVelocity(this.scratchVec.set(this.snapshot[offset + 3], this.snapshot[offset + 4]));
+            body.setAngularVelocity(this.snapshot[offset + 5]);
+            body.m_force.setZero();
+            body.m_torque = 0.0f;
+        }
+
+        this.accumulator = 0.0;
+        this.simulatedTime = 0.0;
+        this.stateTime = 0.0;
+        this.stopped = false;
+        exportState();
+        this.state.savePrevious();
+        this.interpolationAlpha = 1.0f;
+        if (this.recording != null) {
+            this.recording.clear();
+            this.recording.record(this.state, this.simulatedTime);
+        }
+    }
+
+    /**
+     * Ends the run as soon as condition is met after a step, or never if it is null. It isn't checked before the
+     * first step.
+     * */
+    public void setStopCondition(StopCondition condition) {
+        this.stopCondition = condition;
+    }
+
+    /** true once the stop condition has been met, after which stepForward does nothing until restoreSnapshot */
+    public boolean isStopped() {
+        return this.stopped;
+    }
+
+    /**
+     * Starts recording the state of every body after each step, beginning with the state right now. Bodies must all
+     * be added first. The recording stops growing once it holds maxBytes.
+     * */
+    public StateRecording startRecording(int maxBytes) {
+        this.recording = new StateRecording(this.state.count(), maxBytes);
+        this.recording.record(this.state, this.simulatedTime);
+        return this.recording;
+    }
+
+    public StateRecording getRecording() {
+        return this.recording;
+    }
+
+    /**
+     * Fills the state buffer from the recording at the given time instead of the simulation, so renderers show that
+     * moment. The JBox2D world isn't touched; call showSimulation to go back to its state before stepping again.
+     * */
+    public void showRecording(double time) {
+        if (this.recording != null) {
+            this.interpolationAlpha = this.recording.read(time, this.state);
+            this.stateTime = Math.max(0.0, Math.min(time, this.recording.getEndTime()));
+        }
+    }
+
+    /** refills the state buffer from the bodies, undoing showRecording */
+    public void showSimulation() {
+        exportState();
+        this.state.savePrevious();
+        this.interpolationAlpha = 1.0f;
+        this.stateTime = this.simulatedTime;
+    }
+
+    /**
+     * The state of every body after the last step, indexed by the state index returned from addBody.
+     * Renderers and exporters should read from this instead of querying the bodies.
+     * */
+    public BodyStateBuffer getState() {
+        return this.shownState != null ? this.shownState : this.state;
+    }
+
+    /**
+     * How far the renderer is between the last two physics states (0 = previous state, 1 = current state).
+     * Always 1 when the world is not in fixed timestep mode.
+     * */
+    public float getInterpolationAlpha() {
+        return this.shownState != null ? this.shownAlpha : this.interpolationAlpha;
+    }
+
+    /**
+     * Makes getState and getInterpolationAlpha return a copy of the state instead of the world's own, so renderers
+     * can read it on one thread while a PhysicsThread steps the world on another.
+     * */
+    void show(BodyStateBuffer state, float alpha, double stateTime) {
+        this.shownState = state;
+        this.shownAlpha = alpha;
+        this.shownStateTime = stateTime;
+    }
+
+    /** goes back to getState returning the world's own state, once nothing steps it on another thread */
+    void showLive() {
+        this.shownState = null;
+    }
+
+    /** the world's own state and interpolation alpha, whatever is being shown, for the thread stepping it */
+    BodyStateBuffer liveState() {
+        return this.state;
+    }
+
+    float liveInterpolationAlpha() {
+        return this.interpolationAlpha;
+    }
+
+    double liveStateTime() {
+        return this.stateTime;
+    }
+
+    /**
+     * The simulated time of the state getState returns, which goes back whenever the run starts over or an earlier
+     * moment of the recording is shown.
+     * */
+    public double getStateTime() {
+        return this.shownState != null ? this.shownStateTime : this.stateTime;
+    }
+
+    /** the total amount of time the world has been stepped, in seconds */
+    public double getSimulatedTime() {
+        return this.simulatedTime;
     }
 
     public void setGravity(Vector2f gravity) {
-        this.world.setGravity(new Vec2(gravity.x, gravity.y));
+        for (World world : this.worlds) {
+            world.setGravity(new Vec2(gravity.x, gravity.y));
+        }
     }
 
     public void setCanvasMeter(float meterLength) {
         this.canvasMeter = meterLength;
     }
 
+    /** the length of one meter on the canvas */
+    public float getCanvasMeter() {
+        return this.canvasMeter;
+    }
+
     public Body addAndCreateBody(BodyDef def) {
-        return this.world.createBody(def);
+        return getBody(addBody(def));
+    }
+
+    /** creates a body in the target world and returns its index in the state buffer */
+    public int addBody(BodyDef def) {
+        Body body = this.worlds[this.targetWorld].createBody(def);
+        int index = this.state.add();
+        if (index == this.bodies.length) {
+            this.bodies = Arrays.copyOf(this.bodies, this.bodies.length * 2);
+        }
+        this.bodies[index] = body;
+        refreshState(index);
+        return index;
+    }
+
+    public Body getBody(int index) {
+        return this.bodies[index];
+    }
+
+    /**
+     * Rewrites the current and previous state of a body, for when it was changed outside a step
+     * (e.g. its center of mass moved after a fixture was attached).
+     * */
+    public void refreshState(int index) {
+        writeState(index);
+        this.state.savePrevious(index);
     }
 
     /** remove all references to the body */
     public void destroyObject(PhysicsObject2D object) {
-        this.world.destroyBody(object.getBody());
+        for (int i = 0; i < this.state.count(); i++) {
+            if (this.bodies[i] == object.getBody()) {
+                // the slot stays reserved so the indices of the other bodies don't change
+                this.bodies[i] = null;
+                this.state.set(i, 0, 0, 0, 0, 0, false);
+            }
+        }
+        ArrayList<Body> bodyCopies = this.copies.remove(object.getBody());
+        if (bodyCopies != null) {
+            for (Body copy : bodyCopies) {
+                copy.getWorld().destroyBody(copy);
+            }
+        }
+        object.getBody().getWorld().destroyBody(object.getBody());
     }
 
     public Vec2 canvasToWorldCoords(Vector2f pos) {
@@ -49,6 +615,15 @@ public class PhysicsWorld {
         return new Vector2f(pos.x * canvasMeter, -pos.y * canvasMeter);
     }
 
+    // allocation free versions of the coordinate conversions, for use every frame
+    public float xWorldToCanvas(float x) {
+        return x * canvasMeter;
+    }
+
+    public float yWorldToCanvas(float y) {
+        return -y * canvasMeter;
+    }
+
     public float scalarCanvasToWorld(float scalar) {
         return scalar / canvasMeter;
     }
@@ -2,7 +2,8 @@ package physics;
 
 import edu.usu.graphics.Color;
 import edu.usu.graphics.Graphics2D;
-import edu.usu.graphics.objects.Triangle;
+import edu.usu.graphics.Mesh;
+import edu.usu.graphics.StaticGeometry;
 import org.jbox2d.collision.shapes.MassData;
 import org.jbox2d.collision.shapes.PolygonShape;
 import org.jbox2d.common.Vec2;
@@ -11,7 +12,6 @@ import org.jbox2d.dynamics.BodyDef;
 import org.jbox2d.dynamics.BodyType;
 import org.jbox2d.dynamics.FixtureDef;
 import org.joml.Vector2f;
-import org.joml.Vector3f;
 
 import java.util.ArrayList;
 
@@ -20,9 +20,13 @@ import static org.jbox2d.common.Settings.maxPolygonVertices;
 public class Polygon implements PhysicsObject2D {
     private final PhysicsWorld world;
     private Body body;
+    private int stateIndex;
 
     private final ArrayList<Vector2f> vertices;
-    private Vector2f centroid;
+    private final Vector2f centroid;
+    // the outline relative to the centroid as (x, y) pairs, and the shared mesh built from it
+    private final float[] localOutline;
+    private Mesh mesh;
     public float renderOrder;
     public Color color;
 
@@ -34,6 +38,11 @@ public class Polygon implements PhysicsObject2D {
         assert vertices.size() <= maxPolygonVertices;
         this.vertices = vertices;
         this.centroid = calculateCentroid();
+        this.localOutline = new float[vertices.size() * 2];
+        for (int i = 0; i < vertices.size(); i++) {
+            this.localOutline[i * 2 + 0] = vertices.get(i).x - this.centroid.x;
+            this.localOutline[i * 2 + 1] = vertices.get(i).y - this.centroid.y;
+        }
 
         this.world = world;
         this.color = color;
@@ -55,7 +64,8 @@ public class Polygon implements PhysicsObject2D {
         bodyDef.linearVelocity = new Vec2(initVelocity.x, initVelocity.y);
 
         // create body and place in the world
-        this.body = world.addAndCreateBody(bodyDef);
+        this.stateIndex = world.addBody(bodyDef);
+        this.body = world.getBody(stateIndex);
         this.angle = this.body.getAngle();
 
         Vec2[] box2d_vertices = createVec2vertices();
@@ -73,6 +83,7 @@ public class Polygon implements PhysicsObject2D {
 
         // attach fixture to body
         this.body.createFixture(fx);
+        this.world.refreshState(stateIndex);
     }
 
     private Vec2[] createVec2vertices() {
@@ -113,53 +124,49 @@ public class Polygon implements PhysicsObject2D {
     }
 
     @Override
-    public void update(double elapsedTime) {
-        // retrieve the center point of the body from the world
-        Vec2 bodyCenter = this.body.getWorldCenter();
-        this.centroid = new Vector2f(bodyCenter.x, bodyCenter.y);
-        this.angle = this.body.getAngle(); // inverted because the y-axis on the canvas is flipped
+    public int getStateIndex() {
+        return this.stateIndex;
     }
 
-    /** calculates the points that make the polygon for rendering */
-    private ArrayList<Vector3f> createPolygonPoints(Vector2f centroid) {
-        ArrayList<Vector3f> polygonPoints = new ArrayList<>();
-
-        // go through the vertices and transform them into points that the graphics API can use
-        for (Vector2f vertex : this.vertices) {
-            Vector2f canvasVertex = this.world.worldCoordsToCanvas(new Vec2(vertex.x, vertex.y));
-            // translate point to be relative to origin
-            float pointX_t = canvasVertex.x - centroid.x;
-            float pointY_t = canvasVertex.y - centroid.y;
-
-            // rotate point about origin
-            float pointX_tr = pointX_t * (float) Math.cos(this.angle) - pointY_t * (float) Math.sin(this.angle);
-            float pointY_tr = pointX_t * (float) Math.sin(this.angle) + pointY_t * (float) Math.cos(this.angle);
-
-            // translate point to be relative to the centroid
-            float pointX_r = pointX_tr + centroid.x;
-            float pointY_r = pointY_tr + centroid.y;
+    @Override
+    public void update(double elapsedTime) {
+        // retrieve the center point of the body from the world's state buffer
+        BodyStateBuffer state = this.world.getState();
+        this.centroid.set(state.x(stateIndex), state.y(stateIndex));
+        this.angle = state.angle(stateIndex);
+    }
 
-            Vector2f rotatedVertex = new Vector2f(pointX_r, pointY_r);
-            polygonPoints.add(new Vector3f(rotatedVertex.x, rotatedVertex.y, this.renderOrder));
+    private void updateMesh(Graphics2D graphics) {
+        if (this.mesh == null) {
+            this.mesh = graphics.getMeshCache().polygon(this.localOutline);
         }
-        polygonPoints.add(polygonPoints.getFirst());
+    }
 
-        return polygonPoints;
+    @Override
+    public boolean bake(Graphics2D graphics, StaticGeometry geometry) {
+        updateMesh(graphics);
+        // placed where render would draw it, which the body itself may not be while the physics thread runs
+        BodyStateBuffer state = this.world.getState();
+        float alpha = this.world.getInterpolationAlpha();
+        geometry.add(this.mesh, state.interpolatedX(stateIndex, alpha), state.interpolatedY(stateIndex, alpha),
+                this.renderOrder, state.interpolatedAngle(stateIndex, alpha), this.color);
+        return true;
     }
 
     @Override
     public void render(Graphics2D graphics, double elapsedTime) {
-        // convert the center and radius for the graphics API
-        Vector2f centerCanvas2f = this.world.worldCoordsToCanvas(new Vec2(this.centroid.x, this.centroid.y));
-        Vector3f centerCanvas3f = new Vector3f(centerCanvas2f.x, centerCanvas2f.y, this.renderOrder);
-
-        // display the polygon as a set of triangles
-        ArrayList<Vector3f> polygonPoints = createPolygonPoints(centerCanvas2f);
-        for (int i = 0; i < polygonPoints.size()-1; i++) {
-            Vector3f v1 = polygonPoints.get(i);
-            Vector3f v2 = polygonPoints.get(i+1);
-            graphics.draw(new Triangle(centerCanvas3f, v1, v2), this.angle, centerCanvas2f, this.color);
-        }
+        // blend between the last two physics states so motion is smooth regardless of the frame rate
+        BodyStateBuffer state = this.world.getState();
+        float alpha = this.world.getInterpolationAlpha();
+
+        // the mesh is in meters around the centroid, so scale it to the canvas and flip it to the canvas' downward
+        // y axis; the body's rotation is applied to the local vertices, just like the physics does
+        updateMesh(graphics);
+        float meter = this.world.getCanvasMeter();
+        graphics.draw(this.mesh,
+                this.world.xWorldToCanvas(state.interpolatedX(stateIndex, alpha)),
+                this.world.yWorldToCanvas(state.interpolatedY(stateIndex, alpha)),
+                this.renderOrder, state.interpolatedAngle(stateIndex, alpha), meter, -meter, this.color);
     }
 
     public String toString() {
@@ -2,6 +2,8 @@ package physics;
 
 import edu.usu.graphics.Color;
 import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.Mesh;
+import edu.usu.graphics.StaticGeometry;
 import edu.usu.graphics.objects.Rectangle;
 
 import edu.usu.graphics.Texture;
@@ -18,11 +20,20 @@ import org.joml.Vector2f;
 public class Rect implements PhysicsObject2D {
     private final PhysicsWorld world;
     private Body body;
+    private int stateIndex;
 
-    private Vector2f center;
+    private final Vector2f center;
     private final float width;
     private final float height;
+    // the image drawn over the rectangle, or null for a solid color. The texture is acquired on the first render.
+    private final String texturePath;
     private Texture texture;
+    // the shared local space mesh, used when the rectangle has no texture. Every rectangle of the same size shares one,
+    // since scaling a shared square by the width and height would shear it once rotated.
+    private Mesh mesh;
+    // scratch objects reused by every render so drawing doesn't allocate
+    private final Vector2f renderCenter = new Vector2f();
+    private final Rectangle renderRectangle = new Rectangle(0, 0, 0, 0);
 
     public float renderOrder;
     public Color color;
@@ -34,9 +45,10 @@ public class Rect implements PhysicsObject2D {
     public Rect(PhysicsWorld world, Vector2f center, float width, float height, Color color, float renderOrder, float initRotation, Vector2f initVelocity, BodyType type, float density, float friction, float restitution) {
         this.world = world;
         this.color = color;
-        this.center = center;
+        this.center = new Vector2f(center);
         this.width = width;
         this.height = height;
+        this.texturePath = null;
         this.renderOrder = renderOrder;
 
         this.friction = friction;
@@ -46,13 +58,13 @@ public class Rect implements PhysicsObject2D {
     }
 
     // draw a rectangle with an image overlay
-    public Rect(PhysicsWorld world, Vector2f center, float width, float height, Color color, Texture texture, float renderOrder, float initRotation, Vector2f initVelocity, BodyType type, float density, float friction, float restitution) {
+    public Rect(PhysicsWorld world, Vector2f center, float width, float height, Color color, String texturePath, float renderOrder, float initRotation, Vector2f initVelocity, BodyType type, float density, float friction, float restitution) {
         this.world = world;
         this.color = color;
-        this.center = center;
+        this.center = new Vector2f(center);
         this.width = width;
         this.height = height;
-        this.texture = texture;
+        this.texturePath = texturePath;
         this.renderOrder = renderOrder;
 
         this.friction = friction;
@@ -70,8 +82,10 @@ public class Rect implements PhysicsObject2D {
         bodyDef.linearVelocity = new Vec2(initVelocity.x, initVelocity.y);
 
         // create body and place in the world
-        this.body = world.addAndCreateBody(bodyDef);
+        this.stateIndex = world.addBody(bodyDef);
+        this.body = world.getBody(stateIndex);
         this.body.setLinearVelocity(new Vec2(initVelocity.x, initVelocity.y));
+        this.angle = this.body.getAngle();
 
         // create shape - the width and height for JBox2D is relative to the center of the rectangle
         PolygonShape rectangle = new PolygonShape();
@@ -86,6 +100,7 @@ public class Rect implements PhysicsObject2D {
 
         // attach fixture to body
         body.createFixture(fx);
+        this.world.refreshState(stateIndex);
     }
 
     @Override
@@ -102,30 +117,79 @@ public class Rect implements PhysicsObject2D {
         return new Vector2f(this.world.worldCoordsToCanvas(new Vec2(center.x, center.y)));
     }
 
+    @Override
+    public int getStateIndex() {
+        return this.stateIndex;
+    }
+
     @Override
     public void update(double elapsedTime) {
-        Vec2 bodyCenter = this.body.getWorldCenter();
-        this.center = new Vector2f(bodyCenter.x, bodyCenter.y);
-        this.angle = this.body.getAngle();
+        BodyStateBuffer state = this.world.getState();
+        this.center.set(state.x(stateIndex), state.y(stateIndex));
+        this.angle = state.angle(stateIndex);
+    }
+
+    private void updateMesh(Graphics2D graphics) {
+        if (this.mesh == null) {
+            this.mesh = graphics.getMeshCache().rectangle(this.width, this.height);
+        }
+    }
+
+    @Override
+    public boolean bake(Graphics2D graphics, StaticGeometry geometry) {
+        // static geometry is a single solid color draw, so textured rectangles are still drawn on their own
+        if (this.texturePath != null) return false;
+        updateMesh(graphics);
+        // placed where render would draw it, which the body itself may not be while the physics thread runs
+        BodyStateBuffer state = this.world.getState();
+        float alpha = this.world.getInterpolationAlpha();
+        geometry.add(this.mesh, state.interpolatedX(stateIndex, alpha), state.interpolatedY(stateIndex, alpha),
+                this.renderOrder, state.interpolatedAngle(stateIndex, alpha), this.color);
+        return true;
     }
 
     @Override
     public void render(Graphics2D graphics, double elapsedTime) {
-        // convert the center for the graphics API
-        Vector2f centerCanvas = this.world.worldCoordsToCanvas(new Vec2(center.x, center.y));
+        // blend between the last two physics states so motion is smooth regardless of the frame rate
+        BodyStateBuffer state = this.world.getState();
+        float alpha = this.world.getInterpolationAlpha();
+        float angle = state.interpolatedAngle(stateIndex, alpha);
+        float centerX = this.world.xWorldToCanvas(state.interpolatedX(stateIndex, alpha));
+        float centerY = this.world.yWorldToCanvas(state.interpolatedY(stateIndex, alpha));
+
+        if (this.texturePath == null) {
+            // the mesh is in meters, so scale it to the canvas and flip it to the canvas' downward y axis. Every solid
+            // rectangle of the same size is one instanced draw.
+            updateMesh(graphics);
+            float meter = this.world.getCanvasMeter();
+            graphics.drawInstance(this.mesh, centerX, centerY, this.renderOrder, angle, meter, -meter, this.color);
+            return;
+        }
 
         // convert the width and height for the graphics API
         float widthCanvas = this.world.scalarWorldToCanvas(this.width);
         float heightCanvas= this.world.scalarWorldToCanvas(this.height);
-        float left = centerCanvas.x - widthCanvas/2;
-        float top = centerCanvas.y - heightCanvas/2;
-
-        // render the rectangle
-        Rectangle rectangle = new Rectangle(left, top, widthCanvas, heightCanvas, renderOrder);
-        if (this.texture == null)
-            graphics.draw(rectangle, -this.angle, centerCanvas, this.color);
-        else
-            graphics.draw(this.texture, rectangle, -this.angle, centerCanvas, this.color);
+
+        if (this.texture == null) {
+            this.texture = graphics.getTextureCache().acquire(this.texturePath);
+        }
+
+        // render the textured rectangle
+        Rectangle rectangle = this.renderRectangle;
+        rectangle.left = centerX - widthCanvas/2;
+        rectangle.top = centerY - heightCanvas/2;
+        rectangle.width = widthCanvas;
+        rectangle.height = heightCanvas;
+        rectangle.z = renderOrder;
+        graphics.draw(this.texture, rectangle, -angle, this.renderCenter.set(centerX, centerY), this.color);
+    }
+
+    @Override
+    public void release(Graphics2D graphics) {
+        if (this.texture != null) {
+            graphics.getTextureCache().release(this.texturePath);
+            this.texture = null;
+        }
     }
 
     public String toString() {
@@ -0,0 +1,29 @@
+package physics;
+
+/**
+ * How much work JBox2D puts into each step of a simulation, read from the "solver" block of a simulation file. The
+ * defaults are what every simulation used before profiles existed. Simple scenes can get away with fewer iterations,
+ * and stacks of resting bodies need more to stay steady.
+ * <p>
+ * In adaptive mode the iteration counts start at the configured values and follow the measured step time: they drop
+ * while stepping a frame takes longer than stepBudget, and rise while it takes under half of it, always staying within
+ * minIterations and maxIterations. Adaptive mode only applies where there is a frame to keep on time; headless runs
+ * step with the configured counts, so their results don't depend on how fast the machine is.
+ * */
+public class SolverProfile {
+    // solver passes over the contacts each step, for their velocities and to push overlapping bodies apart
+    public int velocityIterations = 10;
+    public int positionIterations = 10;
+    // whether each step starts from the contact impulses of the last one, which steadies stacks
+    public boolean warmStarting = true;
+    // whether fast bodies are swept between steps so they can't pass through static ones
+    public boolean continuousPhysics = true;
+    // whether bodies that have come to rest stop being simulated until something touches them
+    public boolean allowSleep = false;
+
+    public boolean adaptive = false;
+    // the time stepping the physics may take each frame in adaptive mode, in milliseconds
+    public float stepBudget = 4.0f;
+    public int minIterations = 2;
+    public int maxIterations = 20;
+}
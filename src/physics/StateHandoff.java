@@ -0,0 +1,64 @@
+package physics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the newest body state from the physics thread to the render thread without either thread waiting on the
+ * other. Three snapshots rotate between them. The physics thread fills the back snapshot, then swaps it with the middle
+ * one in a single atomic step that also marks the middle one as fresh. When the middle snapshot is fresh, the render
+ * thread swaps it with the front one, then reads the front one for as long as it likes. Neither thread ever touches a
+ * snapshot the other holds, and the render thread always gets the newest complete snapshot, skipping any that were
+ * published faster than it drew them.
+ * */
+final class StateHandoff {
+    /** the state of every body after a batch of steps, along with the clock and recording at that moment */
+    static final class Snapshot {
+        final BodyStateBuffer state;
+        float alpha;
+        double stateTime;
+        double simulatedTime;
+        double recordedTime;
+        boolean recordingFull;
+        boolean stopped;
+        final StepTelemetry.Summary telemetry = new StepTelemetry.Summary();
+        // the number of resets done before this snapshot was taken
+        int generation;
+
+        Snapshot(int capacity) {
+            this.state = new BodyStateBuffer(capacity);
+        }
+    }
+
+    // the index of the middle snapshot is kept in the low two bits, with this bit set while it is fresh
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Snapshot[] snapshots;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    // owned by the physics thread
+    private int back = 0;
+    // owned by the render thread
+    private int front = 2;
+
+    StateHandoff(int capacity) {
+        this.snapshots = new Snapshot[] {new Snapshot(capacity), new Snapshot(capacity), new Snapshot(capacity)};
+    }
+
+    /** the snapshot the physics thread fills before publishing it */
+    Snapshot back() {
+        return snapshots[back];
+    }
+
+    /** makes the back snapshot the newest one, and takes the old middle one to fill next */
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /** the newest published snapshot, which the render thread can read until it calls this again */
+    Snapshot latest() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return snapshots[front];
+    }
+}
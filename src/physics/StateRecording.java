@@ -0,0 +1,188 @@
+package physics;
+
+import java.util.Arrays;
+
+/**
+ * The pose of every body after each physics step, kept so any recorded moment can be shown again without stepping
+ * JBox2D. Positions and angles are quantized to fixed point and stored per body as the change from the previous
+ * frame, zigzag varint encoded into one growable byte arena, so a body at rest costs 3 bytes a frame. Every
+ * KEYFRAME_INTERVAL frames the full values are stored instead, so seeking decodes at most that many frames, and
+ * playing forward decodes one frame at a time. Only poses are recorded, not velocities.
+ * */
+public class StateRecording {
+    // the resolution of the stored values, well below a pixel at any zoom the tutor uses
+    private static final float POSITION_STEP = 1.0f / 4096.0f;
+    private static final float ANGLE_STEP = 1.0f / 16384.0f;
+    private static final int KEYFRAME_INTERVAL = 30;
+    // the most bytes a quantized value can take once varint encoded
+    private static final int MAX_VALUE_BYTES = 5;
+
+    private final int bodyCount;
+    private final int maxBytes;
+    private byte[] arena = new byte[4096];
+    private int size = 0;
+    private int[] frameOffsets = new int[256];
+    private double[] frameTimes = new double[256];
+    private int frameCount = 0;
+    private boolean full = false;
+
+    // the quantized (x, y, angle) of every body in the last recorded frame
+    private final int[] recorded;
+    // the quantized (x, y, angle) of every body in the last decoded frame, which is -1 before anything is decoded
+    private final int[] decoded;
+    private int decodedFrame = -1;
+
+    /** a recording of bodyCount bodies that stops growing once it holds maxBytes of encoded poses */
+    public StateRecording(int bodyCount, int maxBytes) {
+        this.bodyCount = bodyCount;
+        this.maxBytes = maxBytes;
+        this.recorded = new int[bodyCount * 3];
+        this.decoded = new int[bodyCount * 3];
+    }
+
+    /** appends the current pose of every body, unless the recording is full */
+    void record(BodyStateBuffer state, double time) {
+        if (full || size + bodyCount * 3 * MAX_VALUE_BYTES > maxBytes) {
+            full = true;
+            return;
+        }
+        ensureCapacity(size + bodyCount * 3 * MAX_VALUE_BYTES);
+        if (frameCount == frameOffsets.length) {
+            frameOffsets = Arrays.copyOf(frameOffsets, frameCount * 2);
+            frameTimes = Arrays.copyOf(frameTimes, frameCount * 2);
+        }
+        frameOffsets[frameCount] = size;
+        frameTimes[frameCount] = time;
+
+        boolean keyframe = frameCount % KEYFRAME_INTERVAL == 0;
+        for (int i = 0; i < bodyCount; i++) {
+            writeValue(i * 3, Math.round(state.x(i) / POSITION_STEP), keyframe);
+            writeValue(i * 3 + 1, Math.round(state.y(i) / POSITION_STEP), keyframe);
+            writeValue(i * 3 + 2, Math.round(state.angle(i) / ANGLE_STEP), keyframe);
+        }
+        frameCount++;
+    }
+
+    /** throws away every frame, keeping the memory to record into again */
+    void clear() {
+        size = 0;
+        frameCount = 0;
+        full = false;
+        decodedFrame = -1;
+    }
+
+    private void writeValue(int slot, int value, boolean keyframe) {
+        int stored = keyframe ? value : value - recorded[slot];
+        recorded[slot] = value;
+
+        // zigzag so small negative changes stay small, then 7 bits per byte with the high bit marking a continuation
+        int zigzag = (stored << 1) ^ (stored >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            arena[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        arena[size++] = (byte) zigzag;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (arena.length < capacity) {
+            arena = Arrays.copyOf(arena, Math.max(capacity, arena.length * 2));
+        }
+    }
+
+    /**
+     * Fills the state buffer with the recorded frames on either side of time, the earlier one in the previous planes
+     * and the later one in the current planes. Returns how far time is between them, to use as the interpolation
+     * alpha. Times outside the recording show its first or last frame.
+     * */
+    float read(double time, BodyStateBuffer state) {
+        if (frameCount == 0) {
+            return 1.0f;
+        }
+
+        int before = frameAt(time);
+        int after = Math.min(before + 1, frameCount - 1);
+        decode(before);
+        writePoses(state, true);
+        decode(after);
+        writePoses(state, false);
+
+        if (after == before) {
+            return 1.0f;
+        }
+        double alpha = (time - frameTimes[before]) / (frameTimes[after] - frameTimes[before]);
+        return (float) Math.max(0.0, Math.min(1.0, alpha));
+    }
+
+    /** the last frame recorded at or before time, or the first frame if time is before the recording */
+    private int frameAt(double time) {
+        int low = 0;
+        int high = frameCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (frameTimes[middle] <= time) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /** decodes the given frame, continuing from the last decoded frame when it is on the way */
+    private void decode(int frame) {
+        int keyframe = frame - frame % KEYFRAME_INTERVAL;
+        int start = decodedFrame >= keyframe && decodedFrame <= frame ? decodedFrame + 1 : keyframe;
+        for (int f = start; f <= frame; f++) {
+            boolean isKeyframe = f % KEYFRAME_INTERVAL == 0;
+            int offset = frameOffsets[f];
+            for (int slot = 0; slot < bodyCount * 3; slot++) {
+                int zigzag = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = arena[offset++];
+                    zigzag |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                int value = (zigzag >>> 1) ^ -(zigzag & 1);
+                decoded[slot] = isKeyframe ? value : decoded[slot] + value;
+            }
+        }
+        decodedFrame = frame;
+    }
+
+    private void writePoses(BodyStateBuffer state, boolean previous) {
+        int count = Math.min(bodyCount, state.count());
+        for (int i = 0; i < count; i++) {
+            float x = decoded[i * 3] * POSITION_STEP;
+            float y = decoded[i * 3 + 1] * POSITION_STEP;
+            float angle = decoded[i * 3 + 2] * ANGLE_STEP;
+            if (previous) {
+                state.setPreviousPose(i, x, y, angle);
+            } else {
+                state.setPose(i, x, y, angle);
+            }
+        }
+    }
+
+    public int frameCount() {
+        return this.frameCount;
+    }
+
+    /** the time of the last recorded frame, in seconds */
+    public double getEndTime() {
+        return frameCount == 0 ? 0.0 : frameTimes[frameCount - 1];
+    }
+
+    /** true once the recording has reached its size limit and stopped recording */
+    public boolean isFull() {
+        return this.full;
+    }
+
+    /** the number of bytes the encoded poses take up */
+    public int sizeInBytes() {
+        return this.size;
+    }
+}
@@ -0,0 +1,59 @@
+package physics;
+
+import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.StaticGeometry;
+
+import java.util.ArrayList;
+
+/**
+ * Draws the bodies of a world that never move. They are baked into one piece of static geometry the first time they
+ * are rendered, which is kept on the GPU and drawn with a single call each frame. The geometry is only rebuilt when
+ * the world is zoomed, since circles are tessellated for their on-screen size.
+ */
+public class StaticBodies {
+    private final PhysicsWorld world;
+    private final ArrayList<PhysicsObject2D> bodies;
+    // bodies that can't be baked, such as textured rectangles, and are rendered on their own
+    private final ArrayList<PhysicsObject2D> unbaked = new ArrayList<>();
+    private final StaticGeometry geometry = new StaticGeometry();
+    // the canvas meter the geometry was baked at, 0 before the first render
+    private float bakedMeter = 0;
+
+    public StaticBodies(PhysicsWorld world, ArrayList<PhysicsObject2D> bodies) {
+        this.world = world;
+        this.bodies = bodies;
+    }
+
+    public void render(Graphics2D graphics, double elapsedTime) {
+        float meter = this.world.getCanvasMeter();
+        if (meter != this.bakedMeter) {
+            bake(graphics);
+            this.bakedMeter = meter;
+        }
+
+        // the geometry is in meters, so scale it to the canvas and flip it to the canvas' downward y axis
+        graphics.draw(this.geometry, meter, -meter);
+        for (int i = 0; i < this.unbaked.size(); i++) {
+            this.unbaked.get(i).render(graphics, elapsedTime);
+        }
+    }
+
+    private void bake(Graphics2D graphics) {
+        this.geometry.clear();
+        this.unbaked.clear();
+        for (PhysicsObject2D body : this.bodies) {
+            if (!body.bake(graphics, this.geometry)) {
+                this.unbaked.add(body);
+            }
+        }
+    }
+
+    /** frees the GPU copy of the geometry, once the world is no longer drawn */
+    public void release(Graphics2D graphics) {
+        graphics.release(this.geometry);
+    }
+
+    public int size() {
+        return this.bodies.size();
+    }
+}
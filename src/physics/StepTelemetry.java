@@ -0,0 +1,125 @@
+package physics;
+
+import java.util.Arrays;
+
+/**
+ * What each of the last few hundred physics steps cost, for finding out why a scene is slow. After every step the
+ * world records the wall time of the step and the number of bodies, awake bodies, contacts and broad-phase proxies,
+ * into a ring of primitive arrays that is never reallocated. summarize fills a Summary with the latest numbers and
+ * percentiles of the step time over the ring, and allocates nothing, so it can be polled every frame.
+ * <p>
+ * The ring belongs to whichever thread steps the world. Other threads should read summaries handed over by that
+ * thread, as PhysicsThread does.
+ * */
+public class StepTelemetry {
+    /** the numbers summarize fills in, reused from one call to the next */
+    public static final class Summary {
+        // the steps recorded since the world was made, and how many of the latest are in the ring
+        public long steps;
+        public int window;
+        // the wall time of the last step, percentiles over the ring and the slowest step in it, in milliseconds
+        public double lastStepMillis;
+        public double p50StepMillis;
+        public double p95StepMillis;
+        public double p99StepMillis;
+        public double maxStepMillis;
+        // counts after the last step, summed over every JBox2D world. Static bodies are never awake.
+        public int bodies;
+        public int awakeBodies;
+        public int contacts;
+        public int proxies;
+        // the most contacts after any step in the ring
+        public int maxContacts;
+
+        public void set(Summary other) {
+            this.steps = other.steps;
+            this.window = other.window;
+            this.lastStepMillis = other.lastStepMillis;
+            this.p50StepMillis = other.p50StepMillis;
+            this.p95StepMillis = other.p95StepMillis;
+            this.p99StepMillis = other.p99StepMillis;
+            this.maxStepMillis = other.maxStepMillis;
+            this.bodies = other.bodies;
+            this.awakeBodies = other.awakeBodies;
+            this.contacts = other.contacts;
+            this.proxies = other.proxies;
+            this.maxContacts = other.maxContacts;
+        }
+    }
+
+    private final long[] stepNanos;
+    private final int[] bodies;
+    private final int[] awakeBodies;
+    private final int[] contacts;
+    private final int[] proxies;
+    // the step times copied out and sorted for the percentiles
+    private final long[] sorted;
+    private long steps = 0;
+
+    /** keeps the last capacity steps */
+    public StepTelemetry(int capacity) {
+        this.stepNanos = new long[capacity];
+        this.bodies = new int[capacity];
+        this.awakeBodies = new int[capacity];
+        this.contacts = new int[capacity];
+        this.proxies = new int[capacity];
+        this.sorted = new long[capacity];
+    }
+
+    void record(long stepNanos, int bodies, int awakeBodies, int contacts, int proxies) {
+        int slot = (int) (this.steps % this.stepNanos.length);
+        this.stepNanos[slot] = stepNanos;
+        this.bodies[slot] = bodies;
+        this.awakeBodies[slot] = awakeBodies;
+        this.contacts[slot] = contacts;
+        this.proxies[slot] = proxies;
+        this.steps++;
+    }
+
+    public int capacity() {
+        return this.stepNanos.length;
+    }
+
+    /** the number of steps recorded since the world was made */
+    public long steps() {
+        return this.steps;
+    }
+
+    /** fills into with the latest step and the percentiles over the ring, all zero before the first step */
+    public void summarize(Summary into) {
+        int window = (int) Math.min(this.steps, this.stepNanos.length);
+        into.steps = this.steps;
+        into.window = window;
+        if (window == 0) {
+            into.lastStepMillis = into.p50StepMillis = into.p95StepMillis = into.p99StepMillis = into.maxStepMillis = 0;
+            into.bodies = into.awakeBodies = into.contacts = into.proxies = into.maxContacts = 0;
+            return;
+        }
+
+        int last = (int) ((this.steps - 1) % this.stepNanos.length);
+        into.lastStepMillis = this.stepNanos[last] / 1e6;
+        into.bodies = this.bodies[last];
+        into.awakeBodies = this.awakeBodies[last];
+        into.contacts = this.contacts[last];
+        into.proxies = this.proxies[last];
+
+        int maxContacts = 0;
+        for (int i = 0; i < window; i++) {
+            maxContacts = Math.max(maxContacts, this.contacts[i]);
+        }
+        into.maxContacts = maxContacts;
+
+        // a few hundred longs sort in place in microseconds, well below the size where sorting allocates
+        System.arraycopy(this.stepNanos, 0, this.sorted, 0, window);
+        Arrays.sort(this.sorted, 0, window);
+        into.p50StepMillis = percentile(window, 0.50);
+        into.p95StepMillis = percentile(window, 0.95);
+        into.p99StepMillis = percentile(window, 0.99);
+        into.maxStepMillis = this.sorted[window - 1] / 1e6;
+    }
+
+    private double percentile(int window, double percentile) {
+        int index = Math.max(0, (int) Math.ceil(percentile * window) - 1);
+        return this.sorted[index] / 1e6;
+    }
+}
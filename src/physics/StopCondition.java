@@ -0,0 +1,13 @@
+package physics;
+
+/**
+ * Ends a run early, checked by PhysicsWorld after every step. Once it is met the world stops stepping until
+ * restoreSnapshot starts the run over, so the rest of the run costs nothing however long it is still shown.
+ * */
+public interface StopCondition {
+    /**
+     * true once the run is over, given the state of every body right after a step. Called on whichever thread steps
+     * the world, which is also the only thread that may look at the bodies themselves.
+     * */
+    boolean isMet(BodyStateBuffer state);
+}
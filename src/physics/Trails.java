@@ -0,0 +1,122 @@
+package physics;
+
+import edu.usu.graphics.Color;
+import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.LineStrips;
+
+import java.util.ArrayList;
+
+/**
+ * The paths the bodies of a world have just taken, so where a body went stays on screen. The last few positions of
+ * every body are kept in one preallocated ring of floats, sampled from the shown state every interval seconds of
+ * simulated time, and all the trails are drawn as line strips in a single draw call. Neither sampling nor drawing
+ * allocates, so hundreds of bodies with long trails cost about as much as the vertices they upload.
+ */
+public class Trails {
+    private final PhysicsWorld world;
+    private final ArrayList<PhysicsObject2D> bodies;
+    private final int length;
+    private final double interval;
+    // the x and y of the last length samples, body after body, each body's samples in a ring starting at head
+    private final float[] points;
+    // per body: the number of samples taken when it last moved, so trails that have shrunk to a point aren't drawn
+    private final long[] movedAt;
+    private final LineStrips strips = new LineStrips();
+    private int head = 0;
+    private int count = 0;
+    private long samples = 0;
+    // the simulated time of the last sample, NaN before the first one
+    private double sampledAt = Double.NaN;
+
+    /** keeps length positions of each body, one every interval seconds of simulated time */
+    public Trails(PhysicsWorld world, ArrayList<PhysicsObject2D> bodies, int length, double interval) {
+        this.world = world;
+        this.bodies = bodies;
+        this.length = length;
+        this.interval = interval;
+        this.points = new float[bodies.size() * length * 2];
+        this.movedAt = new long[bodies.size()];
+        // each trail is its samples and the point where the body is drawn now
+        this.strips.reserve(bodies.size() * (length + 1), bodies.size());
+    }
+
+    /**
+     * Samples the shown state if its simulated time has moved on by an interval since the last sample. Going back in
+     * time, by a reset or by scrubbing back through a replay, clears every trail. Called once a frame.
+     */
+    public void update() {
+        if (this.length == 0)
+            return;
+        double time = this.world.getStateTime();
+        if (time < this.sampledAt) {
+            clear();
+        }
+        if (time < this.sampledAt + this.interval)
+            return;
+
+        BodyStateBuffer state = this.world.getState();
+        int last = (this.head + this.length - 1) % this.length;
+        for (int i = 0; i < this.bodies.size(); i++) {
+            int index = this.bodies.get(i).getStateIndex();
+            int offset = i * this.length * 2;
+            float x = state.x(index);
+            float y = state.y(index);
+            if (this.count == 0 || x != this.points[offset + last * 2] || y != this.points[offset + last * 2 + 1]) {
+                this.movedAt[i] = this.samples;
+            }
+            this.points[offset + this.head * 2] = x;
+            this.points[offset + this.head * 2 + 1] = y;
+        }
+        this.head = (this.head + 1) % this.length;
+        this.count = Math.min(this.count + 1, this.length);
+        this.samples++;
+        this.sampledAt = time;
+    }
+
+    /** forgets every sample, so the trails start over from where the bodies are next sampled */
+    public void clear() {
+        this.head = 0;
+        this.count = 0;
+        this.sampledAt = Double.NaN;
+        this.strips.clear();
+    }
+
+    /** draws every trail at depth z, behind the bodies if z is below theirs */
+    public void render(Graphics2D graphics, float z, Color color) {
+        if (this.count == 0)
+            return;
+        BodyStateBuffer state = this.world.getState();
+        float alpha = this.world.getInterpolationAlpha();
+
+        this.strips.clear();
+        int first = (this.head + this.length - this.count) % this.length;
+        for (int i = 0; i < this.bodies.size(); i++) {
+            // a body that hasn't moved since its oldest sample has no trail to draw
+            if (this.samples - this.movedAt[i] >= this.count)
+                continue;
+            int offset = i * this.length * 2;
+            this.strips.begin(color);
+            for (int k = 0; k < this.count; k++) {
+                int slot = (first + k) % this.length;
+                this.strips.add(this.points[offset + slot * 2], this.points[offset + slot * 2 + 1], z);
+            }
+            // end the trail where the body is drawn, so it doesn't lag behind it by up to an interval
+            int index = this.bodies.get(i).getStateIndex();
+            this.strips.add(state.interpolatedX(index, alpha), state.interpolatedY(index, alpha), z);
+        }
+
+        // the trails are in meters, so scale them to the canvas and flip them to the canvas' downward y axis
+        float meter = this.world.getCanvasMeter();
+        graphics.draw(this.strips, meter, -meter);
+    }
+
+    /** the number of trails drawn by the last render, leaving out the bodies that have stayed put */
+    public int getDrawnCount() {
+        return this.strips.getStripCount();
+    }
+
+    /** the number of positions currently kept for each body */
+    public int getSampleCount() {
+        return this.count;
+    }
+}
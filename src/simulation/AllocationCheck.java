@@ -0,0 +1,270 @@
+package simulation;
+
+import assets.ColorAssets;
+import edu.usu.graphics.Font;
+import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.Texture;
+import edu.usu.graphics.objects.Rectangle;
+import edu.usu.graphics.objects.Text;
+import org.joml.Vector2f;
+import org.joml.Vector3f;
+import physics.MovingBodies;
+import physics.StaticBodies;
+import physics.Trails;
+import utils.DescriptionPanel;
+import utils.InfoPanel;
+import utils.RadioButton;
+import utils.RenderOrders;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * Checks that drawing a frame doesn't allocate once the frame loop has warmed up. Every simulation in the index is
+ * built headlessly and run through the same update and render calls the tutor makes each frame, with a headless
+ * Graphics2D doing the CPU side of rendering (queueing, sorting and packing vertex buffers). The bytes allocated by
+ * the render path are measured over a window of frames and must be zero. The JIT can still recompile part of the
+ * frame loop after warmup, which charges a one-off allocation of about a kilobyte to the thread, so a window that
+ * allocates is measured again with a fresh one, up to three windows. Anything the frame itself allocates, every frame
+ * or every so often, shows up in all of them. The physics step is reported separately, since most of what it
+ * allocates comes from JBox2D itself.
+ * <p>
+ * SimulationView itself needs a window for its input, so its HUD is stood in for by Hud, built from the same widgets
+ * with the same layout: the panels, buttons, timeline, description, solution options, F3 readout and hint panel, with
+ * headless fonts and images that are laid out like the real ones but never uploaded. Not covered are the F3 readout
+ * rebuilding its text twice a second, which formats new strings on purpose, and the view's mouse and keyboard
+ * handling, which only runs on input.
+ * <p>
+ * Usage: AllocationCheck [--index file] [--warmup frames] [--frames n]
+ * */
+public class AllocationCheck {
+    private static final float FRAME_TIME = 1.0f / 60.0f;
+    // how many windows of frames are measured before a simulation fails, see the class comment
+    private static final int WINDOWS = 3;
+
+    public static void main(String[] args) {
+        String indexFile = "./resources/simulations/index.json";
+        // long enough for the JIT to finish compiling the frame loop, which otherwise shows up as stray allocations
+        int warmupFrames = 1000;
+        int frames = 600;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--index" -> indexFile = args[++i];
+                case "--warmup" -> warmupFrames = Integer.parseInt(args[++i]);
+                case "--frames" -> frames = Integer.parseInt(args[++i]);
+                default -> {
+                    System.out.printf("Error: unknown argument '%s'.\n", args[i]);
+                    System.exit(1);
+                }
+            }
+        }
+
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Error: this JVM can't measure per thread allocations.");
+            System.exit(1);
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        ArrayList<String> paths = SimulationParser.readIndex(indexFile);
+        if (paths == null) {
+            System.exit(1);
+        }
+
+        Graphics2D graphics = Graphics2D.createHeadless(1600, 900);
+        Font regular = Font.createHeadless("resources/fonts/Roboto-Regular.ttf", 48, false);
+        Font outlined = Font.createHeadless("resources/fonts/Roboto-Regular.ttf", 48, true);
+        boolean failed = false;
+        for (String path : paths) {
+            Simulation simulation = SimulationParser.createSimulation(path);
+            if (simulation == null) {
+                failed = true;
+                continue;
+            }
+            // the simulations stop after a few seconds, so run them long enough to cover warmup and measurement
+            simulation.stopWhen.clear();
+            simulation.createHeadless();
+            MovingBodies movingBodies = simulation.getMovingBodies();
+            StaticBodies staticBodies = simulation.getStaticBodies();
+            Trails trails = simulation.getTrails();
+            Hud hud = new Hud(graphics, simulation, regular, outlined);
+            simulation.simulationTime = Float.MAX_VALUE;
+
+            for (int frame = 0; frame < warmupFrames; frame++) {
+                simulation.stepForward(FRAME_TIME, 10);
+                renderFrame(graphics, movingBodies, staticBodies, trails, hud);
+            }
+
+            long threadId = Thread.currentThread().threadId();
+            long physicsBytes = 0;
+            long renderBytes = 0;
+            for (int window = 0; window < WINDOWS; window++) {
+                physicsBytes = 0;
+                renderBytes = 0;
+                for (int frame = 0; frame < frames; frame++) {
+                    long start = threads.getThreadAllocatedBytes(threadId);
+                    simulation.stepForward(FRAME_TIME, 10);
+                    long stepped = threads.getThreadAllocatedBytes(threadId);
+                    renderFrame(graphics, movingBodies, staticBodies, trails, hud);
+                    long rendered = threads.getThreadAllocatedBytes(threadId);
+
+                    physicsBytes += stepped - start;
+                    renderBytes += rendered - stepped;
+                }
+                if (renderBytes == 0) break;
+            }
+
+            boolean passed = renderBytes == 0;
+            failed |= !passed;
+            System.out.printf("%-20s %3d bodies  render %8.1f B/frame  physics %8.1f B/frame  %s\n",
+                    simulation.name, movingBodies.size() + staticBodies.size(), renderBytes / (double) frames, physicsBytes / (double) frames,
+                    passed ? "ok" : "FAILED");
+        }
+
+        if (failed) System.exit(1);
+    }
+
+    /** the per frame work the simulation view does for its physics objects and its HUD */
+    private static void renderFrame(Graphics2D graphics, MovingBodies movingBodies, StaticBodies staticBodies, Trails trails,
+                                    Hud hud) {
+        graphics.begin();
+        movingBodies.update(FRAME_TIME);
+        trails.update();
+        hud.update();
+        hud.render(graphics);
+        staticBodies.render(graphics, FRAME_TIME);
+        trails.render(graphics, RenderOrders.OBJECT1_z, ColorAssets.trailColor);
+        movingBodies.render(graphics, FRAME_TIME);
+        hud.renderOverBodies(graphics);
+        graphics.end();
+    }
+
+    /**
+     * What SimulationView draws around the simulation every frame, laid out the same way, with the hint panel and the
+     * F3 readout both shown so every widget is drawn.
+     * */
+    private static class Hud {
+        private static final float HUD_PANEL_WIDTH = 0.6f;
+        private static final float DESCRIPTION_TEXT_HEIGHT = 0.04f;
+        private static final float BUTTON_TEXT_HEIGHT = 0.06f;
+        // roughly as many characters as the view fits on a line of the description
+        private static final int DESCRIPTION_LINE_LENGTH = 40;
+
+        private final Simulation simulation;
+        private final Font regular;
+        private final String hint = "Loading...";
+        private final Texture cannon = Texture.createHeadless(1920, 1920);
+        private final Rectangle cannonRect = new Rectangle(-0.025f, -0.045f, 0.055f, 0.055f, 1.0f);
+        private final Rectangle hudPanel;
+        private final Rectangle simPanel;
+        private final Rectangle timelineTrack;
+        private final Rectangle timelineRecorded;
+        private final Rectangle timelineHandle;
+        private final Text[] buttons;
+        private final Text speedButton;
+        private final Text telemetryText;
+        private final Text telemetryDetailText;
+        private final InfoPanel descriptionPanel;
+        private final ArrayList<RadioButton> options = new ArrayList<>();
+        private final DescriptionPanel hintPanel;
+
+        Hud(Graphics2D graphics, Simulation simulation, Font regular, Font outlined) {
+            this.simulation = simulation;
+            this.regular = regular;
+            float aspectRatio = (float) graphics.getHeight() / graphics.getWidth();
+
+            this.hudPanel = new Rectangle(-1.0f, -aspectRatio, HUD_PANEL_WIDTH, 2 * aspectRatio, RenderOrders.HUD1_z);
+            this.simPanel = new Rectangle(-1.0f, aspectRatio - 0.1f, HUD_PANEL_WIDTH, 0.1f, RenderOrders.HUD2_z);
+            this.buttons = new Text[] {
+                    new Text(new Vector3f(-0.85f, -0.5125f, RenderOrders.TEXT2_z), "BACK (ESC)", outlined, BUTTON_TEXT_HEIGHT, ColorAssets.menuEscapeColor),
+                    new Text(new Vector3f(-0.85f, 0.52f, RenderOrders.TEXT2_z), "PLAY", outlined, BUTTON_TEXT_HEIGHT, ColorAssets.simButtonTextColor2),
+                    new Text(new Vector3f(-0.55f, 0.52f, RenderOrders.TEXT2_z), "RESET", outlined, BUTTON_TEXT_HEIGHT, ColorAssets.simButtonTextColor2),
+                    new Text(new Vector3f(-0.85f, 0.42f, RenderOrders.TEXT2_z), "HINT", outlined, BUTTON_TEXT_HEIGHT, ColorAssets.simButtonTextColor1),
+                    new Text(new Vector3f(-0.55f, 0.42f, RenderOrders.TEXT2_z), "SUBMIT", outlined, BUTTON_TEXT_HEIGHT, ColorAssets.simButtonTextColor1)
+            };
+            this.speedButton = new Text(new Vector3f(-0.34f, aspectRatio - 0.05f, RenderOrders.TEXT2_z), "1x", outlined, 0.05f, ColorAssets.simButtonTextColor1);
+            this.timelineTrack = new Rectangle(-0.28f, aspectRatio - 0.06f, 1.23f, 0.02f, RenderOrders.HUD1_z);
+            this.timelineRecorded = new Rectangle(-0.28f, aspectRatio - 0.06f, 0.0f, 0.02f, RenderOrders.HUD2_z);
+            this.timelineHandle = new Rectangle(-0.28f, aspectRatio - 0.07f, 0.01f, 0.04f, RenderOrders.TEXT1_z);
+            this.telemetryText = new Text(new Vector3f(0.35f, -aspectRatio + 0.04f, RenderOrders.TEXT2_z),
+                    "step 0.00 ms (p95 0.00, max 0.00)   bodies 0 (0 awake)   contacts 0   proxies 0   buffers null",
+                    outlined, 0.035f, ColorAssets.simButtonTextColor1);
+            this.telemetryDetailText = new Text(new Vector3f(0.35f, -aspectRatio + 0.08f, RenderOrders.TEXT2_z),
+                    "resting 0 of 0 (batch rebuilt 0 times)   textures 0 hits, 0 misses, 0 evicted",
+                    outlined, 0.035f, ColorAssets.simButtonTextColor1);
+
+            ArrayList<String> lines = splitDescription(simulation.description);
+            float descriptionCenterY = -aspectRatio + (lines.size() * DESCRIPTION_TEXT_HEIGHT) / 2 + BUTTON_TEXT_HEIGHT * 1.5f;
+            this.descriptionPanel = new InfoPanel(new Vector2f(-1.0f + HUD_PANEL_WIDTH / 2, descriptionCenterY), lines,
+                    InfoPanel.TextAlignment.LEFT, edu.usu.graphics.Color.BLACK, DESCRIPTION_TEXT_HEIGHT, 0.0f);
+            float optionTop = descriptionCenterY + (lines.size() * DESCRIPTION_TEXT_HEIGHT) / 2 + DESCRIPTION_TEXT_HEIGHT / 2 + 0.02f;
+            for (int i = 0; i < simulation.solutionOptions.size(); i++) {
+                String option = simulation.solutionOptions.get(i);
+                float optionLength = regular.measureTextWidth(option, DESCRIPTION_TEXT_HEIGHT);
+                Vector3f center = new Vector3f(-0.95f + optionLength / 2 + 0.022f, optionTop + i * DESCRIPTION_TEXT_HEIGHT, RenderOrders.TEXT1_z);
+                this.options.add(new RadioButton(new Text(center, option, regular, DESCRIPTION_TEXT_HEIGHT, ColorAssets.simStaticTextColor)));
+            }
+            if (!this.options.isEmpty()) {
+                this.options.getFirst().select(this.options);
+            }
+
+            Text closeButton = new Text(new Vector3f(), "CLOSE", regular, 0.05f, ColorAssets.menuTextColor);
+            this.hintPanel = new DescriptionPanel(new Vector2f(), this.hint, 0.04f, closeButton, InfoPanel.TextAlignment.CENTERED);
+            this.hintPanel.setTexture(Texture.createHeadless(512, 512), 0.025f, RenderOrders.HUD2_z);
+        }
+
+        /** the description split into lines at the first space past the line length */
+        private static ArrayList<String> splitDescription(String description) {
+            ArrayList<String> lines = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i < description.length(); i++) {
+                if (description.charAt(i) == ' ' && i - start >= DESCRIPTION_LINE_LENGTH) {
+                    lines.add(description.substring(start, i));
+                    start = i + 1;
+                }
+            }
+            lines.add(description.substring(start));
+            return lines;
+        }
+
+        void update() {
+            this.hintPanel.setDescription(this.hint);
+        }
+
+        /** what the view draws before the bodies */
+        void render(Graphics2D graphics) {
+            if (this.simulation.name.equals("Cannon Ball"))
+                graphics.draw(this.cannon, this.cannonRect, edu.usu.graphics.Color.WHITE);
+
+            graphics.draw(this.hudPanel, ColorAssets.HUDColor1);
+            graphics.draw(this.simPanel, ColorAssets.HUDColor2);
+            this.hintPanel.render(graphics, this.regular, RenderOrders.TEXT2_z);
+            for (Text button : this.buttons) {
+                button.draw(graphics);
+            }
+
+            float runTime = (float) this.simulation.runTime();
+            float recordedFraction = (float) Math.min(this.simulation.recordedTime() / runTime, 1.0);
+            float shownFraction = (float) Math.min(this.simulation.timeElapsedSinceStart / runTime, 1.0);
+            this.timelineRecorded.width = this.timelineTrack.width * recordedFraction;
+            this.timelineHandle.left = this.timelineTrack.left + this.timelineTrack.width * shownFraction - this.timelineHandle.width / 2;
+            this.speedButton.draw(graphics);
+            graphics.draw(this.timelineTrack, ColorAssets.timelineColor);
+            graphics.draw(this.timelineRecorded, ColorAssets.timelineRecordedColor);
+            graphics.draw(this.timelineHandle, ColorAssets.timelineHandleColor);
+
+            this.telemetryText.draw(graphics);
+            this.telemetryDetailText.draw(graphics);
+        }
+
+        /** what the view draws after the bodies */
+        void renderOverBodies(Graphics2D graphics) {
+            this.descriptionPanel.render(graphics, this.regular, RenderOrders.HUD2_z, RenderOrders.TEXT1_z);
+            for (int i = 0; i < this.options.size(); i++) {
+                this.options.get(i).render(graphics, RenderOrders.HUD2_z);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package simulation;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.*;
+import java.util.LinkedHashMap;
+
+/**
+ * The precomputed correct option of every simulation, as measured by SolutionVerifier. The key is loaded once at
+ * startup so a student's submission can be checked locally without asking the LLM to judge it.
+ * */
+public class AnswerKey {
+    public static final String DEFAULT_PATH = "./resources/simulations/answer_key.json";
+
+    public static class Answer {
+        String option;
+        int optionIndex;
+        float[] measured;
+        float relativeError;
+        long checksum;
+
+        public Answer(String option, int optionIndex, float[] measured, float relativeError, long checksum) {
+            this.option = option;
+            this.optionIndex = optionIndex;
+            this.measured = measured;
+            this.relativeError = relativeError;
+            this.checksum = checksum;
+        }
+
+        public String getOption() {
+            return this.option;
+        }
+    }
+
+    // keyed by simulation name
+    private final LinkedHashMap<String, Answer> answers = new LinkedHashMap<>();
+
+    public void put(String simulationName, Answer answer) {
+        this.answers.put(simulationName, answer);
+    }
+
+    /**
+     * Returns the verified answer for the simulation, or null if there is none or the simulation file has changed
+     * since the key was written.
+     * */
+    public Answer get(Simulation simulation) {
+        Answer answer = this.answers.get(simulation.name);
+        if (answer == null || answer.checksum != simulation.sourceChecksum)
+            return null;
+        return answer;
+    }
+
+    public void write(String path) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+            Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+            writer.write(gson.toJson(this));
+            writer.newLine();
+        }
+    }
+
+    /** loads the answer key, returning an empty key if the file doesn't exist */
+    public static AnswerKey load(String path) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            AnswerKey key = new Gson().fromJson(reader, AnswerKey.class);
+            return key != null ? key : new AnswerKey();
+        } catch (IOException e) {
+            System.out.printf("Error: Answer key '%s' was not found, submissions will be judged by the LLM.\n", path);
+            return new AnswerKey();
+        }
+    }
+}
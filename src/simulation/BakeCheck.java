@@ -0,0 +1,87 @@
+package simulation;
+
+import edu.usu.graphics.Color;
+import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.StaticGeometry;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.common.Transform;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyType;
+import org.joml.Vector2f;
+import physics.PhysicsWorld;
+import physics.Rect;
+
+/**
+ * Checks that static rectangles are baked where their bodies are. Rectangles of several proportions are placed at
+ * several angles, each is baked into static geometry with a headless Graphics2D, and every baked corner must lie on a
+ * corner of the body's fixture, and every fixture corner on a baked one. A rectangle whose mesh is stretched to its
+ * size after being rotated comes out sheared, so only squares would pass.
+ * <p>
+ * Usage: BakeCheck
+ * */
+public class BakeCheck {
+    // the furthest a baked corner may be from the fixture's, in meters
+    private static final float TOLERANCE = 1e-4f;
+    private static final float[][] SIZES = {{4, 1}, {1, 4}, {2, 2}, {0.5f, 3}};
+    private static final float[] ANGLES = {0, 30, 90, 135, -60};
+
+    public static void main(String[] args) {
+        Graphics2D graphics = Graphics2D.createHeadless(1600, 900);
+        PhysicsWorld world = new PhysicsWorld(new Vector2f(), 0.1f);
+        Color color = new Color(0.5f, 0.5f, 0.5f);
+        boolean failed = false;
+
+        for (float[] size : SIZES) {
+            for (float degrees : ANGLES) {
+                float rotation = degrees * (float) Math.PI / 180f;
+                Rect rect = new Rect(world, new Vector2f(1, 2), size[0], size[1], color, 0.5f, rotation,
+                        new Vector2f(), BodyType.STATIC, 1, 0.5f, 0);
+                StaticGeometry geometry = new StaticGeometry();
+                rect.bake(graphics, geometry);
+
+                float error = cornerError(geometry, rect.getBody());
+                boolean passed = error <= TOLERANCE;
+                failed |= !passed;
+                System.out.printf("%4.1f x %-4.1f at %6.1f deg  off by %.6f m  %s\n",
+                        size[0], size[1], degrees, error, passed ? "ok" : "FAILED");
+            }
+        }
+
+        if (failed) System.exit(1);
+    }
+
+    /**
+     * How far the baked vertices and the corners of the body's fixture are from matching up, as the largest distance
+     * from a point of either to the nearest point of the other.
+     */
+    private static float cornerError(StaticGeometry geometry, Body body) {
+        PolygonShape shape = (PolygonShape) body.getFixtureList().getShape();
+        Transform transform = body.getTransform();
+        Vec2[] corners = new Vec2[shape.getVertexCount()];
+        for (int c = 0; c < corners.length; c++) {
+            corners[c] = Transform.mul(transform, shape.getVertex(c));
+        }
+
+        float error = 0;
+        for (int v = 0; v < geometry.getVertexCount(); v++) {
+            float nearest = Float.MAX_VALUE;
+            for (Vec2 corner : corners) {
+                nearest = Math.min(nearest, distance(geometry.getX(v), geometry.getY(v), corner));
+            }
+            error = Math.max(error, nearest);
+        }
+        for (Vec2 corner : corners) {
+            float nearest = Float.MAX_VALUE;
+            for (int v = 0; v < geometry.getVertexCount(); v++) {
+                nearest = Math.min(nearest, distance(geometry.getX(v), geometry.getY(v), corner));
+            }
+            error = Math.max(error, nearest);
+        }
+        return error;
+    }
+
+    private static float distance(float x, float y, Vec2 point) {
+        return (float) Math.hypot(x - point.x, y - point.y);
+    }
+}
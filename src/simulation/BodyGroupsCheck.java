@@ -0,0 +1,116 @@
+package simulation;
+
+import edu.usu.graphics.Color;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.BodyType;
+import org.joml.Vector2f;
+
+import java.util.ArrayList;
+
+/**
+ * Checks that splitting a scene into worlds of their own (see physics.BodyGroups) never separates bodies that can
+ * touch. The scene is two rooms side by side, split by a static wall, with a ball in each. On its own it splits into
+ * two worlds. A kinematic box starting in the left room and moving right passes through the wall, so with one added
+ * the scene must stay in a single world and the box must push the ball in the right room. Turning continuous collision
+ * off lets fast bodies tunnel through walls as well, so that must keep the scene in a single world too.
+ * <p>
+ * Usage: BodyGroupsCheck
+ * */
+public class BodyGroupsCheck {
+    private static final float FRAME_TIME = 1.0f / 60.0f;
+    // long enough for the box to cross the wall and reach the ball in the right room
+    private static final int FRAMES = 120;
+    // how far the right room's ball has to be pushed for the box to have reached it, in meters
+    private static final float PUSHED_DISTANCE = 0.1f;
+    private static final Color COLOR = new Color(0.5f, 0.5f, 0.5f);
+
+    public static void main(String[] args) {
+        boolean failed = false;
+
+        Simulation rooms = createRooms(false);
+        rooms.createHeadless();
+        failed |= report("two rooms", rooms.world.getWorldCount(), 2, true);
+
+        Simulation crossed = createRooms(true);
+        crossed.createHeadless();
+        Vec2 ball = crossed.getObjects().get(6).getBody().getPosition();
+        float startX = ball.x;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            crossed.stepForward(FRAME_TIME);
+        }
+        failed |= report("kinematic box", crossed.world.getWorldCount(), 1, ball.x - startX > PUSHED_DISTANCE);
+
+        Simulation tunneling = createRooms(false);
+        tunneling.solver.continuousPhysics = false;
+        tunneling.createHeadless();
+        failed |= report("no continuous", tunneling.world.getWorldCount(), 1, true);
+
+        if (failed) System.exit(1);
+    }
+
+    /** prints how one scene was split, returning true if it failed */
+    private static boolean report(String scene, int worlds, int expectedWorlds, boolean touched) {
+        boolean passed = worlds == expectedWorlds && touched;
+        System.out.printf("%-16s %d worlds (expected %d)%s  %s\n", scene, worlds, expectedWorlds,
+                touched ? "" : "  box never reached the other room", passed ? "ok" : "FAILED");
+        return !passed;
+    }
+
+    /**
+     * Two 3 by 2 meter rooms, without gravity, with a ball low in the left room and high in the right one. The
+     * kinematic box, if there is one, starts in the left room at the height of the right room's ball, moving right.
+     */
+    private static Simulation createRooms(boolean kinematicBox) {
+        Simulation simulation = new Simulation();
+        simulation.name = "Body groups check";
+        simulation.description = "";
+        simulation.solutionOptions = new ArrayList<>();
+        simulation.simulationTime = 60;
+        simulation.gravity = new Vector2f();
+        simulation.zoom = 0.2f;
+        simulation.bgColor = COLOR;
+
+        ArrayList<Simulation.ObjectData> objects = simulation.getObjectData();
+        objects.add(createRectangle(BodyType.STATIC, 0, -1.5f, 9, 1, new Vector2f()));
+        objects.add(createRectangle(BodyType.STATIC, 0, 1.5f, 9, 1, new Vector2f()));
+        objects.add(createRectangle(BodyType.STATIC, -4, 0, 1, 2, new Vector2f()));
+        objects.add(createRectangle(BodyType.STATIC, 4, 0, 1, 2, new Vector2f()));
+        objects.add(createRectangle(BodyType.STATIC, 0, 0, 1, 2, new Vector2f()));
+        objects.add(createBall(-2, -0.5f));
+        objects.add(createBall(2, 0.5f));
+        if (kinematicBox) {
+            objects.add(createRectangle(BodyType.KINEMATIC, -3, 0.5f, 0.2f, 0.2f, new Vector2f(4, 0)));
+        }
+        return simulation;
+    }
+
+    private static Simulation.ObjectData createRectangle(BodyType type, float x, float y, float width, float height,
+                                                         Vector2f velocity) {
+        Simulation.ObjectData rectangle = new Simulation.ObjectData();
+        rectangle.shape = "rectangle";
+        rectangle.bodyType = type;
+        rectangle.density = 1;
+        rectangle.friction = 0.5f;
+        rectangle.initial_velocity = velocity;
+        rectangle.position = new Vector2f(x, y);
+        rectangle.width = width;
+        rectangle.height = height;
+        rectangle.render_z = 0.5f;
+        rectangle.color = COLOR;
+        return rectangle;
+    }
+
+    private static Simulation.ObjectData createBall(float x, float y) {
+        Simulation.ObjectData ball = new Simulation.ObjectData();
+        ball.shape = "circle";
+        ball.bodyType = BodyType.DYNAMIC;
+        ball.density = 1;
+        ball.friction = 0.5f;
+        ball.initial_velocity = new Vector2f();
+        ball.position = new Vector2f(x, y);
+        ball.radius = 0.25f;
+        ball.render_z = 0.6f;
+        ball.color = COLOR;
+        return ball;
+    }
+}
@@ -0,0 +1,119 @@
+package simulation;
+
+import physics.PhysicsObject2D;
+import physics.StepTelemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs simulations without opening a window or creating a GL context. Every simulation in the index is built
+ * headlessly and stepped with its fixed timestep as fast as the CPU allows, optionally writing the trajectory
+ * of every body to a file. Useful for validating simulation files and for measuring physics throughput on
+ * machines without a display. The step time percentiles and contact count printed for each simulation come from
+ * the step telemetry of its last few hundred steps.
+ * <p>
+ * Usage: HeadlessRunner [--index file] [--out directory] [--format csv|bin] [--iterations n] [simulation names...]
+ * <p>
+ * --iterations overrides the velocity and position iterations of every simulation's solver profile.
+ * */
+public class HeadlessRunner {
+    // telemetry covers the last steps of the run, see StepTelemetry
+    public record Result(String name, int steps, int bodies, double simulatedTime, long wallTimeNanos,
+                         StepTelemetry.Summary telemetry) {
+        public double stepsPerSecond() {
+            return steps / (wallTimeNanos / 1e9);
+        }
+    }
+
+    /** the timestep headless runs use when a simulation doesn't specify a fixed one */
+    public static final float DEFAULT_TIMESTEP = 1.0f / 60.0f;
+
+    /**
+     * Builds the simulation headlessly and steps it until it stops. If writer is not null, the state of every
+     * body is written before the first step and after every step.
+     * */
+    public static Result run(Simulation simulation, TrajectoryWriter writer, int iterations) throws IOException {
+        ArrayList<PhysicsObject2D> objects = simulation.createHeadless();
+        float timestep = simulation.fixedTimestep > 0 ? simulation.fixedTimestep : DEFAULT_TIMESTEP;
+
+        int steps = 0;
+        if (writer != null) writer.writeStep(steps, 0.0, simulation.world.getState());
+
+        long start = System.nanoTime();
+        while (!simulation.simulationStopped()) {
+            simulation.stepForward(timestep, iterations);
+            steps++;
+            if (writer != null) writer.writeStep(steps, simulation.timeElapsedSinceStart, simulation.world.getState());
+        }
+        long wallTime = System.nanoTime() - start;
+
+        StepTelemetry.Summary telemetry = new StepTelemetry.Summary();
+        simulation.getTelemetry(telemetry);
+        return new Result(simulation.name, steps, objects.size(), simulation.timeElapsedSinceStart, wallTime, telemetry);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String indexFile = "./resources/simulations/index.json";
+        String outDirectory = null;
+        String format = "csv";
+        // 0 steps each simulation with its own solver profile
+        int iterations = 0;
+        List<String> names = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--index" -> indexFile = args[++i];
+                case "--out" -> outDirectory = args[++i];
+                case "--format" -> format = args[++i];
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                default -> names.add(args[i]);
+            }
+        }
+
+        ArrayList<String> paths = SimulationParser.readIndex(indexFile);
+        if (paths == null) {
+            System.exit(1);
+        }
+        if (outDirectory != null && !new File(outDirectory).isDirectory() && !new File(outDirectory).mkdirs()) {
+            System.out.printf("Error: could not create output directory '%s'.\n", outDirectory);
+            System.exit(1);
+        }
+
+        boolean failed = false;
+        for (String path : paths) {
+            Simulation simulation = SimulationParser.createSimulation(path);
+            if (simulation == null) {
+                failed = true;
+                continue;
+            }
+            if (!names.isEmpty() && !names.contains(simulation.name))
+                continue;
+
+            try {
+                Result result;
+                if (outDirectory == null) {
+                    result = run(simulation, null, iterations);
+                } else {
+                    String fileName = new File(path).getName().replaceFirst("\\.json$", "") + "." + format;
+                    try (TrajectoryWriter writer = new TrajectoryWriter(new File(outDirectory, fileName).getPath(), simulation.bodyCount())) {
+                        result = run(simulation, writer, iterations);
+                    }
+                }
+                System.out.printf("%-20s %3d bodies %7d steps %8.3f s simulated %10.3f ms wall %12.0f steps/s"
+                                + "   step p50 %.3f p99 %.3f ms %5d contacts\n",
+                        result.name(), result.bodies(), result.steps(), result.simulatedTime(),
+                        result.wallTimeNanos() / 1e6, result.stepsPerSecond(),
+                        result.telemetry().p50StepMillis, result.telemetry().p99StepMillis, result.telemetry().maxContacts);
+            } catch (RuntimeException e) {
+                // a broken simulation file shouldn't stop the rest of the batch from being validated
+                System.out.printf("Error: simulation '%s' (%s) failed: %s\n", simulation.name, path, e);
+                failed = true;
+            }
+        }
+
+        if (failed) System.exit(1);
+    }
+}
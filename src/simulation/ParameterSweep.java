@@ -0,0 +1,252 @@
+package simulation;
+
+import physics.BodyStateBuffer;
+import physics.PhysicsObject2D;
+import physics.SolverProfile;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs one simulation file over every combination of a grid of parameter overrides, using all available cores.
+ * Each variant gets its own copy of the simulation (and so its own physics world) and is run headlessly to the end.
+ * The final state of every body in every variant is written to a single CSV file with one row per variant.
+ * <p>
+ * Usage: ParameterSweep simulation.json [--out results.csv] [--threads n] [--iterations n] parameter=values...
+ * <p>
+ * A parameter is either a simulation field (gravity.x, gravity.y, solver.velocityIterations,
+ * solver.positionIterations), an object field applied to every object
+ * (density, friction, restitution, rotation, radius, width, height, initial_velocity.x, initial_velocity.y,
+ * position.x, position.y), or an object field for a single object, e.g. objects[1].friction.
+ * Values are either a comma separated list (0.1,0.2,0.5) or an inclusive range with a count (0.1:0.9:9).
+ * */
+public class ParameterSweep {
+    public record Parameter(String name, float[] values) {
+        public static Parameter parse(String argument) {
+            int split = argument.indexOf('=');
+            if (split < 0)
+                throw new IllegalArgumentException("Parameter '" + argument + "' should be in the form name=values");
+
+            String name = argument.substring(0, split);
+            String values = argument.substring(split + 1);
+            if (values.contains(":")) {
+                String[] range = values.split(":");
+                float start = Float.parseFloat(range[0]);
+                float end = Float.parseFloat(range[1]);
+                int count = Integer.parseInt(range[2]);
+
+                float[] grid = new float[count];
+                for (int i = 0; i < count; i++) {
+                    grid[i] = count == 1 ? start : start + (end - start) * i / (count - 1);
+                }
+                return new Parameter(name, grid);
+            }
+
+            String[] list = values.split(",");
+            float[] grid = new float[list.length];
+            for (int i = 0; i < list.length; i++) {
+                grid[i] = Float.parseFloat(list[i]);
+            }
+            return new Parameter(name, grid);
+        }
+    }
+
+    // the values recorded per body at the end of each variant
+    private static final String[] BODY_COLUMNS = {"x", "y", "angle", "vx", "vy"};
+
+    private final String baseJson;
+    private final ArrayList<Parameter> parameters;
+    private final int bodyCount;
+    private final int variantCount;
+    private final int iterations;
+
+    // results are stored column by column, indexed by variant
+    private final int[] steps;
+    private final float[][] bodyColumns;
+
+    public ParameterSweep(Simulation base, ArrayList<Parameter> parameters, int iterations) {
+        this.baseJson = SimulationParser.toJson(base);
+        this.parameters = parameters;
+        this.bodyCount = base.bodyCount();
+        this.iterations = iterations;
+
+        long variants = 1;
+        for (Parameter parameter : parameters) {
+            variants *= parameter.values().length;
+        }
+        if (variants > Integer.MAX_VALUE / (BODY_COLUMNS.length * Math.max(bodyCount, 1)))
+            throw new IllegalArgumentException("Too many variants in the sweep: " + variants);
+        this.variantCount = (int) variants;
+
+        this.steps = new int[variantCount];
+        this.bodyColumns = new float[bodyCount * BODY_COLUMNS.length][variantCount];
+    }
+
+    public int getVariantCount() {
+        return this.variantCount;
+    }
+
+    /** runs every variant on the given pool, blocking until all of them have finished */
+    public void run(ForkJoinPool pool) throws InterruptedException, ExecutionException {
+        pool.submit(() -> IntStream.range(0, variantCount).parallel().forEach(this::runVariant)).get();
+    }
+
+    private void runVariant(int variant) {
+        Simulation simulation = SimulationParser.fromJson(baseJson);
+
+        // the variant index is a mixed radix number, one digit per parameter
+        int remainder = variant;
+        for (Parameter parameter : parameters) {
+            int count = parameter.values().length;
+            apply(simulation, parameter.name(), parameter.values()[remainder % count]);
+            remainder /= count;
+        }
+
+        try {
+            this.steps[variant] = HeadlessRunner.run(simulation, null, iterations).steps();
+        } catch (IOException e) {
+            // no trajectory writer is used, so this can't happen
+            throw new RuntimeException(e);
+        }
+
+        // the file's objects all have known shapes (see SimulationParser), so each is built, in the order of the file
+        BodyStateBuffer state = simulation.world.getState();
+        ArrayList<PhysicsObject2D> objects = simulation.getObjects();
+        for (int i = 0; i < bodyCount; i++) {
+            int column = i * BODY_COLUMNS.length;
+            int index = objects.get(i).getStateIndex();
+            bodyColumns[column][variant] = state.x(index);
+            bodyColumns[column + 1][variant] = state.y(index);
+            bodyColumns[column + 2][variant] = state.angle(index);
+            bodyColumns[column + 3][variant] = state.vx(index);
+            bodyColumns[column + 4][variant] = state.vy(index);
+        }
+    }
+
+    /** returns the value a parameter had in the given variant */
+    public float parameterValue(int parameterIndex, int variant) {
+        int remainder = variant;
+        for (int i = 0; i < parameterIndex; i++) {
+            remainder /= parameters.get(i).values().length;
+        }
+        float[] values = parameters.get(parameterIndex).values();
+        return values[remainder % values.length];
+    }
+
+    /** overrides a single parameter of a simulation */
+    static void apply(Simulation simulation, String name, float value) {
+        if (name.startsWith("solver.") && simulation.solver == null) {
+            simulation.solver = new SolverProfile();
+        }
+        switch (name) {
+            case "gravity.x" -> simulation.gravity.x = value;
+            case "gravity.y" -> simulation.gravity.y = value;
+            case "solver.velocityIterations" -> simulation.solver.velocityIterations = Math.round(value);
+            case "solver.positionIterations" -> simulation.solver.positionIterations = Math.round(value);
+            default -> {
+                ArrayList<Simulation.ObjectData> objects = simulation.getObjectData();
+                if (name.startsWith("objects[")) {
+                    int close = name.indexOf(']');
+                    int index = Integer.parseInt(name.substring("objects[".length(), close));
+                    applyToObject(objects.get(index), name.substring(close + 2), value);
+                } else {
+                    for (Simulation.ObjectData data : objects) {
+                        applyToObject(data, name, value);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void applyToObject(Simulation.ObjectData data, String field, float value) {
+        switch (field) {
+            case "density" -> data.density = value;
+            case "friction" -> data.friction = value;
+            case "restitution" -> data.restitution = value;
+            case "rotation" -> data.rotation = value;
+            case "radius" -> data.radius = value;
+            case "width" -> data.width = value;
+            case "height" -> data.height = value;
+            case "initial_velocity.x" -> data.initial_velocity.x = value;
+            case "initial_velocity.y" -> data.initial_velocity.y = value;
+            case "position.x" -> data.position.x = value;
+            case "position.y" -> data.position.y = value;
+            default -> throw new IllegalArgumentException("Unknown sweep parameter: " + field);
+        }
+    }
+
+    /** writes one row per variant: the parameter values, the number of steps taken and the final state of every body */
+    public void write(String path) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path), 1 << 16)) {
+            StringBuilder line = new StringBuilder("variant");
+            for (Parameter parameter : parameters) {
+                line.append(',').append(parameter.name());
+            }
+            line.append(",steps");
+            for (int i = 0; i < bodyCount; i++) {
+                for (String column : BODY_COLUMNS) {
+                    line.append(",body").append(i).append('.').append(column);
+                }
+            }
+            writer.append(line);
+            writer.newLine();
+
+            for (int variant = 0; variant < variantCount; variant++) {
+                line.setLength(0);
+                line.append(variant);
+                for (int p = 0; p < parameters.size(); p++) {
+                    line.append(',').append(parameterValue(p, variant));
+                }
+                line.append(',').append(steps[variant]);
+                for (float[] column : bodyColumns) {
+                    line.append(',').append(column[variant]);
+                }
+                writer.append(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: ParameterSweep simulation.json [--out results.csv] [--threads n] [--iterations n] parameter=values...");
+            System.exit(1);
+        }
+
+        String outFile = "sweep_results.csv";
+        int threads = Runtime.getRuntime().availableProcessors();
+        // 0 steps each simulation with its own solver profile
+        int iterations = 0;
+        ArrayList<Parameter> parameters = new ArrayList<>();
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> outFile = args[++i];
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                default -> parameters.add(Parameter.parse(args[i]));
+            }
+        }
+
+        Simulation base = SimulationParser.createSimulation(args[0]);
+        if (base == null) {
+            System.exit(1);
+        }
+
+        ParameterSweep sweep = new ParameterSweep(base, parameters, iterations);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        sweep.run(pool);
+        long wallTime = System.nanoTime() - start;
+        pool.shutdown();
+
+        sweep.write(outFile);
+        System.out.printf("%d variants of '%s' on %d threads in %.3f s (%.0f variants/s), results written to %s\n",
+                sweep.getVariantCount(), base.name, threads, wallTime / 1e9, sweep.getVariantCount() / (wallTime / 1e9), outFile);
+    }
+}
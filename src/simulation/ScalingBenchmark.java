@@ -0,0 +1,179 @@
+package simulation;
+
+import edu.usu.graphics.Graphics2D;
+import physics.MovingBodies;
+import physics.StaticBodies;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Measures how the frame loop scales with the number of bodies, using scenes from SceneGenerator. For every layout and
+ * body count a scene is generated, built headlessly and run through the same update and render calls the tutor makes
+ * each frame, with a headless Graphics2D doing the CPU side of rendering. Each frame is split into the physics step,
+ * building the render queue (updating and rendering every object), and packing the queued shapes into vertex buffers,
+ * which is everything up to the upload itself, since there is no GL context to upload to. The time to build each scene
+ * is reported as well, and the 50th, 95th and 99th percentile of each part of the frame, along with the number of
+ * bodies at rest by the last frame, which are drawn as one batch instead of being updated and rendered on their own.
+ * <p>
+ * Counts where the frame time per body starts climbing are where a part of the loop stops scaling linearly. The
+ * largest counts can take seconds a frame, so each scene stops early once it has run for its time budget.
+ * <p>
+ * Usage: ScalingBenchmark [--counts 10,100,...] [--layouts pile,grid,gas,rooms] [--warmup frames] [--frames n]
+ *                         [--budget seconds] [--iterations n] [--seed s] [--csv file]
+ * */
+public class ScalingBenchmark {
+    private static final float FRAME_TIME = 1.0f / 60.0f;
+    // fewer frames than this aren't worth reporting percentiles for, so they are run even past the budget
+    private static final int MIN_FRAMES = 10;
+    private static final double[] PERCENTILES = {0.50, 0.95, 0.99};
+    private static final String[] PARTS = {"step", "queue", "pack", "frame"};
+
+    public record Result(String layout, int count, double createMillis, int frames, int resting,
+                         double[][] partPercentileMillis) {
+        /** the given percentile, as an index into PERCENTILES, of the given part of the frame, in milliseconds */
+        public double millis(int part, int percentile) {
+            return partPercentileMillis[part][percentile];
+        }
+    }
+
+    /** generates and runs one scene, measuring at most frames frames, or fewer if it runs past budgetSeconds */
+    public static Result run(Graphics2D graphics, String layout, int count, long seed, int warmupFrames, int frames,
+                             double budgetSeconds, int iterations) {
+        Simulation simulation = SceneGenerator.generate(layout, count, seed);
+        long createStart = System.nanoTime();
+        simulation.createHeadless();
+        double createMillis = (System.nanoTime() - createStart) / 1e6;
+
+        MovingBodies movingBodies = simulation.getMovingBodies();
+        StaticBodies staticBodies = simulation.getStaticBodies();
+        simulation.simulationTime = Float.MAX_VALUE;
+
+        long budgetNanos = (long) (budgetSeconds * 1e9);
+        // warming up gets a quarter of the budget, so a slow scene still has time left to be measured
+        long warmupEnd = System.nanoTime() + budgetNanos / 4;
+        for (int frame = 0; frame < warmupFrames && System.nanoTime() < warmupEnd; frame++) {
+            simulation.stepForward(FRAME_TIME, iterations);
+            queueFrame(graphics, movingBodies, staticBodies);
+            graphics.end();
+        }
+
+        long[][] samples = new long[PARTS.length][frames];
+        long measureEnd = System.nanoTime() + budgetNanos;
+        int measured = 0;
+        while (measured < frames && (measured < MIN_FRAMES || System.nanoTime() < measureEnd)) {
+            long start = System.nanoTime();
+            simulation.stepForward(FRAME_TIME, iterations);
+            long stepped = System.nanoTime();
+            queueFrame(graphics, movingBodies, staticBodies);
+            long queued = System.nanoTime();
+            graphics.end();
+            long packed = System.nanoTime();
+
+            samples[0][measured] = stepped - start;
+            samples[1][measured] = queued - stepped;
+            samples[2][measured] = packed - queued;
+            samples[3][measured] = packed - start;
+            measured++;
+        }
+
+        double[][] percentiles = new double[PARTS.length][PERCENTILES.length];
+        for (int part = 0; part < PARTS.length; part++) {
+            long[] sorted = Arrays.copyOf(samples[part], measured);
+            Arrays.sort(sorted);
+            for (int p = 0; p < PERCENTILES.length; p++) {
+                int index = Math.max(0, (int) Math.ceil(PERCENTILES[p] * measured) - 1);
+                percentiles[part][p] = sorted[index] / 1e6;
+            }
+        }
+        return new Result(layout, count, createMillis, measured, movingBodies.getRestingCount(), percentiles);
+    }
+
+    /** the per frame work the simulation view does for its physics objects, short of drawing the queue */
+    private static void queueFrame(Graphics2D graphics, MovingBodies movingBodies, StaticBodies staticBodies) {
+        graphics.begin();
+        staticBodies.render(graphics, FRAME_TIME);
+        movingBodies.update(FRAME_TIME);
+        movingBodies.render(graphics, FRAME_TIME);
+    }
+
+    /** writes one row per scene: its layout and count, the time to build it, and every percentile of every part */
+    public static void write(String path, ArrayList<Result> results) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+            StringBuilder line = new StringBuilder("layout,count,create_ms,frames,resting");
+            for (String part : PARTS) {
+                for (double percentile : PERCENTILES) {
+                    line.append(',').append(part).append("_p").append(Math.round(percentile * 100)).append("_ms");
+                }
+            }
+            writer.append(line);
+            writer.newLine();
+
+            for (Result result : results) {
+                line.setLength(0);
+                line.append(result.layout()).append(',').append(result.count()).append(',')
+                        .append(result.createMillis()).append(',').append(result.frames()).append(',')
+                        .append(result.resting());
+                for (int part = 0; part < PARTS.length; part++) {
+                    for (int p = 0; p < PERCENTILES.length; p++) {
+                        line.append(',').append(result.millis(part, p));
+                    }
+                }
+                writer.append(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] counts = {10, 100, 1000, 10000, 100000};
+        String[] layouts = SceneGenerator.LAYOUTS;
+        int warmupFrames = 300;
+        int frames = 600;
+        double budgetSeconds = 20;
+        int iterations = 10;
+        long seed = 1;
+        String csvFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--counts" -> counts = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "--layouts" -> layouts = args[++i].split(",");
+                case "--warmup" -> warmupFrames = Integer.parseInt(args[++i]);
+                case "--frames" -> frames = Integer.parseInt(args[++i]);
+                case "--budget" -> budgetSeconds = Double.parseDouble(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--csv" -> csvFile = args[++i];
+                default -> {
+                    System.out.printf("Error: unknown argument '%s'.\n", args[i]);
+                    System.exit(1);
+                }
+            }
+        }
+
+        Graphics2D graphics = Graphics2D.createHeadless(1600, 900);
+        ArrayList<Result> results = new ArrayList<>();
+        System.out.printf("%-6s %7s %10s %6s %7s  %-17s  %-17s  %-17s  %-26s %10s\n", "layout", "bodies", "create ms",
+                "frames", "resting", "step ms p50/p95", "queue ms p50/p95", "pack ms p50/p95", "frame ms p50/p95/p99", "frame us/body");
+        for (String layout : layouts) {
+            for (int count : counts) {
+                Result result = run(graphics, layout, count, seed, warmupFrames, frames, budgetSeconds, iterations);
+                results.add(result);
+                System.out.printf("%-6s %7d %10.1f %6d %7d  %8.3f %8.3f  %8.3f %8.3f  %8.3f %8.3f  %8.3f %8.3f %8.3f %10.3f\n",
+                        layout, count, result.createMillis(), result.frames(), result.resting(),
+                        result.millis(0, 0), result.millis(0, 1), result.millis(1, 0), result.millis(1, 1),
+                        result.millis(2, 0), result.millis(2, 1),
+                        result.millis(3, 0), result.millis(3, 1), result.millis(3, 2), result.millis(3, 0) * 1000 / count);
+            }
+        }
+
+        if (csvFile != null) {
+            write(csvFile, results);
+            System.out.printf("results written to %s\n", csvFile);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package simulation;
+
+import edu.usu.graphics.Color;
+import org.jbox2d.dynamics.BodyType;
+import org.joml.Vector2f;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generates simulation files with many bodies, for finding out how the tutor scales past the handful of bodies in the
+ * included simulations. The bodies are a mix of circles, rectangles and pentagons, in turn, inside a box of four static
+ * walls sized to fit them. The layout decides how they move:
+ * <ul>
+ * <li>pile: dropped in loose rows under gravity, so they fall and settle on each other, with many resting contacts</li>
+ * <li>grid: spaced out on a grid with no gravity, so nothing touches and every body soon sleeps</li>
+ * <li>gas: spread out with random velocities, no gravity, friction or energy loss, so they collide forever</li>
+ * <li>rooms: piles like the pile layout, split between rooms side by side, walled off from each other so the bodies
+ * of each room can be stepped in a world of their own</li>
+ * </ul>
+ * The same layout, count and seed always generate the same file.
+ * <p>
+ * Usage: SceneGenerator --count n [--layout pile|grid|gas|rooms] [--seed s] [--out file.json]
+ * */
+public class SceneGenerator {
+    public static final String[] LAYOUTS = {"pile", "grid", "gas", "rooms"};
+
+    // every body fits in a cell this many meters across, with room to spare
+    private static final float BODY_SIZE = 0.5f;
+    private static final float CELL_SIZE = 1.0f;
+    private static final float GAS_CELL_SIZE = 1.5f;
+    private static final float GAS_SPEED = 5.0f;
+    private static final float WALL_THICKNESS = 1.0f;
+    private static final int ROOM_COUNT = 4;
+
+    private static final Color CIRCLE_COLOR = new Color(0.855f, 0.376f, 0.306f);
+    private static final Color RECTANGLE_COLOR = new Color(0.306f, 0.561f, 0.855f);
+    private static final Color POLYGON_COLOR = new Color(0.451f, 0.733f, 0.388f);
+    private static final Color WALL_COLOR = new Color(0.365f, 0.251f, 0.216f);
+
+    /** a simulation with count moving bodies in the given layout, plus the four walls around them */
+    public static Simulation generate(String layout, int count, long seed) {
+        boolean gas = layout.equals("gas");
+        boolean rooms = layout.equals("rooms");
+        boolean pile = rooms || layout.equals("pile");
+        if (!gas && !pile && !layout.equals("grid"))
+            throw new IllegalArgumentException("Unknown layout '" + layout + "', expected pile, grid, gas or rooms");
+
+        Random random = new Random(seed);
+        float cell = gas ? GAS_CELL_SIZE : CELL_SIZE;
+        // every other layout is a single room
+        int roomCount = rooms ? Math.min(ROOM_COUNT, count) : 1;
+        int perRoom = (count + roomCount - 1) / roomCount;
+        int columns = (int) Math.ceil(Math.sqrt(perRoom));
+        int rows = (perRoom + columns - 1) / columns;
+        float roomWidth = columns * cell;
+        float width = roomCount * roomWidth + (roomCount - 1) * WALL_THICKNESS;
+        float height = rows * cell;
+
+        Simulation simulation = new Simulation();
+        simulation.name = String.format("Stress %s %d", layout, count);
+        simulation.description = String.format("%d bodies in a %s layout, generated for benchmarking.", count, layout);
+        simulation.solutionOptions = new ArrayList<>();
+        simulation.simulationTime = 60;
+        simulation.gravity = new Vector2f(0, pile ? -9.81f : 0);
+        // bodies that have settled are let sleep, so they cost neither stepping nor drawing on their own
+        simulation.solver.allowSleep = true;
+        simulation.bgColor = new Color(0.529f, 0.808f, 0.921f);
+        // fit the box and its walls on screen, which is 2 canvas units wide and a little over 1 tall
+        float boxWidth = width + WALL_THICKNESS * 2;
+        float boxHeight = height + WALL_THICKNESS * 2;
+        simulation.zoom = Math.min(1.9f / boxWidth, 1.05f / boxHeight);
+
+        ArrayList<Simulation.ObjectData> objects = simulation.getObjectData();
+        addWall(objects, 0, -(height + WALL_THICKNESS) / 2, boxWidth, WALL_THICKNESS);
+        addWall(objects, 0, (height + WALL_THICKNESS) / 2, boxWidth, WALL_THICKNESS);
+        addWall(objects, -(width + WALL_THICKNESS) / 2, 0, WALL_THICKNESS, height);
+        addWall(objects, (width + WALL_THICKNESS) / 2, 0, WALL_THICKNESS, height);
+        for (int room = 1; room < roomCount; room++) {
+            addWall(objects, -width / 2 + room * (roomWidth + WALL_THICKNESS) - WALL_THICKNESS / 2, 0, WALL_THICKNESS, height);
+        }
+
+        for (int i = 0; i < count; i++) {
+            int room = i / perRoom;
+            int inRoom = i % perRoom;
+            float x = -width / 2 + room * (roomWidth + WALL_THICKNESS) + (inRoom % columns + 0.5f) * cell;
+            float y = -height / 2 + (inRoom / columns + 0.5f) * cell;
+            Vector2f velocity = new Vector2f();
+            float rotation = 0;
+            if (pile) {
+                // jitter the rows so the pile doesn't settle into a perfect stack
+                x += (random.nextFloat() - 0.5f) * (cell - BODY_SIZE);
+                rotation = random.nextFloat() * 360;
+            } else if (gas) {
+                double direction = random.nextDouble() * Math.PI * 2;
+                velocity.set((float) Math.cos(direction) * GAS_SPEED, (float) Math.sin(direction) * GAS_SPEED);
+                rotation = random.nextFloat() * 360;
+            }
+            objects.add(createBody(i % 3, x, y, rotation, velocity, gas));
+        }
+        return simulation;
+    }
+
+    private static void addWall(ArrayList<Simulation.ObjectData> objects, float x, float y, float width, float height) {
+        Simulation.ObjectData wall = new Simulation.ObjectData();
+        wall.shape = "rectangle";
+        wall.bodyType = BodyType.STATIC;
+        wall.density = 1;
+        wall.friction = 0.5f;
+        wall.restitution = 0;
+        wall.initial_velocity = new Vector2f();
+        wall.position = new Vector2f(x, y);
+        wall.width = width;
+        wall.height = height;
+        wall.render_z = 0.5f;
+        wall.color = WALL_COLOR;
+        objects.add(wall);
+    }
+
+    private static Simulation.ObjectData createBody(int kind, float x, float y, float rotation, Vector2f velocity, boolean elastic) {
+        Simulation.ObjectData body = new Simulation.ObjectData();
+        body.bodyType = BodyType.DYNAMIC;
+        body.density = 1;
+        body.friction = elastic ? 0 : 0.4f;
+        body.restitution = elastic ? 1 : 0.1f;
+        body.rotation = rotation;
+        body.initial_velocity = velocity;
+        body.position = new Vector2f(x, y);
+        body.render_z = 0.6f;
+
+        switch (kind) {
+            case 0 -> {
+                body.shape = "circle";
+                body.radius = BODY_SIZE / 2;
+                body.color = CIRCLE_COLOR;
+            }
+            case 1 -> {
+                body.shape = "rectangle";
+                body.width = BODY_SIZE;
+                body.height = BODY_SIZE;
+                body.color = RECTANGLE_COLOR;
+            }
+            default -> {
+                // polygon vertices are in world space, counter-clockwise around the cell's center
+                body.shape = "polygon";
+                for (int v = 0; v < 5; v++) {
+                    double angle = Math.PI / 2 + v * Math.PI * 2 / 5;
+                    body.vertices.add(new Vector2f(
+                            x + (float) Math.cos(angle) * BODY_SIZE / 2, y + (float) Math.sin(angle) * BODY_SIZE / 2));
+                }
+                body.color = POLYGON_COLOR;
+            }
+        }
+        return body;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = -1;
+        String layout = "pile";
+        long seed = 1;
+        String outFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--count" -> count = Integer.parseInt(args[++i]);
+                case "--layout" -> layout = args[++i];
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--out" -> outFile = args[++i];
+                default -> {
+                    System.out.printf("Error: unknown argument '%s'.\n", args[i]);
+                    System.exit(1);
+                }
+            }
+        }
+        if (count < 1) {
+            System.out.println("Usage: SceneGenerator --count n [--layout pile|grid|gas|rooms] [--seed s] [--out file.json]");
+            System.exit(1);
+        }
+        if (outFile == null) {
+            outFile = String.format("stress_%s_%d.json", layout, count);
+        }
+
+        Simulation simulation = generate(layout, count, seed);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outFile), 1 << 16)) {
+            writer.write(SimulationParser.toJson(simulation));
+        }
+        System.out.printf("'%s' written to %s\n", simulation.name, outFile);
+    }
+}
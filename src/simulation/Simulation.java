@@ -1,7 +1,8 @@
 package simulation;
 
 import edu.usu.graphics.Color;
-import edu.usu.graphics.Texture;
+import edu.usu.graphics.Graphics2D;
+import org.jbox2d.dynamics.Body;
 import org.jbox2d.dynamics.BodyType;
 import org.joml.Vector2f;
 import physics.*;
@@ -9,6 +10,9 @@ import physics.*;
 import java.util.ArrayList;
 
 public class Simulation {
+    // the most memory the recording of a run may take, enough for hours of the included simulations
+    private static final int RECORDING_BYTES = 16 * 1024 * 1024;
+
     public float simulationTime;
     public Vector2f gravity;
     public float zoom;
@@ -17,49 +21,358 @@ public class Simulation {
     public ArrayList<String> solutionOptions;
     public Color bgColor;
 
+    // physics is stepped in fixed increments of this many seconds (0 steps with the raw frame time instead)
+    public float fixedTimestep = 1.0f / 60.0f;
+    // upper bound on the number of physics steps per frame, so a slow frame can't trigger ever-longer frames
+    public int maxStepsPerFrame = 5;
+    // the solver iterations and settings the physics is stepped with (optional, see SolverProfile)
+    public SolverProfile solver = new SolverProfile();
+
+    // describes what to measure to find the correct solution option (optional, see SolutionVerifier)
+    public Verification verification;
+    // ends the run before simulationTime once any of these is met (optional, see StopConditions)
+    public ArrayList<StopWhen> stopWhen = new ArrayList<>();
+    // the positions kept in the trail of each moving body, one per physics step, 0 for no trails (optional, see Trails)
+    public int trailLength = 180;
+
     private final ArrayList<ObjectData> physicsObjects = new ArrayList<>();
 
     public transient PhysicsWorld world;
     public transient double timeElapsedSinceStart;
+    // checksum of the simulation file this was read from, used to detect a stale answer key
+    public transient long sourceChecksum;
+    private transient ArrayList<PhysicsObject2D> objects;
+    // the objects split by whether they can move, so the ones that can't are drawn as a single static batch
+    private transient MovingBodies movingBodies;
+    private transient StaticBodies staticBodies;
+    private transient Trails trails;
+    // whether the last call to create() built the simulation for display, with its textures
+    private transient boolean createdForDisplay = false;
+    // steps the world while the simulation is shown, between startPhysicsThread and stopPhysicsThread
+    private transient PhysicsThread physicsThread;
 
     public ArrayList<PhysicsObject2D> create() {
+        return create(false);
+    }
+
+    /**
+     * Builds the physics world without touching the graphics library, so the simulation can be run without
+     * a window or a GL context. Rectangle textures are skipped; everything else is identical to create().
+     * */
+    public ArrayList<PhysicsObject2D> createHeadless() {
+        return create(true);
+    }
+
+    private ArrayList<PhysicsObject2D> create(boolean headless) {
         this.world = new PhysicsWorld(gravity, this.zoom);
+        this.world.setFixedTimestep(this.fixedTimestep, this.maxStepsPerFrame);
+        // the solver is optional, and a file may still spell it out as null
+        if (this.solver == null) {
+            this.solver = new SolverProfile();
+        }
+        // adapting the iterations to the step time is for keeping frames on time, so headless runs stay repeatable
+        this.world.setSolver(this.solver, !headless);
         this.timeElapsedSinceStart = 0;
 
+        // groups of bodies that static walls keep from ever touching each other get worlds of their own, stepped in parallel
+        BodyGroups groups = findBodyGroups();
+        this.world.setWorldCount(groups.count());
+
         ArrayList<PhysicsObject2D> physObjects = new ArrayList<>();
-        for (ObjectData data : this.physicsObjects) {
-            switch (data.shape) {
-                case "rectangle" -> physObjects.add(createPhysRectangle(data, world));
-                case "polygon" -> physObjects.add(createPhysPolygon(data, world));
-                case "triangle" -> physObjects.add(createPhysTriangle(data, world));
-                case "circle" -> physObjects.add(createPhysCircle(data, world));
+        for (int i = 0; i < this.physicsObjects.size(); i++) {
+            this.world.setTargetWorld(groups.groupOf(i));
+            PhysicsObject2D object = createObject(this.physicsObjects.get(i), this.world, headless);
+            if (object == null)
+                continue;
+            physObjects.add(object);
+            for (int group : groups.groupsOf(i)) {
+                if (group != groups.groupOf(i)) {
+                    this.world.copyStaticBody(object.getStateIndex(), group);
+                }
+            }
+        }
+        this.objects = physObjects;
+
+        ArrayList<PhysicsObject2D> staticObjects = new ArrayList<>();
+        ArrayList<PhysicsObject2D> movingObjects = new ArrayList<>();
+        for (PhysicsObject2D object : physObjects) {
+            if (object.getBody().getType() == BodyType.STATIC) {
+                staticObjects.add(object);
+            } else {
+                movingObjects.add(object);
             }
         }
+        this.staticBodies = new StaticBodies(world, staticObjects);
+        this.movingBodies = new MovingBodies(world, movingObjects);
+        // a step apart, or a 60th of a second when steps follow the frame time
+        double trailInterval = this.fixedTimestep > 0 ? this.fixedTimestep : 1.0 / 60.0;
+        this.trails = new Trails(world, movingObjects, Math.max(this.trailLength, 0), trailInterval);
+        this.world.setStopCondition(StopConditions.create(this));
+
+        // record the run so it can be replayed and scrubbed through without simulating it again
+        if (!headless) {
+            this.world.startRecording(RECORDING_BYTES);
+        }
+        this.world.saveSnapshot();
+        this.createdForDisplay = !headless;
         return physObjects;
     }
 
+    private PhysicsObject2D createObject(ObjectData data, PhysicsWorld world, boolean headless) {
+        PhysicsObject2D object = switch (data.shape) {
+            case "rectangle" -> createPhysRectangle(data, world, headless);
+            case "polygon" -> createPhysPolygon(data, world);
+            case "triangle" -> createPhysTriangle(data, world);
+            case "circle" -> createPhysCircle(data, world);
+            default -> null;
+        };
+        // a body knows its object, so whatever it touches can be traced back to an object
+        if (object != null) {
+            object.getBody().setUserData(object);
+        }
+        return object;
+    }
+
+    /**
+     * Finds the groups of bodies that can never touch each other. The static bodies are built on their own first, in
+     * a world that is then thrown away, and each moving body is placed by its center.
+     * <p>
+     * Walls only keep bodies apart if they stop them: kinematic bodies go straight through static ones, and without
+     * continuous collision fast bodies can tunnel through thin walls, so either keeps the whole scene in one world.
+     * */
+    private BodyGroups findBodyGroups() {
+        int count = this.physicsObjects.size();
+        if (!this.solver.continuousPhysics)
+            return BodyGroups.single(count);
+        for (ObjectData data : this.physicsObjects) {
+            if (data.bodyType == BodyType.KINEMATIC)
+                return BodyGroups.single(count);
+        }
+        Body[] staticBodies = new Body[count];
+        float[] points = new float[count * 2];
+        PhysicsWorld staticWorld = null;
+        for (int i = 0; i < count; i++) {
+            ObjectData data = this.physicsObjects.get(i);
+            if (data.bodyType == BodyType.STATIC) {
+                if (staticWorld == null)
+                    staticWorld = new PhysicsWorld(gravity, this.zoom);
+                PhysicsObject2D object = createObject(data, staticWorld, true);
+                if (object != null)
+                    staticBodies[i] = object.getBody();
+            } else if (data.shape.equals("polygon") || data.shape.equals("triangle")) {
+                // polygons are centered on the average of their vertices, which is inside them
+                for (Vector2f vertex : data.vertices) {
+                    points[i * 2] += vertex.x / data.vertices.size();
+                    points[i * 2 + 1] += vertex.y / data.vertices.size();
+                }
+            } else if (data.position != null) {
+                points[i * 2] = data.position.x;
+                points[i * 2 + 1] = data.position.y;
+            }
+        }
+        return BodyGroups.find(staticBodies, points);
+    }
+
+    /** the image files the simulation's objects are drawn with, so they can be packed into the texture atlas */
+    public ArrayList<String> getTexturePaths() {
+        ArrayList<String> paths = new ArrayList<>();
+        for (ObjectData data : this.physicsObjects) {
+            if (data.texture != null && !data.texture.isEmpty()) {
+                paths.add(data.texture);
+            }
+        }
+        return paths;
+    }
+
+    /** the physics objects built by the last call to create(), in the order they appear in the simulation file */
+    public ArrayList<PhysicsObject2D> getObjects() {
+        return this.objects;
+    }
+
+    /**
+     * Puts every body back where create() placed it and starts the run over, reusing the world, bodies and textures
+     * instead of building them again. Nothing is allocated, so a simulation can be restarted indefinitely.
+     * */
+    public void reset() {
+        if (this.physicsThread != null) {
+            this.physicsThread.reset();
+        } else {
+            this.world.restoreSnapshot();
+        }
+        this.timeElapsedSinceStart = 0;
+    }
+
+    /**
+     * Steps the world on a thread of its own from now on, with the solver profile, instead of on the thread calling
+     * stepForward. The calls that step, reset or replay the simulation are then sent to that thread,
+     * and what it has done shows up once showLatestState is called. Does nothing if the thread is already running.
+     * */
+    public void startPhysicsThread() {
+        if (this.physicsThread != null)
+            return;
+        this.physicsThread = new PhysicsThread(this.world, this.simulationTime, "Physics: " + this.name);
+        this.physicsThread.start();
+    }
+
+    /** stops the physics thread, if there is one, after which the world is stepped by stepForward again */
+    public void stopPhysicsThread() {
+        if (this.physicsThread == null)
+            return;
+        this.physicsThread.stop();
+        this.physicsThread = null;
+        this.timeElapsedSinceStart = this.world.getSimulatedTime();
+    }
+
+    /**
+     * With a physics thread running, shows the newest state it has published, which is what the objects draw until
+     * this is called again. Called once a frame, before the objects are updated.
+     * */
+    public void showLatestState() {
+        if (this.physicsThread == null)
+            return;
+        this.physicsThread.show();
+        this.timeElapsedSinceStart = this.physicsThread.getSimulatedTime();
+    }
+
+    /** hands back the GPU resources the objects acquired while being drawn, for when the simulation isn't shown */
+    public void release(Graphics2D graphics) {
+        stopPhysicsThread();
+        if (this.objects == null)
+            return;
+        this.staticBodies.release(graphics);
+        this.movingBodies.release(graphics);
+        for (PhysicsObject2D object : this.objects) {
+            object.release(graphics);
+        }
+    }
+
+    /** true once create() has built the simulation for display, after which reset() can be used instead */
+    public boolean isCreated() {
+        return this.world != null && this.createdForDisplay;
+    }
+
+    /** true if the recording of the run filled up, so it no longer covers everything that was simulated */
+    public boolean isRecordingFull() {
+        if (this.physicsThread != null)
+            return this.physicsThread.isRecordingFull();
+        StateRecording recording = this.world.getRecording();
+        return recording != null && recording.isFull();
+    }
+
+    /** the objects built by the last call to create() whose bodies aren't static, updated and drawn while they move */
+    public MovingBodies getMovingBodies() {
+        return this.movingBodies;
+    }
+
+    /** the paths the moving objects have just taken, sampled from whatever state is shown */
+    public Trails getTrails() {
+        return this.trails;
+    }
+
+    /** the objects built by the last call to create() whose bodies are static, drawn together as one batch */
+    public StaticBodies getStaticBodies() {
+        return this.staticBodies;
+    }
+
+    /** the object definitions read from the simulation file, used by tools that rewrite simulations */
+    ArrayList<ObjectData> getObjectData() {
+        return this.physicsObjects;
+    }
+
+    /** steps the simulation forward by elapsedTime with its solver profile, see stepForward(elapsedTime, iterations) */
+    public void stepForward(double elapsedTime) {
+        stepForward(elapsedTime, 0);
+    }
+
+    /**
+     * Steps the simulation forward by elapsedTime, until it has run for simulationTime. iterations replaces both of
+     * the solver profile's iteration counts, or is 0 to step with the profile. With a physics thread running the time
+     * is sent to it instead, and always stepped with the profile.
+     * */
     public void stepForward(double elapsedTime, int iterations) {
+        if (this.physicsThread != null) {
+            this.physicsThread.advance(elapsedTime);
+            return;
+        }
         if (timeElapsedSinceStart <= simulationTime) {
-            this.world.stepForward(elapsedTime, iterations);
+            if (iterations > 0) {
+                this.world.stepForward(elapsedTime, iterations);
+            } else {
+                this.world.stepForward(elapsedTime);
+            }
+        }
+        // track the time the physics has actually covered, so the run length doesn't depend on the frame rate
+        timeElapsedSinceStart = this.world.getSimulatedTime();
+    }
+
+    /** fills into with what the recent physics steps cost, see StepTelemetry */
+    public void getTelemetry(StepTelemetry.Summary into) {
+        if (this.physicsThread != null) {
+            this.physicsThread.getTelemetry(into);
+        } else {
+            this.world.getTelemetry().summarize(into);
+        }
+    }
+
+    /** the amount of the current run that has been recorded, in seconds, 0 if it isn't being recorded */
+    public double recordedTime() {
+        if (this.physicsThread != null)
+            return this.physicsThread.getRecordedTime();
+        StateRecording recording = this.world.getRecording();
+        return recording == null ? 0.0 : recording.getEndTime();
+    }
+
+    /**
+     * Shows the recorded state at the given time instead of the simulated one. The simulation itself doesn't change,
+     * so call showSimulated before stepping it again.
+     * */
+    public void showRecorded(double time) {
+        if (this.physicsThread != null) {
+            this.physicsThread.showRecording(time);
+        } else {
+            this.world.showRecording(time);
+        }
+    }
+
+    /** goes back to showing the simulated state after showRecorded */
+    public void showSimulated() {
+        if (this.physicsThread != null) {
+            this.physicsThread.showSimulation();
+        } else {
+            this.world.showSimulation();
         }
-        timeElapsedSinceStart += elapsedTime;
     }
 
+    /** the number of physics objects defined by the simulation file */
+    public int bodyCount() {
+        return this.physicsObjects.size();
+    }
+
+    /** true once the run has lasted simulationTime, or one of its stop conditions has been met */
     public boolean simulationStopped() {
-        return this.timeElapsedSinceStart >= simulationTime;
+        return this.timeElapsedSinceStart >= simulationTime || stoppedEarly();
+    }
+
+    /** how long the run lasts, which is simulationTime unless a stop condition ended it sooner */
+    public double runTime() {
+        return stoppedEarly() ? Math.min(this.timeElapsedSinceStart, simulationTime) : simulationTime;
+    }
+
+    private boolean stoppedEarly() {
+        return this.physicsThread != null ? this.physicsThread.isStopped() : this.world.isStopped();
     }
 
-    private Rect createPhysRectangle(ObjectData data, PhysicsWorld world) {
+    private Rect createPhysRectangle(ObjectData data, PhysicsWorld world, boolean headless) {
         float rotation = -data.rotation * (float) Math.PI / 180f;
-        if (data.texture.isEmpty()) {
+        if (data.texture.isEmpty() || headless) {
             return new Rect(
                     world, data.position, data.width, data.height, data.color, data.render_z, rotation, data.initial_velocity,
                     data.bodyType, data.density, data.friction, data.restitution
             );
         } else {
-            Texture texture = new Texture(data.texture);
+            // the texture itself comes from the graphics' texture cache when the rectangle is first drawn
             return new Rect(
-                    world, data.position, data.width, data.height, data.color, texture, data.render_z, rotation, data.initial_velocity,
+                    world, data.position, data.width, data.height, data.color, data.texture, data.render_z, rotation, data.initial_velocity,
                     data.bodyType, data.density, data.friction, data.restitution
             );
         }
@@ -89,6 +402,37 @@ public class Simulation {
         );
     }
 
+    /**
+     * The quantity the question asks about. quantity is one of "velocity" (the velocity vector of the body at endTime),
+     * "acceleration" (the average acceleration of the body between startTime and endTime) or "range" (the horizontal
+     * distance the body travels before it first touches another body). body is the index of the object in physicsObjects.
+     * */
+    public static class Verification {
+        String quantity;
+        int body;
+        float startTime = 0;
+        // a negative end time means the end of the simulation
+        float endTime = -1;
+        // the largest relative error an option can have and still be considered correct
+        float tolerance = 0.1f;
+    }
+
+    /**
+     * A condition that ends the run early. type is one of "asleep" (every moving body is asleep, which needs the
+     * solver to allow sleep), "leftCanvas" (the center of body is off the canvas), "contact" (body touches other) or
+     * "threshold" (quantity of body goes above or below a value). body and other are indices into physicsObjects,
+     * where -1 means any moving body and any body. quantity is one of "x", "y", "vx", "vy" or "speed".
+     * */
+    public static class StopWhen {
+        String type;
+        int body = -1;
+        int other = -1;
+        String quantity;
+        // the run stops once the quantity is above or below these, either of which may be left out
+        Float above;
+        Float below;
+    }
+
     public static class ObjectData {
         String shape;
         BodyType bodyType;
@@ -7,14 +7,30 @@ import physics.PhysicsObject2D;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
 
 public class SimulationParser {
     private static class SimIndex{ArrayList<String> paths;}
+    // the shapes Simulation can build an object from
+    private static final List<String> SHAPES = List.of("rectangle", "polygon", "triangle", "circle");
 
     public static ArrayList<Simulation> createFromIndex(String indexFile) {
-        SimIndex simulationPaths;
+        ArrayList<String> simulationPaths = readIndex(indexFile);
+        if (simulationPaths == null)
+            return null;
 
+        ArrayList<Simulation> simulations = new ArrayList<>();
+        for (String path : simulationPaths) {
+            simulations.add(createSimulation(path));
+        }
+        return simulations;
+    }
+
+    /** returns the simulation file paths listed in the index file */
+    public static ArrayList<String> readIndex(String indexFile) {
         try (BufferedReader reader = new BufferedReader(new FileReader(indexFile))) {
             StringBuilder simJson = new StringBuilder();
             String line;
@@ -22,17 +38,28 @@ public class SimulationParser {
                 simJson.append(line);
             }
             Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            simulationPaths = gson.fromJson(simJson.toString(), SimIndex.class);
+            return gson.fromJson(simJson.toString(), SimIndex.class).paths;
         } catch (IOException e){
             java.lang.System.out.printf("Error: Index file '%s' was not found.\n", indexFile);
             return null;
         }
+    }
 
-        ArrayList<Simulation> simulations = new ArrayList<>();
-        for (String path : simulationPaths.paths) {
-            simulations.add(createSimulation(path));
-        }
-        return simulations;
+    /** a checksum of the simulation file contents, so the answer key can tell when a simulation has been edited */
+    public static long checksum(String simulationJson) {
+        CRC32 crc = new CRC32();
+        crc.update(simulationJson.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /** converts a simulation back into the json format used by the simulation files */
+    public static String toJson(Simulation simulation) {
+        return new Gson().toJson(simulation);
+    }
+
+    /** creates a simulation from json text in the simulation file format */
+    public static Simulation fromJson(String simulationJson) {
+        return new Gson().fromJson(simulationJson, Simulation.class);
     }
 
     public static Simulation createSimulation(String simulationPath) {
@@ -43,7 +70,16 @@ public class SimulationParser {
                 simJson.append(line);
             }
             Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            return gson.fromJson(simJson.toString(), Simulation.class);
+            Simulation simulation = gson.fromJson(simJson.toString(), Simulation.class);
+            simulation.sourceChecksum = checksum(simJson.toString());
+            // an object that can't be built would be skipped, shifting the index of every body after it
+            for (Simulation.ObjectData data : simulation.getObjectData()) {
+                if (!SHAPES.contains(data.shape)) {
+                    java.lang.System.out.printf("Error: Simulation file '%s' has an object of unknown shape '%s'.\n", simulationPath, data.shape);
+                    return null;
+                }
+            }
+            return simulation;
         } catch (IOException e){
             java.lang.System.out.printf("Error: Simulation file '%s' was not found.\n", simulationPath);
             return null;
@@ -0,0 +1,173 @@
+package simulation;
+
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.contacts.ContactEdge;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the solution options of every simulation against the simulation itself. Each simulation is run headlessly,
+ * the quantity described by its "verification" block is measured, and the option closest to the measurement (within
+ * the tolerance) is recorded in the answer key that SimulationView uses to check submissions.
+ * <p>
+ * Usage: SolutionVerifier [--index file] [--out answer_key.json] [--iterations n]
+ * */
+public class SolutionVerifier {
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    /** measures the simulation and picks the matching option, or returns null if no option is close enough */
+    public static AnswerKey.Answer verify(Simulation simulation, int iterations) {
+        return match(simulation, measure(simulation, iterations));
+    }
+
+    /** picks the option closest to the measured quantity, or returns null if none is within the tolerance */
+    static AnswerKey.Answer match(Simulation simulation, float[] measured) {
+        int bestIndex = -1;
+        float bestError = Float.MAX_VALUE;
+        for (int i = 0; i < simulation.solutionOptions.size(); i++) {
+            float[] option = parseOption(simulation.solutionOptions.get(i));
+            if (option.length != measured.length)
+                continue;
+
+            float error = relativeError(option, measured);
+            if (error < bestError) {
+                bestError = error;
+                bestIndex = i;
+            }
+        }
+
+        if (bestIndex < 0 || bestError > simulation.verification.tolerance)
+            return null;
+        return new AnswerKey.Answer(simulation.solutionOptions.get(bestIndex), bestIndex, measured, bestError, simulation.sourceChecksum);
+    }
+
+    /** runs the simulation headlessly and returns the quantity its verification block asks for */
+    static float[] measure(Simulation simulation, int iterations) {
+        Simulation.Verification verification = simulation.verification;
+        simulation.createHeadless();
+        Body body = simulation.getObjects().get(verification.body).getBody();
+        float timestep = simulation.fixedTimestep > 0 ? simulation.fixedTimestep : HeadlessRunner.DEFAULT_TIMESTEP;
+        float endTime = verification.endTime < 0 ? simulation.simulationTime : verification.endTime;
+
+        float startX = body.getWorldCenter().x;
+        Vec2 startVelocity = new Vec2(body.getLinearVelocity());
+        boolean started = verification.startTime <= 0;
+
+        while (!simulation.simulationStopped()) {
+            simulation.stepForward(timestep, iterations);
+            double time = simulation.timeElapsedSinceStart;
+
+            if (!started && time >= verification.startTime) {
+                startVelocity.set(body.getLinearVelocity());
+                started = true;
+            }
+            if (verification.quantity.equals("range") && isTouching(body))
+                break;
+            if (!verification.quantity.equals("range") && time >= endTime)
+                break;
+        }
+
+        Vec2 velocity = body.getLinearVelocity();
+        return switch (verification.quantity) {
+            case "velocity" -> new float[] {velocity.x, velocity.y};
+            case "acceleration" -> new float[] {
+                    velocity.sub(startVelocity).length() / (endTime - verification.startTime)
+            };
+            case "range" -> new float[] {Math.abs(body.getWorldCenter().x - startX)};
+            default -> throw new IllegalArgumentException("Unknown verification quantity: " + verification.quantity);
+        };
+    }
+
+    private static boolean isTouching(Body body) {
+        for (ContactEdge edge = body.getContactList(); edge != null; edge = edge.next) {
+            if (edge.contact.isTouching())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the numbers from an option, e.g. "v1 = (3, 2) m/s" gives [3, 2] and "3.2 m/s²" gives [3.2].
+     * Anything before an '=' is a label and is skipped.
+     * */
+    static float[] parseOption(String option) {
+        String value = option.substring(option.indexOf('=') + 1);
+        Matcher matcher = NUMBER.matcher(value);
+        ArrayList<Float> numbers = new ArrayList<>();
+        while (matcher.find()) {
+            numbers.add(Float.parseFloat(matcher.group()));
+        }
+
+        float[] result = new float[numbers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = numbers.get(i);
+        }
+        return result;
+    }
+
+    private static float relativeError(float[] option, float[] measured) {
+        float difference = 0;
+        float magnitude = 0;
+        for (int i = 0; i < option.length; i++) {
+            difference += (option[i] - measured[i]) * (option[i] - measured[i]);
+            magnitude += measured[i] * measured[i];
+        }
+        return (float) (Math.sqrt(difference) / Math.max(Math.sqrt(magnitude), 1e-6));
+    }
+
+    public static void main(String[] args) throws IOException {
+        String indexFile = "./resources/simulations/index.json";
+        String outFile = AnswerKey.DEFAULT_PATH;
+        // 0 steps each simulation with its own solver profile
+        int iterations = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--index" -> indexFile = args[++i];
+                case "--out" -> outFile = args[++i];
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+            }
+        }
+
+        ArrayList<String> paths = SimulationParser.readIndex(indexFile);
+        if (paths == null) {
+            System.exit(1);
+        }
+
+        AnswerKey key = new AnswerKey();
+        boolean failed = false;
+        for (String path : paths) {
+            Simulation simulation = SimulationParser.createSimulation(path);
+            if (simulation == null) {
+                failed = true;
+                continue;
+            }
+            if (simulation.verification == null) {
+                System.out.printf("%-20s skipped, no verification block\n", simulation.name);
+                continue;
+            }
+
+            float[] measured = measure(simulation, iterations);
+            AnswerKey.Answer answer = match(simulation, measured);
+            if (answer == null) {
+                System.out.printf("Error: no option of '%s' (%s) matches the measured %s.\n",
+                        simulation.name, path, Arrays.toString(measured));
+                failed = true;
+                continue;
+            }
+
+            key.put(simulation.name, answer);
+            System.out.printf("%-20s %-18s measured %-24s error %5.1f%%\n", simulation.name, answer.option,
+                    Arrays.toString(answer.measured), answer.relativeError * 100);
+        }
+
+        key.write(outFile);
+        System.out.printf("Answer key written to %s\n", outFile);
+        if (failed) System.exit(1);
+    }
+}
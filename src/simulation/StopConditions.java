@@ -0,0 +1,188 @@
+package simulation;
+
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.contacts.ContactEdge;
+import physics.BodyStateBuffer;
+import physics.PhysicsObject2D;
+import physics.StopCondition;
+
+import java.util.ArrayList;
+
+/**
+ * The "stopWhen" block of a simulation, checked after every step. Everything is looked up as the simulation is
+ * created, so a check only reads the state buffer, apart from contacts, which walk the contacts of the bodies in
+ * question. The run stops as soon as any one condition is met.
+ * */
+final class StopConditions implements StopCondition {
+    // the canvas is 2 units wide, and as tall as the tutor's 16:9 window makes it
+    private static final float CANVAS_HALF_WIDTH = 1.0f;
+    private static final float CANVAS_HALF_HEIGHT = 9.0f / 16.0f;
+
+    private static final int ASLEEP = 0;
+    private static final int LEFT_CANVAS = 1;
+    private static final int CONTACT = 2;
+    private static final int THRESHOLD = 3;
+
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int VX = 2;
+    private static final int VY = 3;
+    private static final int SPEED = 4;
+
+    // per condition: its type, the state index and body of its object or -1 and null for every moving object, and the
+    // object it must touch or null for any object. Thresholds also have a quantity and the range it has to stay within.
+    private final int[] types;
+    private final int[] indices;
+    private final Body[] bodies;
+    private final PhysicsObject2D[] others;
+    private final int[] quantities;
+    private final float[] lower;
+    private final float[] upper;
+    // the state indices and bodies of every moving object
+    private final int[] moving;
+    private final Body[] movingBodies;
+    // the canvas bounds, in meters
+    private final float halfWidth;
+    private final float halfHeight;
+
+    private StopConditions(Simulation simulation, ArrayList<Simulation.StopWhen> conditions) {
+        ArrayList<PhysicsObject2D> objects = simulation.getObjects();
+        int count = conditions.size();
+        this.types = new int[count];
+        this.indices = new int[count];
+        this.bodies = new Body[count];
+        this.others = new PhysicsObject2D[count];
+        this.quantities = new int[count];
+        this.lower = new float[count];
+        this.upper = new float[count];
+        for (int i = 0; i < count; i++) {
+            Simulation.StopWhen condition = conditions.get(i);
+            this.types[i] = parseType(condition.type);
+            this.indices[i] = condition.body < 0 ? -1 : objects.get(condition.body).getStateIndex();
+            this.bodies[i] = condition.body < 0 ? null : objects.get(condition.body).getBody();
+            this.others[i] = condition.other < 0 ? null : objects.get(condition.other);
+            if (this.types[i] == THRESHOLD) {
+                if (condition.above == null && condition.below == null)
+                    throw new IllegalArgumentException("A threshold stop condition needs 'above' or 'below'");
+                this.quantities[i] = parseQuantity(condition.quantity);
+                // the run goes on while the quantity is within [lower, upper]
+                this.lower[i] = condition.below == null ? Float.NEGATIVE_INFINITY : condition.below;
+                this.upper[i] = condition.above == null ? Float.POSITIVE_INFINITY : condition.above;
+            }
+        }
+
+        int movingCount = 0;
+        for (PhysicsObject2D object : objects) {
+            if (object.getBody().getType() != BodyType.STATIC) movingCount++;
+        }
+        this.moving = new int[movingCount];
+        this.movingBodies = new Body[movingCount];
+        int next = 0;
+        for (PhysicsObject2D object : objects) {
+            if (object.getBody().getType() != BodyType.STATIC) {
+                this.moving[next] = object.getStateIndex();
+                this.movingBodies[next] = object.getBody();
+                next++;
+            }
+        }
+
+        this.halfWidth = CANVAS_HALF_WIDTH / simulation.zoom;
+        this.halfHeight = CANVAS_HALF_HEIGHT / simulation.zoom;
+    }
+
+    /** the stop conditions of a simulation that has just been created, or null if it has none */
+    static StopConditions create(Simulation simulation) {
+        if (simulation.stopWhen == null || simulation.stopWhen.isEmpty())
+            return null;
+        return new StopConditions(simulation, simulation.stopWhen);
+    }
+
+    private static int parseType(String type) {
+        return switch (type) {
+            case "asleep" -> ASLEEP;
+            case "leftCanvas" -> LEFT_CANVAS;
+            case "contact" -> CONTACT;
+            case "threshold" -> THRESHOLD;
+            default -> throw new IllegalArgumentException("Unknown stop condition: " + type);
+        };
+    }
+
+    private static int parseQuantity(String quantity) {
+        return switch (quantity) {
+            case "x" -> X;
+            case "y" -> Y;
+            case "vx" -> VX;
+            case "vy" -> VY;
+            case "speed" -> SPEED;
+            default -> throw new IllegalArgumentException("Unknown stop condition quantity: " + quantity);
+        };
+    }
+
+    @Override
+    public boolean isMet(BodyStateBuffer state) {
+        for (int i = 0; i < this.types.length; i++) {
+            if (isMet(i, state))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isMet(int condition, BodyStateBuffer state) {
+        int index = this.indices[condition];
+        switch (this.types[condition]) {
+            case ASLEEP -> {
+                for (int body : this.moving) {
+                    if (state.isAwake(body))
+                        return false;
+                }
+                return true;
+            }
+            case CONTACT -> {
+                if (index >= 0)
+                    return isTouching(this.bodies[condition], this.others[condition]);
+                for (Body body : this.movingBodies) {
+                    if (isTouching(body, this.others[condition]))
+                        return true;
+                }
+                return false;
+            }
+            default -> {
+                if (index >= 0)
+                    return isMet(condition, state, index);
+                for (int body : this.moving) {
+                    if (isMet(condition, state, body))
+                        return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /** whether a condition about a single body, that it left the canvas or passed a threshold, is met by one body */
+    private boolean isMet(int condition, BodyStateBuffer state, int index) {
+        if (this.types[condition] == LEFT_CANVAS)
+            return Math.abs(state.x(index)) > this.halfWidth || Math.abs(state.y(index)) > this.halfHeight;
+
+        float value = switch (this.quantities[condition]) {
+            case X -> state.x(index);
+            case Y -> state.y(index);
+            case VX -> state.vx(index);
+            case VY -> state.vy(index);
+            default -> (float) Math.sqrt(state.vx(index) * state.vx(index) + state.vy(index) * state.vy(index));
+        };
+        return value < this.lower[condition] || value > this.upper[condition];
+    }
+
+    /**
+     * whether a body touches the other object, or anything if it is null. Static objects copied into other worlds
+     * keep their object as user data, so they are found through the copy the body actually touches.
+     * */
+    private static boolean isTouching(Body body, PhysicsObject2D other) {
+        for (ContactEdge edge = body.getContactList(); edge != null; edge = edge.next) {
+            if (edge.contact.isTouching() && (other == null || edge.other.getUserData() == other))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+package simulation;
+
+import physics.BodyStateBuffer;
+
+import java.io.*;
+
+/**
+ * Writes the trajectory of every body (position, angle and velocity at each physics step) to a file.
+ * Paths ending in ".bin" are written in a compact binary format, anything else is written as CSV.
+ * <p>
+ * The binary format is big endian (as written by DataOutputStream): the int 'PTRJ', an int version number
+ * and an int body count, followed by one record per step: an int step number, a float time in seconds,
+ * then five floats per body in state buffer (creation) order (x, y, angle, vx, vy). Units are meters, radians and m/s.
+ * */
+public class TrajectoryWriter implements AutoCloseable {
+    private static final int MAGIC = 0x5054524A; // "PTRJ"
+    private static final int VERSION = 1;
+
+    private final DataOutputStream binaryOut;
+    private final BufferedWriter csvOut;
+    private final StringBuilder line = new StringBuilder();
+
+    public TrajectoryWriter(String path, int bodyCount) throws IOException {
+        if (path.endsWith(".bin")) {
+            this.binaryOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+            this.csvOut = null;
+            this.binaryOut.writeInt(MAGIC);
+            this.binaryOut.writeInt(VERSION);
+            this.binaryOut.writeInt(bodyCount);
+        } else {
+            this.binaryOut = null;
+            this.csvOut = new BufferedWriter(new FileWriter(path), 1 << 16);
+            this.csvOut.write("step,time,body,x,y,angle,vx,vy");
+            this.csvOut.newLine();
+        }
+    }
+
+    /** appends the current state of every body in the state buffer as one step of the trajectory */
+    public void writeStep(int step, double time, BodyStateBuffer state) throws IOException {
+        if (binaryOut != null) {
+            binaryOut.writeInt(step);
+            binaryOut.writeFloat((float) time);
+        }
+
+        for (int i = 0; i < state.count(); i++) {
+            if (binaryOut != null) {
+                binaryOut.writeFloat(state.x(i));
+                binaryOut.writeFloat(state.y(i));
+                binaryOut.writeFloat(state.angle(i));
+                binaryOut.writeFloat(state.vx(i));
+                binaryOut.writeFloat(state.vy(i));
+            } else {
+                line.setLength(0);
+                line.append(step).append(',').append((float) time).append(',').append(i).append(',')
+                        .append(state.x(i)).append(',').append(state.y(i)).append(',').append(state.angle(i)).append(',')
+                        .append(state.vx(i)).append(',').append(state.vy(i));
+                csvOut.append(line);
+                csvOut.newLine();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (binaryOut != null) binaryOut.close();
+        if (csvOut != null) csvOut.close();
+    }
+}
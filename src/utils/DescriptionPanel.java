@@ -21,6 +21,12 @@ public class DescriptionPanel {
 
     private String description;
     private Text closeButton;
+    // the description split into lines, null until the next render after the description changes, so rendering
+    // doesn't split it every frame
+    private ArrayList<String> lines;
+    // scratch objects reused by every render
+    private final Rectangle panel = new Rectangle(0, 0, 0, 0);
+    private final Vector2f buttonCenter = new Vector2f();
 
     private final float panelWidth = 0.5f;
 
@@ -39,10 +45,11 @@ public class DescriptionPanel {
     }
 
     public void setDescription(String newDesc) {
-        if (newDesc == null)
+        if (newDesc == null || newDesc.equals(this.description))
             return;
 
         this.description = newDesc;
+        this.lines = null;
     }
 
     public String getDescription() {
@@ -78,7 +85,9 @@ public class DescriptionPanel {
             return this.closeButton.getWidth();
 
         float longest = 0.0f;
-        for (String text : textList) {
+        // indexed, since an iterator would be allocated every frame
+        for (int i = 0; i < textList.size(); i++) {
+            String text = textList.get(i);
             if (text.isEmpty())
                 continue;
 
@@ -100,7 +109,12 @@ public class DescriptionPanel {
         float panelLeft = center.x - panelWidth / 2;
         float panelTop = center.y - panelHeight / 2;
 
-        Rectangle panel = new Rectangle(panelLeft, panelTop, panelWidth, panelHeight, this.panelRenderOrder);
+        Rectangle panel = this.panel;
+        panel.left = panelLeft;
+        panel.top = panelTop;
+        panel.width = panelWidth;
+        panel.height = panelHeight;
+        panel.z = this.panelRenderOrder;
         graphics.draw(this.bgTexture, panel, Color.WHITE);
     }
 
@@ -113,7 +127,10 @@ public class DescriptionPanel {
     }
 
     public void render(Graphics2D graphics, Font font, float TEXT_z) {
-        ArrayList<String> textList = this.splitDescription();
+        if (this.lines == null) {
+            this.lines = this.splitDescription();
+        }
+        ArrayList<String> textList = this.lines;
         float longestTextWidth = longestTextWidth(textList, this.textHeight, this.closeButton.getFont());
         float totalTextHeight = this.textHeight * textList.size() + this.closeButton.getHeight();
         this.renderBackground(graphics, longestTextWidth, totalTextHeight);
@@ -134,7 +151,7 @@ public class DescriptionPanel {
         // draw close button
         float buttonCenterX = this.center.x;
         float buttonCenterY = textInitTop + this.textHeight * textList.size() + this.closeButton.getHeight()/2;
-        Vector2f buttonCenter = new Vector2f(buttonCenterX, buttonCenterY);
+        Vector2f buttonCenter = this.buttonCenter.set(buttonCenterX, buttonCenterY);
 
         this.closeButton.draw(graphics, buttonCenter, TEXT_z);
     }
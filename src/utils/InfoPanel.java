@@ -78,8 +78,9 @@ public class InfoPanel {
 
     protected float longestTextWidth(ArrayList<String> textList, float textHeight, Font font) {
         float longest = 0.0f;
-        for (String text : textList) {
-            float width = font.measureTextWidth(text, textHeight);
+        // indexed, since an iterator would be allocated every frame
+        for (int i = 0; i < textList.size(); i++) {
+            float width = font.measureTextWidth(textList.get(i), textHeight);
             if (width > longest)
                 longest = width;
         }
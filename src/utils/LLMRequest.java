@@ -57,6 +57,28 @@ public class LLMRequest {
         return sendRequest(message.toString());
     }
 
+    /**
+     * Asks for an explanation of a submission that has already been checked against the answer key, so the LLM
+     * doesn't have to work out whether it is correct.
+     * */
+    public String requestExplanation(String submission, boolean correct, String correctOption) {
+        if (API_KEY.isEmpty())
+            return "No explanation generated. Check to make sure a valid API key was used to launch the tutoring software.";
+
+        StringBuilder message = new StringBuilder(developerMessage);
+        if (correct) {
+            message.append(String.format("The student has found a solution to be: '%s', which is correct. ", submission));
+        } else {
+            message.append(String.format("The student has found a solution to be: '%s', which is incorrect. " +
+                    "The correct answer is '%s'. ", submission, correctOption));
+        }
+        message.append("Give a short, 3 sentence explanation addressed to the student as to why their answer is " +
+                "correct or incorrect. Be specific, and reveal the answer only after you have calculated the result. " +
+                "When writing out your explanation, DO NOT Use Latex to write out your equations. Instead, just use plain text.");
+
+        return sendRequest(message.toString());
+    }
+
     private String sendRequest(String prompt) {
         try (HttpClient client = HttpClient.newHttpClient()){
             Gson gson = new Gson();
@@ -23,10 +23,19 @@ public class RadioButton implements Clickable {
     private boolean renderHover;
     private boolean renderSelect;
 
+    // scratch shapes reused by every render so drawing doesn't allocate
+    private static final int CIRCLE_POINTS = 15; //TODO: change this to be dependent on the radius
+    private final Vector3f[] circlePoints = new Vector3f[CIRCLE_POINTS];
+    private final Vector3f circleCenter = new Vector3f();
+    private final Triangle circleTriangle = new Triangle(null, null, null);
+
     public RadioButton(Text buttonText) {
         this.buttonText = buttonText;
         this.textHeight = buttonText.getHeight();
         this.textWidth = buttonText.getWidth();
+        for (int i = 0; i < CIRCLE_POINTS; i++) {
+            this.circlePoints[i] = new Vector3f();
+        }
     }
 
     public void setText(String text) {
@@ -74,22 +83,22 @@ public class RadioButton implements Clickable {
     }
 
     private void renderCircle(Graphics2D graphics, Vector3f center, float radius, Color color, float HUD_z, boolean drawOutline) {
-        ArrayList<Vector3f> circlePoints = new ArrayList<>();
-        int numPoints = 15; //TODO: change this to be dependent on the radius
-        for (int i = 0; i < numPoints; i++) {
-            float angle = (float) (2.0 * Math.PI / numPoints * i);
+        for (int i = 0; i < CIRCLE_POINTS; i++) {
+            float angle = (float) (2.0 * Math.PI / CIRCLE_POINTS * i);
             float nextX = center.x + radius * (float) Math.cos(angle);
             float nextY = center.y + radius * (float) Math.sin(angle);
 
-            circlePoints.add(new Vector3f(nextX, nextY, HUD_z));
+            this.circlePoints[i].set(nextX, nextY, HUD_z);
         }
-        circlePoints.add(circlePoints.getFirst());
 
-        // render the circle as a set of triangles
-        for (int i = 0; i < circlePoints.size()-1; i++) {
-            Vector3f v1 = circlePoints.get(i);
-            Vector3f v2 = circlePoints.get(i+1);
-            graphics.draw(new Triangle(center, v1, v2), color);
+        // render the circle as a set of triangles, which the queue copies, so the same one is reused
+        for (int i = 0; i < CIRCLE_POINTS; i++) {
+            Vector3f v1 = this.circlePoints[i];
+            Vector3f v2 = this.circlePoints[(i + 1) % CIRCLE_POINTS];
+            this.circleTriangle.pt1 = center;
+            this.circleTriangle.pt2 = v1;
+            this.circleTriangle.pt3 = v2;
+            graphics.draw(this.circleTriangle, color);
             if (drawOutline) graphics.draw(v1, v2, Color.BLACK);
         }
     }
@@ -99,8 +108,7 @@ public class RadioButton implements Clickable {
 
         float buttonRadius = textHeight / 2 - 0.005f;
         float innerRadius = textHeight / 2 - 0.01f;
-        Vector3f textCenter = buttonText.getCenter();
-        Vector3f center = new Vector3f(textCenter.x-this.textWidth/2 - 0.04f, textCenter.y, HUD_z);
+        Vector3f center = this.circleCenter.set(buttonText.getCenterX()-this.textWidth/2 - 0.04f, buttonText.getCenterY(), HUD_z);
 
         renderCircle(graphics, center, buttonRadius, Color.WHITE, HUD_z, true);
         if (renderHover) {
@@ -2,14 +2,19 @@ package views;
 
 import assets.ColorAssets;
 import assets.FontAssets;
+import assets.ImageAssets;
+import edu.usu.graphics.BufferManager;
 import edu.usu.graphics.Color;
 import edu.usu.graphics.Graphics2D;
 import edu.usu.graphics.Texture;
+import edu.usu.graphics.TextureCache;
 import edu.usu.graphics.objects.Rectangle;
 import edu.usu.graphics.objects.Text;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
-import physics.PhysicsObject2D;
+import physics.MovingBodies;
+import physics.StepTelemetry;
+import simulation.AnswerKey;
 import simulation.Simulation;
 import utils.*;
 import assets.SoundAssets;
@@ -25,11 +30,18 @@ public class SimulationView implements StateView {
 
     private Simulation currentSimulation;
     private ArrayList<String> simDescription;
-    private ArrayList<PhysicsObject2D> physObjects;
+    private MovingBodies movingBodies;
     private ArrayList<RadioButton> solutionOptionsText;
     private boolean playSim;
     private String currentSelectedOption;
 
+    // while replaying, the recording of the run is shown at replayTime instead of stepping the simulation
+    private boolean replaying;
+    private double replayTime;
+    private static final float[] PLAYBACK_SPEEDS = {0.25f, 0.5f, 1.0f, 2.0f, 4.0f};
+    private int playbackSpeedIndex = 2;
+
+    private final AnswerKey answerKey;
     private LLMRequest chatgpt;
     private String hint = "Loading...";
     private String submissionResponse = "Loading...";
@@ -48,6 +60,20 @@ public class SimulationView implements StateView {
     private Text resetSimButton;
     private Text hintButton;
     private Text submitButton;
+    private Text speedButton;
+    private Rectangle timelineTrack;
+    private Rectangle timelineRecorded;
+    private Rectangle timelineHandle;
+    // what the recent physics steps cost, shown over the simulation while F3 is toggled on
+    private static final double TELEMETRY_REFRESH = 0.5;
+    private final StepTelemetry.Summary telemetry = new StepTelemetry.Summary();
+    private Text telemetryText;
+    // the second line of the readout, for what the frame loop saves on top of the physics
+    private Text telemetryDetailText;
+    private boolean showTelemetry = false;
+    private double sinceTelemetryRefresh = 0;
+    // the paths the moving bodies have just taken, drawn behind them until T toggles them off
+    private boolean showTrails = true;
     private final float HUDpanelWidth = 0.6f;
     private Rectangle HUDPanel;
     private Rectangle simPanel;
@@ -57,13 +83,15 @@ public class SimulationView implements StateView {
 
     Texture cannon;
     Rectangle cannonRect;
+    private Texture panelBackground;
 
-    public SimulationView(Graphics2D graphics, SoundAssets audio, Simulation defaultSim, String LLM_API_KEY) {
+    public SimulationView(Graphics2D graphics, SoundAssets audio, Simulation defaultSim, AnswerKey answerKey, String LLM_API_KEY) {
         this.graphics = graphics;
         this.aspectRatio = (float) graphics.getHeight()/graphics.getWidth();
         this.audio = audio;
 
         this.currentSimulation = defaultSim;
+        this.answerKey = answerKey;
 
         this.chatgpt = new LLMRequest(LLM_API_KEY);
     }
@@ -75,8 +103,13 @@ public class SimulationView implements StateView {
         // this is a kinda poor way of doing this. Ideally, you could specify in the simulation schema "virtual" objects that should
         // just be rendered, but not actually used by the physics engine. This way they don't actually interact with anything.
         // maybe in the future I'll add that ability.
-        this.cannon = new Texture("./resources/images/cannon.png");
-        this.cannonRect = new Rectangle(-0.29f, -0.045f, 0.055f, 0.055f, 1.0f);
+        // the view's textures are held for as long as the tutor runs, so they're only loaded on the first visit
+        if (this.cannon == null) {
+            this.cannon = graphics.getTextureCache().acquire(ImageAssets.cannonImg);
+            this.panelBackground = graphics.getTextureCache().acquire(ImageAssets.panelBackgroundImg);
+        }
+        // standing on the ground over the origin, where the ball is launched from, so the ball comes out from behind it
+        this.cannonRect = new Rectangle(-0.025f, -0.045f, 0.055f, 0.055f, 1.0f);
 
         float descTextHeight = 0.04f;
         float buttonTextHeight = 0.06f;
@@ -109,15 +142,17 @@ public class SimulationView implements StateView {
         );
 
         this.chatgpt.createPrompt(this.currentSimulation.description, this.currentSimulation.solutionOptions);
-        this.physObjects = this.currentSimulation.create();
+        this.movingBodies = createSimulation();
         this.playSim = false;
+        this.replaying = false;
+        this.replayTime = 0;
 
         this.responseCloseButton = new Text(new Vector3f(), "CLOSE", FontAssets.robotoReg, 0.05f, ColorAssets.menuTextColor);
 
         this.hintPanel = new DescriptionPanel(new Vector2f(), this.hint, 0.04f, responseCloseButton, InfoPanel.TextAlignment.CENTERED);
-        this.hintPanel.setTexture(new Texture("./resources/images/simplebg.png"), 0.025f, RenderOrders.HUD2_z);
+        this.hintPanel.setTexture(this.panelBackground, 0.025f, RenderOrders.HUD2_z);
         this.submitPanel = new DescriptionPanel(new Vector2f(), this.submissionResponse, 0.04f, responseCloseButton, InfoPanel.TextAlignment.CENTERED);
-        this.submitPanel.setTexture(new Texture("./resources/images/simplebg.png"), 0.025f, RenderOrders.HUD2_z);
+        this.submitPanel.setTexture(this.panelBackground, 0.025f, RenderOrders.HUD2_z);
         this.renderHint = false;
         this.renderSubmitResponse = false;
 
@@ -131,11 +166,23 @@ public class SimulationView implements StateView {
         this.hintButton = new Text(new Vector3f(-0.85f, 0.42f, RenderOrders.TEXT2_z), "HINT", FontAssets.robotoReg_OL, buttonTextHeight, ColorAssets.simButtonTextColor1);
         this.submitButton = new Text(new Vector3f(-0.55f, 0.42f, RenderOrders.TEXT2_z), "SUBMIT", FontAssets.robotoReg_OL, buttonTextHeight, ColorAssets.simButtonTextColor1);
 
+        // the timeline along the bottom of the simulation, covering the whole run
+        this.speedButton = new Text(new Vector3f(-0.34f, aspectRatio - 0.05f, RenderOrders.TEXT2_z), speedText(), FontAssets.robotoReg_OL, 0.05f, ColorAssets.simButtonTextColor1);
+        this.timelineTrack = new Rectangle(-0.28f, aspectRatio - 0.06f, 1.23f, 0.02f, RenderOrders.HUD1_z);
+        this.timelineRecorded = new Rectangle(-0.28f, aspectRatio - 0.06f, 0.0f, 0.02f, RenderOrders.HUD2_z);
+        this.timelineHandle = new Rectangle(-0.28f, aspectRatio - 0.07f, 0.01f, 0.04f, RenderOrders.TEXT1_z);
+        this.telemetryText = new Text(new Vector3f(0.35f, -aspectRatio + 0.04f, RenderOrders.TEXT2_z), "", FontAssets.robotoReg_OL, 0.035f, ColorAssets.simButtonTextColor1);
+        this.telemetryDetailText = new Text(new Vector3f(0.35f, -aspectRatio + 0.08f, RenderOrders.TEXT2_z), "", FontAssets.robotoReg_OL, 0.035f, ColorAssets.simButtonTextColor1);
+
         registerKeyboardCommands();
         registerCursorCommands();
     }
 
     public void setCurrentSimulation(Simulation sim) {
+        // the previous simulation's textures and geometry can be evicted while another one is shown
+        if (sim != this.currentSimulation) {
+            this.currentSimulation.release(graphics);
+        }
         this.currentSimulation = sim;
     }
 
@@ -144,6 +191,19 @@ public class SimulationView implements StateView {
         keyboard.registerKeyDown(GLFW_KEY_ESCAPE, true, (double elapsedTime) -> {
             nextState = StateEnum.SimulationSelect;
         });
+        keyboard.registerKeyDown(GLFW_KEY_F3, true, (double elapsedTime) -> {
+            this.showTelemetry = !this.showTelemetry;
+            this.sinceTelemetryRefresh = TELEMETRY_REFRESH;
+        });
+        keyboard.registerKeyDown(GLFW_KEY_F4, true, (double elapsedTime) -> {
+            // cycles how the frame's vertices are uploaded, to compare the strategies on this driver
+            BufferManager.StreamingStrategy[] strategies = BufferManager.StreamingStrategy.values();
+            graphics.setStreamingStrategy(strategies[(graphics.getStreamingStrategy().ordinal() + 1) % strategies.length]);
+            this.sinceTelemetryRefresh = TELEMETRY_REFRESH;
+        });
+        keyboard.registerKeyDown(GLFW_KEY_T, true, (double elapsedTime) -> {
+            this.showTrails = !this.showTrails;
+        });
     }
 
     private void registerCursorCommands() {
@@ -187,9 +247,32 @@ public class SimulationView implements StateView {
             cursor.setCursorType(GLFW_ARROW_CURSOR);
         });
         cursor.addLeftClickListener(resetSimButton, true, (double elapsedTime, double x, double y) -> {
-            this.playSim = false;
-            this.playPauseButton.setText("PLAY");
-            this.physObjects = this.currentSimulation.create();
+            rewind();
+        });
+
+        // commands for the playback speed button
+        cursor.addHoverListener(speedButton, true, (double elapsedTime, double x, double y) -> {
+            speedButton.setColor(ColorAssets.simSelectedTextColor1);
+            cursor.setCursorType(GLFW_HAND_CURSOR);
+        });
+        cursor.addExitListener(speedButton, (double elapsedTime, double x, double y) -> {
+            speedButton.setColor(ColorAssets.simButtonTextColor1);
+            cursor.setCursorType(GLFW_ARROW_CURSOR);
+        });
+        cursor.addLeftClickListener(speedButton, true, (double elapsedTime, double x, double y) -> {
+            this.playbackSpeedIndex = (playbackSpeedIndex + 1) % PLAYBACK_SPEEDS.length;
+            this.speedButton.setText(speedText());
+        });
+
+        // commands for the timeline, which scrubs through the recorded part of the run for as long as it's held
+        cursor.addHoverListener(timelineTrack, true, (double elapsedTime, double x, double y) -> {
+            cursor.setCursorType(GLFW_HAND_CURSOR);
+        });
+        cursor.addExitListener(timelineTrack, (double elapsedTime, double x, double y) -> {
+            cursor.setCursorType(GLFW_ARROW_CURSOR);
+        });
+        cursor.addLeftClickListener(timelineTrack, false, (double elapsedTime, double x, double y) -> {
+            scrubTo(x);
         });
 
         // commands for the hint button
@@ -272,15 +355,23 @@ public class SimulationView implements StateView {
     }
 
     private void requestSubmit() {
-        this.submissionResponse = "Loading...";
+        // check the answer locally if the simulation has been verified, the LLM is then only needed for the explanation
+        String submission = this.currentSelectedOption;
+        AnswerKey.Answer answer = this.answerKey.get(this.currentSimulation);
+        boolean correct = answer != null && answer.getOption().equals(submission);
+        String verdict = answer == null ? "" : (correct ? "Correct! " : "Incorrect. ");
+        this.submissionResponse = verdict + "Loading...";
+
         // run the request in a new thread, and only if the submission isn't empty
         Runnable t = () -> {
             String subResponse;
             do {
-                subResponse = this.chatgpt.requestSubmission(this.currentSelectedOption);
+                subResponse = answer == null
+                        ? this.chatgpt.requestSubmission(submission)
+                        : this.chatgpt.requestExplanation(submission, correct, answer.getOption());
             } while (subResponse == null);
 
-            this.submissionResponse = subResponse;
+            this.submissionResponse = verdict + subResponse;
         };
         Thread thread = new Thread(t);
         thread.start();
@@ -294,17 +385,67 @@ public class SimulationView implements StateView {
         return nextState;
     }
 
+    /** shows the recorded moment under the mouse, which is at x pixels from the left of the window */
+    private void scrubTo(double x) {
+        float xCanvas = (float) (2 * x / graphics.getWidth() - 1);
+        float fraction = Math.max(0.0f, Math.min(1.0f, (xCanvas - timelineTrack.left) / timelineTrack.width));
+        // only the part of the run that has already been simulated can be shown
+        this.replayTime = Math.min(fraction * this.currentSimulation.runTime(), this.currentSimulation.recordedTime());
+        this.replaying = true;
+        this.currentSimulation.showRecorded(this.replayTime);
+    }
+
+    /**
+     * Pauses at the start of the run, which is then replayed from the recording instead of simulated again. If the
+     * recording filled up before the end of the run, the simulation is reset in place and run again instead.
+     * */
+    private void rewind() {
+        this.playSim = false;
+        this.playPauseButton.setText("PLAY");
+        this.replayTime = 0;
+        if (this.currentSimulation.isRecordingFull()) {
+            this.replaying = false;
+            this.currentSimulation.reset();
+        } else {
+            this.replaying = true;
+            this.currentSimulation.showRecorded(0);
+        }
+    }
+
+    private String speedText() {
+        float speed = PLAYBACK_SPEEDS[playbackSpeedIndex];
+        return speed < 1 ? String.format("%.2fx", speed) : String.format("%.0fx", speed);
+    }
+
     @Override
     public void update(double elapsedTime) {
-        for (PhysicsObject2D obj : this.physObjects) {
-            obj.update(elapsedTime);
+        // the state the physics thread has reached by now is what this frame shows
+        this.currentSimulation.showLatestState();
+        if (playSim) {
+            double playbackTime = elapsedTime * PLAYBACK_SPEEDS[playbackSpeedIndex];
+            if (replaying) {
+                this.replayTime += playbackTime;
+                if (this.replayTime < this.currentSimulation.recordedTime()) {
+                    this.currentSimulation.showRecorded(this.replayTime);
+                } else {
+                    // caught up with the simulation, so carry on simulating from where it left off
+                    this.replaying = false;
+                    this.currentSimulation.showSimulated();
+                }
+            } else {
+                this.currentSimulation.stepForward(playbackTime);
+            }
         }
-        if (playSim) this.currentSimulation.stepForward(elapsedTime, 10);
+        this.movingBodies.update(elapsedTime);
+        // sampled even while hidden, so turning them back on shows the path the bodies have just taken
+        this.currentSimulation.getTrails().update();
 
-        if (this.currentSimulation.simulationStopped()) {
-            this.physObjects = this.currentSimulation.create();
-            this.playPauseButton.setText("PLAY");
-            this.playSim = false;
+        if (!replaying && this.currentSimulation.simulationStopped()) {
+            rewind();
+        }
+
+        if (showTelemetry) {
+            updateTelemetryText(elapsedTime);
         }
 
         // constantly update each frame to make sure we display the response when it arrives
@@ -312,6 +453,41 @@ public class SimulationView implements StateView {
         this.submitPanel.setDescription(this.submissionResponse);
     }
 
+    /** refreshes the telemetry readout a couple of times a second, so it can be read and its text isn't rebuilt every frame */
+    private void updateTelemetryText(double elapsedTime) {
+        this.sinceTelemetryRefresh += elapsedTime;
+        if (this.sinceTelemetryRefresh < TELEMETRY_REFRESH)
+            return;
+        this.sinceTelemetryRefresh = 0;
+
+        this.currentSimulation.getTelemetry(this.telemetry);
+        this.telemetryText.setText(String.format("step %.2f ms (p95 %.2f, max %.2f)   bodies %d (%d awake)   contacts %d   proxies %d   buffers %s",
+                telemetry.p50StepMillis, telemetry.p95StepMillis, telemetry.maxStepMillis,
+                telemetry.bodies, telemetry.awakeBodies, telemetry.contacts, telemetry.proxies,
+                graphics.getStreamingStrategy()));
+        // bodies at rest are skipped and drawn as one batch, rebuilt whenever a body comes to rest or starts moving again.
+        // The texture counts cover every simulation shown so far, so going back to one still cached only adds hits.
+        TextureCache textures = graphics.getTextureCache();
+        this.telemetryDetailText.setText(String.format("resting %d of %d (batch rebuilt %d times)   textures %d hits, %d misses, %d evicted",
+                this.movingBodies.getRestingCount(), this.movingBodies.size(), this.movingBodies.getRebuildCount(),
+                textures.getHits(), textures.getMisses(), textures.getEvictions()));
+    }
+
+    /**
+     * Builds the current simulation the first time it's shown, or resets it in place after that. Returns the bodies
+     * to update and render each frame.
+     * */
+    private MovingBodies createSimulation() {
+        if (this.currentSimulation.isCreated()) {
+            this.currentSimulation.reset();
+        } else {
+            this.currentSimulation.create();
+        }
+        // the physics is stepped on its own thread while the simulation is shown, so a slow step can't stall a frame
+        this.currentSimulation.startPhysicsThread();
+        return this.currentSimulation.getMovingBodies();
+    }
+
     // used to fit the description text onto the display panel
     public ArrayList<String> splitDescription() {
         ArrayList<String> descStrings = new ArrayList<>();
@@ -336,6 +512,21 @@ public class SimulationView implements StateView {
         return descStrings;
     }
 
+    private void renderTimeline() {
+        float runTime = (float) this.currentSimulation.runTime();
+        float recordedFraction = (float) Math.min(this.currentSimulation.recordedTime() / runTime, 1.0);
+        double shownTime = replaying ? this.replayTime : this.currentSimulation.timeElapsedSinceStart;
+        float shownFraction = (float) Math.min(shownTime / runTime, 1.0);
+
+        this.timelineRecorded.width = timelineTrack.width * recordedFraction;
+        this.timelineHandle.left = timelineTrack.left + timelineTrack.width * shownFraction - timelineHandle.width / 2;
+
+        speedButton.draw(graphics);
+        graphics.draw(timelineTrack, ColorAssets.timelineColor);
+        graphics.draw(timelineRecorded, ColorAssets.timelineRecordedColor);
+        graphics.draw(timelineHandle, ColorAssets.timelineHandleColor);
+    }
+
     @Override
     public void render(double elapsedTime) {
         graphics.setClearColor(this.currentSimulation.bgColor);
@@ -356,16 +547,21 @@ public class SimulationView implements StateView {
         resetSimButton.draw(graphics);
         hintButton.draw(graphics);
         submitButton.draw(graphics);
-
-        for (PhysicsObject2D obj : this.physObjects) {
-            obj.render(graphics, elapsedTime);
+        renderTimeline();
+        if (showTelemetry) {
+            telemetryText.draw(graphics);
+            telemetryDetailText.draw(graphics);
         }
 
+        this.currentSimulation.getStaticBodies().render(graphics, elapsedTime);
+        if (showTrails) this.currentSimulation.getTrails().render(graphics, RenderOrders.OBJECT1_z, ColorAssets.trailColor);
+        this.movingBodies.render(graphics, elapsedTime);
+
 
         this.descTextPanel.render(graphics, FontAssets.robotoReg, RenderOrders.HUD2_z, RenderOrders.TEXT1_z);
 
-        for (RadioButton button : this.solutionOptionsText) {
-            button.render(graphics, RenderOrders.HUD2_z);
+        for (int i = 0; i < this.solutionOptionsText.size(); i++) {
+            this.solutionOptionsText.get(i).render(graphics, RenderOrders.HUD2_z);
         }
     }
 }